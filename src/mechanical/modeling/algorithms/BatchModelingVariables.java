@@ -0,0 +1,171 @@
+package mechanical.modeling.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import mechanical.modeling.components.MechanicalSystem;
+
+/**
+ * This class finds the optimal modeling variables of many mechanical systems
+ * by scheduling one {@link OptimalModelingVariables#findVariables(MechanicalSystem)}
+ * call per system on an executor.
+ *
+ * <p>
+ * The systems are read lazily from the iterable passed in and at most a
+ * fixed number of them are submitted to the executor at any time, so
+ * large or generated sequences of systems never need to be held in memory.
+ * The results are returned in the order of the systems. A system for which
+ * the selection fails does not fail the batch; its result holds the exception
+ * instead of the variables.
+ * </p>
+ *
+ * <p>
+ * The executor is owned by the caller. A work-stealing pool such as a
+ * ForkJoinPool is well suited when the systems are small.
+ * </p>
+ */
+public final class BatchModelingVariables {
+
+    private final ExecutorService executor;
+    private final int maxInFlight;
+
+    /**
+     * Creates a batch selection running on the given executor.
+     *
+     * @param executor is the executor on which the selections are run
+     * @param maxInFlight is the maximum number of systems submitted to the executor at once
+     *
+     * @throws IllegalArgumentException if the executor is null or maxInFlight is not positive.
+     */
+    public BatchModelingVariables(ExecutorService executor, int maxInFlight) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor is null");
+        }
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("The maximum number of systems in flight must be positive");
+        }
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Finds the optimal modeling variables of each mechanical system.
+     *
+     * @param mechanicalSystems are the mechanical systems who's optimal modeling
+     *        variables need to be found
+     * @return a list holding one result per system, in the order of the systems
+     *
+     * @throws IllegalStateException if the calling thread is interrupted while waiting
+     *         for the results. The selections still in flight are cancelled.
+     */
+    public List<Result> findVariables(Iterable<MechanicalSystem> mechanicalSystems) {
+        List<Result> results = new ArrayList<Result>();
+        Queue<Future<Result>> inFlight = new LinkedList<Future<Result>>();
+        try {
+            for (final MechanicalSystem mechanicalSystem : mechanicalSystems) {
+                if (inFlight.size() == maxInFlight) {
+                    results.add(getResult(inFlight.remove()));
+                }
+                inFlight.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return select(mechanicalSystem);
+                    }
+                }));
+            }
+            while (!inFlight.isEmpty()) {
+                results.add(getResult(inFlight.remove()));
+            }
+        } catch (InterruptedException e) {
+            for (Future<Result> future : inFlight) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch results", e);
+        }
+        return results;
+    }
+
+    /*
+     * Runs the selection of a single system, isolating its failure in the result
+     */
+    private static Result select(MechanicalSystem mechanicalSystem) {
+        try {
+            if (mechanicalSystem == null) {
+                throw new IllegalArgumentException("The mechanical system is null");
+            }
+            return new Result(OptimalModelingVariables.findVariables(mechanicalSystem), null);
+        } catch (RuntimeException e) {
+            return new Result(null, e);
+        }
+    }
+
+    private static Result getResult(Future<Result> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            return new Result(null, new IllegalStateException(cause));
+        }
+    }
+
+    /**
+     * This class holds the outcome of the selection of one mechanical system:
+     * either its optimal modeling variables or the exception that was thrown.
+     */
+    public static final class Result {
+
+        private final Set<String> variables;
+        private final RuntimeException error;
+
+        private Result(Set<String> variables, RuntimeException error) {
+            this.variables = variables;
+            this.error = error;
+        }
+
+        /**
+         * @return true if the modeling variables of the system were found
+         */
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        /**
+         * @return the optimal modeling variables of the system
+         *
+         * @throws IllegalStateException if the selection of the system failed.
+         */
+        public Set<String> getVariables() {
+            if (error != null) {
+                throw new IllegalStateException("The selection of the system failed", error);
+            }
+            return Collections.unmodifiableSet(variables);
+        }
+
+        /**
+         * @return the exception thrown by the selection of the system, or null if it succeeded
+         */
+        public RuntimeException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return "Result[Error: " + error + "]";
+            }
+            return "Result[Variables: " + variables + "]";
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class finds the shortest paths tree of a compact mechanical system
+ * in a given domain, rooted at the ground reference frame, when every edge
+ * weight is a small integer. This is the case of the default weight, the
+ * number of modeling variables of a component, which is never more than 3.
+ *
+ * <p>
+ * The search is Dial's algorithm: the frames waiting to be added to the tree
+ * are kept in buckets indexed by their distance to the ground, and since no
+ * pending distance is more than the largest weight away from the current
+ * one, a circular array of buckets is enough. Within a distance, the frames
+ * are kept in one bucket per weight of their last edge, so frames are added
+ * to the tree in the same (distance, last edge weight) order as
+ * {@link CompactShortestPathsTree}, and the same tie-break applies. The
+ * search runs in time linear in the number of frames, components and
+ * distinct distances.
+ * </p>
+ *
+ * <p>
+ * The distances are always equal to those of {@link CompactShortestPathsTree}.
+ * Frames whose distance and last edge weight are equal may be added to the
+ * tree in a different order by the two searches, in which case they may keep
+ * different paths of the same length.
+ * </p>
+ */
+public final class BucketShortestPathsTree {
+
+    /** The largest edge weight supported by the buckets */
+    public static final int MAX_WEIGHT = 64;
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    /* The deadline is checked once every 1024 frames added to the tree */
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    private final CompactMechanicalSystem system;
+    private final Domain domain;
+    private final int[] typeWeights;
+    private final int[] distances;
+    private final int[] parentComponents;
+    private final int[] parentFrames;
+    private final int[] frameOrder;
+    private int reachedFrames;
+
+    /**
+     * Finds the shortest paths tree of the system in the given domain, weighing
+     * each edge by the number of variables of its component.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain whose variables weigh the edges
+     */
+    public BucketShortestPathsTree(CompactMechanicalSystem system, Domain domain) {
+        this(system, domain, EdgeWeight.NUMBER_OF_VARIABLES);
+    }
+
+    /**
+     * Finds the shortest paths tree of the system in the given domain.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the tree
+     * @param edgeWeight defines the weight of each edge
+     *
+     * @throws IllegalArgumentException if the weight of a component type is not an
+     *         integer between 0 and {@link #MAX_WEIGHT}.
+     */
+    public BucketShortestPathsTree(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight) {
+        this(system, domain, edgeWeight, SelectionDeadline.NONE);
+    }
+
+    /**
+     * Finds the shortest paths tree of the system in the given domain, checking the
+     * deadline regularly during the search.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the tree
+     * @param edgeWeight defines the weight of each edge
+     * @param deadline is the deadline of the search
+     *
+     * @throws IllegalArgumentException if the weight of a component type is not an
+     *         integer between 0 and {@link #MAX_WEIGHT}.
+     * @throws SelectionTimeoutException if the deadline expires before the tree is found.
+     */
+    public BucketShortestPathsTree(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+        this.system = system;
+        this.domain = domain;
+        this.typeWeights = new int[TYPES.length];
+        int maxWeight = 0;
+        for (ComponentType type : TYPES) {
+            double weight = edgeWeight.getWeight(type, domain);
+            if (!(weight >= 0 && weight <= MAX_WEIGHT && weight == Math.floor(weight))) {
+                throw new IllegalArgumentException("The weight of " + type + " in the " + domain
+                        + " domain is not an integer between 0 and " + MAX_WEIGHT);
+            }
+            typeWeights[type.ordinal()] = (int) weight;
+            maxWeight = Math.max(maxWeight, (int) weight);
+        }
+
+        int frameCount = system.getFrameCount();
+        this.distances = new int[frameCount];
+        this.parentComponents = new int[frameCount];
+        this.parentFrames = new int[frameCount];
+        this.frameOrder = new int[frameCount];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        Arrays.fill(parentComponents, -1);
+        Arrays.fill(parentFrames, -1);
+
+        search(maxWeight + 1, deadline);
+    }
+
+    /*
+     * Dial's algorithm ordered by (distance, weight of the last edge). The bucket of a
+     * frame is (distance modulo span) * span + last weight, where span is one more than
+     * the largest weight. Each bucket is a doubly linked list of frames threaded through
+     * the next and previous arrays, so a frame can be moved to a better bucket in
+     * constant time.
+     */
+    private void search(int span, SelectionDeadline deadline) {
+        int frameCount = system.getFrameCount();
+        int[] lastWeights = new int[frameCount];
+        int[] buckets = new int[frameCount];
+        int[] next = new int[frameCount];
+        int[] previous = new int[frameCount];
+        int[] heads = new int[span * span];
+        boolean[] settled = new boolean[frameCount];
+        Arrays.fill(buckets, -1);
+        Arrays.fill(heads, -1);
+
+        int ground = system.getGround();
+        distances[ground] = 0;
+        link(ground, 0, buckets, next, previous, heads);
+        int pending = 1;
+
+        int distance = 0;
+        while (pending > 0) {
+            int base = (distance % span) * span;
+            int bucket = base;
+            while (bucket < base + span && heads[bucket] < 0) {
+                bucket++;
+            }
+            if (bucket == base + span) {
+                distance++;
+                continue;
+            }
+
+            if ((reachedFrames & DEADLINE_CHECK_MASK) == 0) {
+                deadline.check();
+            }
+            int frame = heads[bucket];
+            unlink(frame, buckets, next, previous, heads);
+            pending--;
+            settled[frame] = true;
+            frameOrder[reachedFrames++] = frame;
+
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int adjacent = system.getAdjacentFrame(index);
+                if (settled[adjacent]) {
+                    continue;
+                }
+
+                int component = system.getAdjacentComponent(index);
+                int weight = typeWeights[system.getComponentType(component).ordinal()];
+                int adjacentDistance = distance + weight;
+                if (adjacentDistance < distances[adjacent]
+                        || (adjacentDistance == distances[adjacent] && weight < lastWeights[adjacent])) {
+                    if (buckets[adjacent] < 0) {
+                        pending++;
+                    } else {
+                        unlink(adjacent, buckets, next, previous, heads);
+                    }
+                    distances[adjacent] = adjacentDistance;
+                    lastWeights[adjacent] = weight;
+                    parentComponents[adjacent] = component;
+                    parentFrames[adjacent] = frame;
+                    link(adjacent, (adjacentDistance % span) * span + weight, buckets, next, previous, heads);
+                }
+            }
+        }
+    }
+
+    private static void link(int frame, int bucket, int[] buckets, int[] next, int[] previous, int[] heads) {
+        buckets[frame] = bucket;
+        previous[frame] = -1;
+        next[frame] = heads[bucket];
+        if (heads[bucket] >= 0) {
+            previous[heads[bucket]] = frame;
+        }
+        heads[bucket] = frame;
+    }
+
+    private static void unlink(int frame, int[] buckets, int[] next, int[] previous, int[] heads) {
+        if (previous[frame] >= 0) {
+            next[previous[frame]] = next[frame];
+        } else {
+            heads[buckets[frame]] = next[frame];
+        }
+        if (next[frame] >= 0) {
+            previous[next[frame]] = previous[frame];
+        }
+        buckets[frame] = -1;
+    }
+
+    /**
+     * @return the domain in which the tree was found
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return true if the reference frame is connected to the ground in the tree
+     */
+    public boolean isReachable(int frame) {
+        return distances[frame] != Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the total weight of the tree path between the frame and the ground, or
+     *         Integer.MAX_VALUE for unreachable frames
+     */
+    public int getDistance(int frame) {
+        return distances[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the component linking the frame to its parent, or -1 for the
+     *         ground and unreachable frames
+     */
+    public int getParentComponent(int frame) {
+        return parentComponents[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the frame's parent reference frame, or -1 for the ground and
+     *         unreachable frames
+     */
+    public int getParentFrame(int frame) {
+        return parentFrames[frame];
+    }
+
+    /**
+     * @return the ids of the reference frames reachable from the ground, in the order
+     *         in which they were added to the tree. Parents always precede their children.
+     */
+    public int[] getFrameOrder() {
+        return Arrays.copyOf(frameOrder, reachedFrames);
+    }
+
+    /**
+     * @return the ids of the components forming the tree, in the order in which
+     *         they were added to the tree
+     */
+    public int[] getTreeComponents() {
+        int[] components = new int[Math.max(reachedFrames - 1, 0)];
+        for (int i = 1; i < reachedFrames; i++) {
+            components[i - 1] = parentComponents[frameOrder[i]];
+        }
+        return components;
+    }
+}
@@ -0,0 +1,251 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.Domain;
+import mechanical.modeling.components.MechanicalSystem;
+
+/**
+ * This class finds the optimal modeling variables of mechanical systems and
+ * caches the selected trees, so that systems with the same topology are only
+ * solved once.
+ *
+ * <p>
+ * The cache is keyed on the structure of the system: the type of each component
+ * in the order the components were added, and the reference frames it links,
+ * numbered from the ground in the order they first appear. The names of the
+ * frames and components are not part of the key. A cached entry holds the
+ * positions of the tree components in each domain, and the variables are
+ * named after the caller's components when they are returned.
+ * </p>
+ *
+ * <p>
+ * The least recently used entries are evicted when either the number of entries
+ * or their estimated size in bytes exceeds its bound. The cache can be shared by
+ * concurrent threads.
+ * </p>
+ */
+public final class CachedModelingVariables {
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Trees> entries;
+    private long bytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries is the maximum number of systems whose trees are cached
+     * @param maxBytes is the maximum estimated size of the cached entries in bytes
+     *
+     * @throws IllegalArgumentException if one of the bounds is not positive.
+     */
+    public CachedModelingVariables(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("The bounds of the cache must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<Key, Trees>(16, 0.75f, true);
+    }
+
+    /**
+     * Finds the optimal modeling variables of a mechanical system, reusing the trees
+     * of a previously solved system with the same topology.
+     *
+     * @param mechanicalSystem is the mechanical system who's optimal
+     *        modeling variables need to be found
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public Set<String> findVariables(MechanicalSystem mechanicalSystem) {
+        return findVariables(mechanicalSystem.compact());
+    }
+
+    /**
+     * Finds the optimal modeling variables of a compact mechanical system, reusing the
+     * trees of a previously solved system with the same topology.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public Set<String> findVariables(CompactMechanicalSystem mechanicalSystem) {
+        if (mechanicalSystem.getComponentCount() == 0) {
+            throw new IllegalArgumentException("The mechanical system must contain components");
+        }
+
+        Key key = new Key(mechanicalSystem);
+        Trees trees = get(key);
+        if (trees == null) {
+            trees = new Trees(new CompactShortestPathsTree(mechanicalSystem, Domain.ROTATIONAL).getTreeComponents(),
+                    new CompactShortestPathsTree(mechanicalSystem, Domain.TRANSLATIONAL).getTreeComponents());
+            put(key, trees);
+        }
+
+        Set<String> variables = new LinkedHashSet<String>();
+        for (int component : trees.rotationalTree) {
+            Collections.addAll(variables, mechanicalSystem.getVariables(component, Domain.ROTATIONAL));
+        }
+        for (int component : trees.translationalTree) {
+            Collections.addAll(variables, mechanicalSystem.getVariables(component, Domain.TRANSLATIONAL));
+        }
+        return variables;
+    }
+
+    private synchronized Trees get(Key key) {
+        Trees trees = entries.get(key);
+        if (trees == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return trees;
+    }
+
+    private synchronized void put(Key key, Trees trees) {
+        Trees previous = entries.put(key, trees);
+        if (previous != null) {
+            bytes -= estimateBytes(key, previous);
+        }
+        bytes += estimateBytes(key, trees);
+
+        Iterator<Map.Entry<Key, Trees>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<Key, Trees> entry = eldest.next();
+            bytes -= estimateBytes(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    private static long estimateBytes(Key key, Trees trees) {
+        return ENTRY_OVERHEAD_BYTES + 4L * (key.structure.length + trees.rotationalTree.length + trees.translationalTree.length);
+    }
+
+    /**
+     * @return the number of selections answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return the number of selections that had to be solved
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return the number of entries evicted to respect the bounds of the cache
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the estimated size of the cached entries in bytes
+     */
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    /**
+     * Removes all the cached entries. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CachedModelingVariables[Entries: " + entries.size() + ", Bytes: " + bytes + ", Hits: " + hitCount +
+                ", Misses: " + missCount + ", Evictions: " + evictionCount + "]";
+    }
+
+    /*
+     * The structure of a system: the type, source and target of each component, with
+     * the frames renumbered from the ground in the order they first appear
+     */
+    private static final class Key {
+
+        private final int[] structure;
+        private final int hash;
+
+        Key(CompactMechanicalSystem system) {
+            int[] frameIds = new int[system.getFrameCount()];
+            Arrays.fill(frameIds, -1);
+            frameIds[system.getGround()] = 0;
+            int nextFrameId = 1;
+
+            structure = new int[3 * system.getComponentCount()];
+            for (int component = 0; component < system.getComponentCount(); component++) {
+                int source = system.getSourceFrame(component);
+                int target = system.getTargetFrame(component);
+                if (frameIds[source] < 0) {
+                    frameIds[source] = nextFrameId++;
+                }
+                if (frameIds[target] < 0) {
+                    frameIds[target] = nextFrameId++;
+                }
+                structure[3 * component] = system.getComponentType(component).ordinal();
+                structure[3 * component + 1] = frameIds[source];
+                structure[3 * component + 2] = frameIds[target];
+            }
+            hash = Arrays.hashCode(structure);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            return hash == other.hash && Arrays.equals(structure, other.structure);
+        }
+    }
+
+    /*
+     * The positions of the tree components of each domain
+     */
+    private static final class Trees {
+
+        private final int[] rotationalTree;
+        private final int[] translationalTree;
+
+        Trees(int[] rotationalTree, int[] translationalTree) {
+            this.rotationalTree = rotationalTree;
+            this.translationalTree = translationalTree;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class finds the shortest paths tree of a compact mechanical system
+ * in a given domain, rooted at the ground reference frame. The weight of
+ * each edge is given by an {@link EdgeWeight}, which is by default the
+ * number of modeling variables of its component in the domain. The weight
+ * of each component type is evaluated the first time an edge of that type
+ * is reached.
+ *
+ * <p>
+ * The search is a Dijkstra traversal working directly on the compact
+ * system's adjacency arrays with an indexed binary heap, so no node or
+ * edge objects are created. When two paths to a reference frame have the
+ * same length, the path whose last edge has the fewest variables is kept,
+ * which favors trees with fewer modeling variables in total.
+ * </p>
+ */
+public final class CompactShortestPathsTree {
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    /* The deadline is checked once every 1024 frames added to the tree */
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    private final CompactMechanicalSystem system;
+    private final Domain domain;
+    private final EdgeWeight edgeWeight;
+    private final double[] typeWeights;
+    private final double[] distances;
+    private final int[] parentComponents;
+    private final int[] parentFrames;
+    private final int[] frameOrder;
+    private int reachedFrames;
+
+    /**
+     * Finds the shortest paths tree of the system in the given domain, weighing
+     * each edge by the number of variables of its component.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain whose variables weigh the edges
+     */
+    public CompactShortestPathsTree(CompactMechanicalSystem system, Domain domain) {
+        this(system, domain, EdgeWeight.NUMBER_OF_VARIABLES);
+    }
+
+    /**
+     * Finds the shortest paths tree of the system in the given domain.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the tree
+     * @param edgeWeight defines the weight of each edge
+     */
+    public CompactShortestPathsTree(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight) {
+        this(system, domain, edgeWeight, SelectionDeadline.NONE);
+    }
+
+    /**
+     * Finds the shortest paths tree of the system in the given domain, checking the
+     * deadline regularly during the search.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the tree
+     * @param edgeWeight defines the weight of each edge
+     * @param deadline is the deadline of the search
+     *
+     * @throws SelectionTimeoutException if the deadline expires before the tree is found.
+     */
+    public CompactShortestPathsTree(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+        this.system = system;
+        this.domain = domain;
+        this.edgeWeight = edgeWeight;
+        this.typeWeights = new double[TYPES.length];
+        Arrays.fill(typeWeights, Double.NaN);
+
+        int frameCount = system.getFrameCount();
+        this.distances = new double[frameCount];
+        this.parentComponents = new int[frameCount];
+        this.parentFrames = new int[frameCount];
+        this.frameOrder = new int[frameCount];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parentComponents, -1);
+        Arrays.fill(parentFrames, -1);
+
+        search(deadline);
+    }
+
+    /*
+     * Dijkstra traversal ordered by (distance, weight of the last edge)
+     */
+    private void search(SelectionDeadline deadline) {
+        int frameCount = system.getFrameCount();
+        double[] lastWeights = new double[frameCount];
+        boolean[] settled = new boolean[frameCount];
+        IndexedHeap heap = new IndexedHeap(frameCount, distances, lastWeights);
+
+        int ground = system.getGround();
+        distances[ground] = 0;
+        heap.push(ground);
+
+        while (!heap.isEmpty()) {
+            if ((reachedFrames & DEADLINE_CHECK_MASK) == 0) {
+                deadline.check();
+            }
+            int frame = heap.pop();
+            settled[frame] = true;
+            frameOrder[reachedFrames++] = frame;
+
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int adjacent = system.getAdjacentFrame(index);
+                if (settled[adjacent]) {
+                    continue;
+                }
+
+                int component = system.getAdjacentComponent(index);
+                double weight = getWeight(system.getComponentType(component));
+                double distance = distances[frame] + weight;
+                if (distance < distances[adjacent]
+                        || (distance == distances[adjacent] && weight < lastWeights[adjacent])) {
+                    distances[adjacent] = distance;
+                    lastWeights[adjacent] = weight;
+                    parentComponents[adjacent] = component;
+                    parentFrames[adjacent] = frame;
+                    heap.pushOrUpdate(adjacent);
+                }
+            }
+        }
+    }
+
+    /*
+     * Returns the weight of the component type, evaluating it on first use
+     */
+    private double getWeight(ComponentType type) {
+        double weight = typeWeights[type.ordinal()];
+        if (Double.isNaN(weight)) {
+            weight = edgeWeight.getWeight(type, domain);
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("The weight of " + type + " in the " + domain + " domain is negative");
+            }
+            typeWeights[type.ordinal()] = weight;
+        }
+        return weight;
+    }
+
+    /**
+     * @return the domain in which the tree was found
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return true if the reference frame is connected to the ground in the tree
+     */
+    public boolean isReachable(int frame) {
+        return distances[frame] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the total weight of the tree path between the frame and the ground
+     */
+    public double getDistance(int frame) {
+        return distances[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the component linking the frame to its parent, or -1 for the
+     *         ground and unreachable frames
+     */
+    public int getParentComponent(int frame) {
+        return parentComponents[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the frame's parent reference frame, or -1 for the ground and
+     *         unreachable frames
+     */
+    public int getParentFrame(int frame) {
+        return parentFrames[frame];
+    }
+
+    /**
+     * @return the ids of the reference frames reachable from the ground, in the order
+     *         in which they were added to the tree. Parents always precede their children.
+     */
+    public int[] getFrameOrder() {
+        return Arrays.copyOf(frameOrder, reachedFrames);
+    }
+
+    /**
+     * @return the ids of the components forming the tree, in the order in which
+     *         they were added to the tree
+     */
+    public int[] getTreeComponents() {
+        int[] components = new int[Math.max(reachedFrames - 1, 0)];
+        for (int i = 1; i < reachedFrames; i++) {
+            components[i - 1] = parentComponents[frameOrder[i]];
+        }
+        return components;
+    }
+
+    /*
+     * Binary min-heap of frame ids ordered by distance and then by the weight of the
+     * last edge, keeping the position of each frame so its key can be decreased.
+     */
+    private static final class IndexedHeap {
+
+        private final int[] heap;
+        private final int[] positions;
+        private final double[] distances;
+        private final double[] lastWeights;
+        private int size;
+
+        IndexedHeap(int capacity, double[] distances, double[] lastWeights) {
+            this.heap = new int[capacity];
+            this.positions = new int[capacity];
+            this.distances = distances;
+            this.lastWeights = lastWeights;
+            Arrays.fill(positions, -1);
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int frame) {
+            heap[size] = frame;
+            positions[frame] = size;
+            siftUp(size++);
+        }
+
+        void pushOrUpdate(int frame) {
+            if (positions[frame] < 0) {
+                push(frame);
+            } else {
+                siftUp(positions[frame]);
+            }
+        }
+
+        int pop() {
+            int top = heap[0];
+            positions[top] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private boolean less(int a, int b) {
+            return distances[a] < distances[b] || (distances[a] == distances[b] && lastWeights[a] < lastWeights[b]);
+        }
+
+        private void siftUp(int index) {
+            int frame = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!less(frame, heap[parent])) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                positions[heap[index]] = index;
+                index = parent;
+            }
+            heap[index] = frame;
+            positions[frame] = index;
+        }
+
+        private void siftDown(int index) {
+            int frame = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], frame)) {
+                    break;
+                }
+                heap[index] = heap[child];
+                positions[heap[index]] = index;
+                index = child;
+            }
+            heap[index] = frame;
+            positions[frame] = index;
+        }
+    }
+}
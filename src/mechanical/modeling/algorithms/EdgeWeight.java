@@ -0,0 +1,39 @@
+package mechanical.modeling.algorithms;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This interface defines the cost of including a mechanical component's
+ * edge in the tree of a given domain. The tree searches evaluate it lazily,
+ * once per component type and domain, instead of storing a weight in each
+ * edge of the mechanical system.
+ *
+ * <p>
+ * Implementations must be pure functions of the component type and domain,
+ * and must never return a negative weight.
+ * </p>
+ */
+public interface EdgeWeight {
+
+    /**
+     * Weighs each edge by the number of modeling variables of its component
+     * type in the domain. This is the weight used by default.
+     */
+    EdgeWeight NUMBER_OF_VARIABLES = new EdgeWeight() {
+        @Override
+        public double getWeight(ComponentType type, Domain domain) {
+            if (domain.equals(Domain.TRANSLATIONAL)) {
+                return type.getTranslationalVariables().length;
+            }
+            return type.getRotationalVariables().length;
+        }
+    };
+
+    /**
+     * @param type is the type of the component represented by the edge
+     * @param domain is the domain of the edge
+     * @return the non-negative weight of the edge
+     */
+    double getWeight(ComponentType type, Domain domain);
+}
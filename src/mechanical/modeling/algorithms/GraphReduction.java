@@ -0,0 +1,294 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class reduces the graph of a compact mechanical system in a given
+ * domain before its tree is searched, and expands the tree found on the
+ * reduced graph back to the components of the system.
+ *
+ * <p>
+ * The reduction is done in three steps:
+ * <ul>
+ * <li>The frames linked by components of zero weight are contracted into
+ * groups. Every frame of a group is at the same distance from the ground,
+ * so the zero weight components relating the group are in the tree.</li>
+ * <li>Between two groups, only the component of smallest weight is kept,
+ * the one with the smallest id on ties. Components within a group are
+ * dropped.</li>
+ * <li>The groups other than the ground's linked to a single other group are
+ * stripped, repeatedly, since their only component must be in the tree.</li>
+ * </ul>
+ * The shortest paths tree of the reduced system relates each group with the
+ * same distance to the ground as the tree of the whole system, so the
+ * expanded tree has the same distances, although frames at equal distances
+ * can keep different paths.
+ * </p>
+ */
+public final class GraphReduction {
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    private final CompactMechanicalSystem system;
+    private final Domain domain;
+    private final boolean[] expandedComponents;
+    private final int[] reducedComponents;
+    private final CompactMechanicalSystem reducedSystem;
+
+    /**
+     * Reduces the graph of the system in the given domain, weighing each edge by the
+     * number of variables of its component.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain whose variables weigh the edges
+     */
+    public GraphReduction(CompactMechanicalSystem system, Domain domain) {
+        this(system, domain, EdgeWeight.NUMBER_OF_VARIABLES);
+    }
+
+    /**
+     * Reduces the graph of the system in the given domain.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the graph
+     * @param edgeWeight defines the weight of each edge
+     *
+     * @throws IllegalArgumentException if the weight of a component type is negative.
+     */
+    public GraphReduction(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight) {
+        this.system = system;
+        this.domain = domain;
+        double[] typeWeights = new double[TYPES.length];
+        for (ComponentType type : TYPES) {
+            double weight = edgeWeight.getWeight(type, domain);
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("The weight of " + type + " in the " + domain + " domain is negative");
+            }
+            typeWeights[type.ordinal()] = weight;
+        }
+
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+        expandedComponents = new boolean[componentCount];
+
+        /*
+         * Contracts the zero weight components, keeping those that join two groups
+         */
+        int[] roots = new int[frameCount];
+        for (int frame = 0; frame < frameCount; frame++) {
+            roots[frame] = frame;
+        }
+        for (int component = 0; component < componentCount; component++) {
+            if (typeWeights[system.getComponentType(component).ordinal()] == 0) {
+                int sourceRoot = findRoot(roots, system.getSourceFrame(component));
+                int targetRoot = findRoot(roots, system.getTargetFrame(component));
+                if (sourceRoot != targetRoot) {
+                    roots[Math.max(sourceRoot, targetRoot)] = Math.min(sourceRoot, targetRoot);
+                    expandedComponents[component] = true;
+                }
+            }
+        }
+
+        /*
+         * Numbers the groups, the ground's first, and keeps the lightest component
+         * between each pair of groups
+         */
+        int ground = system.getGround();
+        int[] frameGroups = new int[frameCount];
+        Arrays.fill(frameGroups, -1);
+        frameGroups[findRoot(roots, ground)] = 0;
+        int groupCount = 1;
+        for (int frame = 0; frame < frameCount; frame++) {
+            int root = findRoot(roots, frame);
+            if (frameGroups[root] < 0) {
+                frameGroups[root] = groupCount++;
+            }
+            frameGroups[frame] = frameGroups[root];
+        }
+
+        Map<Long, Integer> lightestComponents = new HashMap<Long, Integer>();
+        for (int component = 0; component < componentCount; component++) {
+            int sourceGroup = frameGroups[system.getSourceFrame(component)];
+            int targetGroup = frameGroups[system.getTargetFrame(component)];
+            if (sourceGroup == targetGroup) {
+                continue;
+            }
+            Long key = Long.valueOf(((long) Math.min(sourceGroup, targetGroup) << 32) | Math.max(sourceGroup, targetGroup));
+            Integer lightest = lightestComponents.get(key);
+            if (lightest == null || typeWeights[system.getComponentType(component).ordinal()]
+                    < typeWeights[system.getComponentType(lightest.intValue()).ordinal()]) {
+                lightestComponents.put(key, Integer.valueOf(component));
+            }
+        }
+        boolean[] kept = new boolean[componentCount];
+        for (Integer component : lightestComponents.values()) {
+            kept[component.intValue()] = true;
+        }
+
+        boolean[] strippedGroups = strip(frameGroups, groupCount, kept);
+
+        /*
+         * Builds the reduced system from the remaining groups and components, keeping
+         * the order of the components
+         */
+        int[] reducedFrames = new int[groupCount];
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(system.getFrameName(ground), groupCount,
+                lightestComponents.size());
+        boolean[] named = new boolean[groupCount];
+        named[0] = true;
+        for (int frame = 0; frame < frameCount; frame++) {
+            int group = frameGroups[frame];
+            if (!named[group] && !strippedGroups[group]) {
+                reducedFrames[group] = builder.addFrame(system.getFrameName(frame));
+                named[group] = true;
+            }
+        }
+        int[] components = new int[lightestComponents.size()];
+        int reducedCount = 0;
+        for (int component = 0; component < componentCount; component++) {
+            if (kept[component]) {
+                builder.addComponent(system.getComponentName(component), reducedFrames[frameGroups[system.getSourceFrame(component)]],
+                        reducedFrames[frameGroups[system.getTargetFrame(component)]], system.getComponentType(component));
+                components[reducedCount++] = component;
+            }
+        }
+        reducedComponents = Arrays.copyOf(components, reducedCount);
+        reducedSystem = builder.build();
+    }
+
+    /*
+     * Strips the groups linked to a single other group, adding their component to the
+     * expanded tree and removing it from the kept components. Returns the stripped groups.
+     */
+    private boolean[] strip(int[] frameGroups, int groupCount, boolean[] kept) {
+        int componentCount = system.getComponentCount();
+        int[] degrees = new int[groupCount];
+        int[] componentXors = new int[groupCount];
+        for (int component = 0; component < componentCount; component++) {
+            if (kept[component]) {
+                int sourceGroup = frameGroups[system.getSourceFrame(component)];
+                int targetGroup = frameGroups[system.getTargetFrame(component)];
+                degrees[sourceGroup]++;
+                degrees[targetGroup]++;
+                componentXors[sourceGroup] ^= component;
+                componentXors[targetGroup] ^= component;
+            }
+        }
+
+        /*
+         * The exclusive or of the ids of the components of a group is its only component
+         * once its degree is 1, so no adjacency list is needed
+         */
+        boolean[] stripped = new boolean[groupCount];
+        int[] queue = new int[groupCount];
+        int queueSize = 0;
+        for (int group = 1; group < groupCount; group++) {
+            if (degrees[group] == 1) {
+                queue[queueSize++] = group;
+            }
+        }
+        for (int next = 0; next < queueSize; next++) {
+            int group = queue[next];
+            if (degrees[group] != 1) {
+                continue;
+            }
+            int component = componentXors[group];
+            int sourceGroup = frameGroups[system.getSourceFrame(component)];
+            int otherGroup = sourceGroup == group ? frameGroups[system.getTargetFrame(component)] : sourceGroup;
+
+            stripped[group] = true;
+            kept[component] = false;
+            expandedComponents[component] = true;
+            degrees[group] = 0;
+            componentXors[group] = 0;
+            degrees[otherGroup]--;
+            componentXors[otherGroup] ^= component;
+            if (otherGroup != 0 && degrees[otherGroup] == 1) {
+                queue[queueSize++] = otherGroup;
+            }
+        }
+        return stripped;
+    }
+
+    private static int findRoot(int[] roots, int frame) {
+        while (roots[frame] != frame) {
+            roots[frame] = roots[roots[frame]];
+            frame = roots[frame];
+        }
+        return frame;
+    }
+
+    /**
+     * @return the domain of the reduced graph
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return the reduced system, whose ground is the group of the ground and whose
+     *         components have the names and types of the components they stand for
+     */
+    public CompactMechanicalSystem getReducedSystem() {
+        return reducedSystem;
+    }
+
+    /**
+     * @param reducedComponent is the id of a component of the reduced system
+     * @return the id of the component of the system it stands for
+     */
+    public int getComponent(int reducedComponent) {
+        return reducedComponents[reducedComponent];
+    }
+
+    /**
+     * Expands a tree of the reduced system to the system. The contracted and stripped
+     * components are added to the components of the tree, and the components that are
+     * not related to the ground are left out.
+     *
+     * @param reducedTree are the ids of the components of the tree of the reduced system
+     * @return the ids of the components of the tree of the system, in the breadth first
+     *         order of the frames they relate to their parents
+     */
+    public int[] expand(int[] reducedTree) {
+        boolean[] tree = expandedComponents.clone();
+        for (int reducedComponent : reducedTree) {
+            tree[reducedComponents[reducedComponent]] = true;
+        }
+
+        int frameCount = system.getFrameCount();
+        boolean[] reached = new boolean[frameCount];
+        int[] frameOrder = new int[frameCount];
+        int[] components = new int[frameCount];
+        int reachedFrames = 0;
+        int treeSize = 0;
+        reached[system.getGround()] = true;
+        frameOrder[reachedFrames++] = system.getGround();
+        for (int next = 0; next < reachedFrames; next++) {
+            int frame = frameOrder[next];
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int component = system.getAdjacentComponent(index);
+                int adjacent = system.getAdjacentFrame(index);
+                if (tree[component] && !reached[adjacent]) {
+                    reached[adjacent] = true;
+                    frameOrder[reachedFrames++] = adjacent;
+                    components[treeSize++] = component;
+                }
+            }
+        }
+        return Arrays.copyOf(components, treeSize);
+    }
+
+    @Override
+    public String toString() {
+        return "GraphReduction[Domain: " + domain + ", Frames: " + system.getFrameCount() + " -> "
+                + reducedSystem.getFrameCount() + ", Components: " + system.getComponentCount() + " -> "
+                + reducedSystem.getComponentCount() + "]";
+    }
+}
@@ -0,0 +1,440 @@
+package mechanical.modeling.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import mechanical.modeling.components.Domain;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.MechanicalSystemListener;
+import mechanical.modeling.components.ReferenceFrame;
+
+/**
+ * This class keeps the optimal modeling variables of a mechanical system up
+ * to date while components are added to and removed from it.
+ *
+ * <p>
+ * The selector registers itself as a listener of the mechanical system and
+ * maintains a shortest paths tree rooted at the ground in each domain. When a
+ * component is added, only the reference frames whose paths to the ground get
+ * shorter are updated. When a tree component is removed, only the subtree it
+ * was holding is detached and reconnected from the rest of the tree. The
+ * variables that were added and removed since the last call to
+ * {@link #takeChanges()} are recorded.
+ * </p>
+ *
+ * <p>
+ * As in {@link CompactShortestPathsTree}, when two paths to a reference frame
+ * have the same length, the path whose last edge has the fewest variables is
+ * kept. This class is not thread-safe.
+ * </p>
+ */
+public final class IncrementalModelingVariables implements MechanicalSystemListener {
+
+    private final MechanicalSystem mechanicalSystem;
+    private final Map<ReferenceFrame, List<MechanicalComponent>> incidences;
+    private final DomainTree rotationalTree;
+    private final DomainTree translationalTree;
+    private final Set<String> addedVariables;
+    private final Set<String> removedVariables;
+
+    /**
+     * Finds the optimal modeling variables of the mechanical system and starts
+     * listening to its changes.
+     *
+     * @param mechanicalSystem is the mechanical system who's optimal modeling
+     *        variables need to be maintained
+     */
+    public IncrementalModelingVariables(MechanicalSystem mechanicalSystem) {
+        this.mechanicalSystem = mechanicalSystem;
+        this.incidences = new HashMap<ReferenceFrame, List<MechanicalComponent>>();
+        this.rotationalTree = new DomainTree(Domain.ROTATIONAL, mechanicalSystem.getGround());
+        this.translationalTree = new DomainTree(Domain.TRANSLATIONAL, mechanicalSystem.getGround());
+        this.addedVariables = new LinkedHashSet<String>();
+        this.removedVariables = new LinkedHashSet<String>();
+
+        for (MechanicalComponent component : mechanicalSystem.getAllComponents()) {
+            addIncidences(component);
+        }
+        rotationalTree.build();
+        translationalTree.build();
+        addedVariables.clear();
+        mechanicalSystem.addListener(this);
+    }
+
+    /**
+     * @return the current optimal modeling variables of the system, the rotational
+     *         variables followed by the translational variables
+     */
+    public Set<String> getVariables() {
+        Set<String> variables = new LinkedHashSet<String>();
+        rotationalTree.addVariables(variables);
+        translationalTree.addVariables(variables);
+        return variables;
+    }
+
+    /**
+     * @param domain is the domain of the tree
+     * @return the components forming the current tree of the given domain
+     */
+    public Set<MechanicalComponent> getTree(Domain domain) {
+        return Collections.unmodifiableSet(getDomainTree(domain).treeComponents);
+    }
+
+    /**
+     * Returns the variables that were added to and removed from the selection since
+     * the selector was created or since the previous call, and starts recording anew.
+     *
+     * @return the changes of the selection
+     */
+    public Changes takeChanges() {
+        Changes changes = new Changes(new LinkedHashSet<String>(addedVariables), new LinkedHashSet<String>(removedVariables));
+        addedVariables.clear();
+        removedVariables.clear();
+        return changes;
+    }
+
+    /**
+     * Stops listening to the changes of the mechanical system.
+     */
+    public void detach() {
+        mechanicalSystem.removeListener(this);
+    }
+
+    @Override
+    public void componentAdded(MechanicalSystem system, MechanicalComponent component) {
+        addIncidences(component);
+        rotationalTree.componentAdded(component);
+        translationalTree.componentAdded(component);
+    }
+
+    @Override
+    public void componentRemoved(MechanicalSystem system, MechanicalComponent component) {
+        ReferenceFrame source = component.getSourceReferenceFrame();
+        ReferenceFrame target = component.getTargetReferenceFrame();
+        removeIncidence(source, component);
+        removeIncidence(target, component);
+
+        rotationalTree.componentRemoved(component);
+        translationalTree.componentRemoved(component);
+
+        removeIsolatedFrame(source);
+        removeIsolatedFrame(target);
+    }
+
+    private DomainTree getDomainTree(Domain domain) {
+        if (domain.equals(Domain.TRANSLATIONAL)) {
+            return translationalTree;
+        }
+        return rotationalTree;
+    }
+
+    private void addIncidences(MechanicalComponent component) {
+        getIncidences(component.getSourceReferenceFrame()).add(component);
+        getIncidences(component.getTargetReferenceFrame()).add(component);
+    }
+
+    private List<MechanicalComponent> getIncidences(ReferenceFrame frame) {
+        List<MechanicalComponent> frameIncidences = incidences.get(frame);
+        if (frameIncidences == null) {
+            frameIncidences = new ArrayList<MechanicalComponent>();
+            incidences.put(frame, frameIncidences);
+        }
+        return frameIncidences;
+    }
+
+    private void removeIncidence(ReferenceFrame frame, MechanicalComponent component) {
+        List<MechanicalComponent> frameIncidences = incidences.get(frame);
+        if (frameIncidences != null) {
+            frameIncidences.remove(component);
+        }
+    }
+
+    /*
+     * Forgets a reference frame that is no longer connected to any component
+     */
+    private void removeIsolatedFrame(ReferenceFrame frame) {
+        List<MechanicalComponent> frameIncidences = incidences.get(frame);
+        if (frameIncidences != null && frameIncidences.isEmpty() && frame != mechanicalSystem.getGround()) {
+            incidences.remove(frame);
+            rotationalTree.vertices.remove(frame);
+            translationalTree.vertices.remove(frame);
+        }
+    }
+
+    private void recordAdded(String[] variables) {
+        for (String variable : variables) {
+            if (!removedVariables.remove(variable)) {
+                addedVariables.add(variable);
+            }
+        }
+    }
+
+    private void recordRemoved(String[] variables) {
+        for (String variable : variables) {
+            if (!addedVariables.remove(variable)) {
+                removedVariables.add(variable);
+            }
+        }
+    }
+
+    /*
+     * The shortest paths tree of one domain
+     */
+    private final class DomainTree {
+
+        private final Domain domain;
+        private final Map<ReferenceFrame, Vertex> vertices;
+        private final Set<MechanicalComponent> treeComponents;
+        private final Vertex root;
+
+        DomainTree(Domain domain, ReferenceFrame ground) {
+            this.domain = domain;
+            this.vertices = new HashMap<ReferenceFrame, Vertex>();
+            this.treeComponents = new LinkedHashSet<MechanicalComponent>();
+            this.root = getVertex(ground);
+            root.distance = 0;
+            root.lastWeight = 0;
+        }
+
+        void build() {
+            PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+            queue.add(new Entry(root));
+            propagate(queue);
+        }
+
+        void addVariables(Set<String> variables) {
+            for (MechanicalComponent component : treeComponents) {
+                Collections.addAll(variables, component.getVariables(domain));
+            }
+        }
+
+        void componentAdded(MechanicalComponent component) {
+            Vertex source = getVertex(component.getSourceReferenceFrame());
+            Vertex target = getVertex(component.getTargetReferenceFrame());
+
+            PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+            relax(source, component, target, queue);
+            relax(target, component, source, queue);
+            propagate(queue);
+        }
+
+        void componentRemoved(MechanicalComponent component) {
+            Vertex child = vertices.get(component.getTargetReferenceFrame());
+            if (child == null || child.parentComponent != component) {
+                child = vertices.get(component.getSourceReferenceFrame());
+            }
+            if (child == null || child.parentComponent != component) {
+                return;
+            }
+
+            /*
+             * Detaches the subtree held by the removed component. The paths of the
+             * other frames do not use the component, so they remain the shortest.
+             */
+            List<Vertex> subtree = new ArrayList<Vertex>();
+            subtree.add(child);
+            for (int i = 0; i < subtree.size(); i++) {
+                subtree.addAll(subtree.get(i).children);
+            }
+            for (Vertex vertex : subtree) {
+                setParent(vertex, null, null, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+            }
+
+            /*
+             * Reconnects the subtree from its boundary with the rest of the tree
+             */
+            PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+            for (Vertex vertex : subtree) {
+                for (MechanicalComponent incident : incidences.get(vertex.frame)) {
+                    relax(getVertex(getOpposite(incident, vertex.frame)), incident, vertex, queue);
+                }
+            }
+            propagate(queue);
+        }
+
+        private void propagate(PriorityQueue<Entry> queue) {
+            while (!queue.isEmpty()) {
+                Entry entry = queue.poll();
+                Vertex vertex = entry.vertex;
+                if (entry.distance != vertex.distance || entry.lastWeight != vertex.lastWeight) {
+                    continue;
+                }
+
+                List<MechanicalComponent> frameIncidences = incidences.get(vertex.frame);
+                if (frameIncidences == null) {
+                    continue;
+                }
+                for (MechanicalComponent component : frameIncidences) {
+                    relax(vertex, component, getVertex(getOpposite(component, vertex.frame)), queue);
+                }
+            }
+        }
+
+        /*
+         * Makes the component the parent edge of the vertex if it shortens its path
+         * to the ground, or keeps its length with a cheaper last edge
+         */
+        private void relax(Vertex from, MechanicalComponent component, Vertex to, PriorityQueue<Entry> queue) {
+            if (from.distance == Double.POSITIVE_INFINITY || to == root) {
+                return;
+            }
+
+            double weight = component.getNumberOfVariables(domain);
+            double distance = from.distance + weight;
+            boolean shorter = distance < to.distance;
+            boolean cheaperTie = distance == to.distance && weight < to.lastWeight
+                    && (weight > 0 || !isDescendant(from, to));
+            if (shorter || cheaperTie) {
+                setParent(to, from, component, distance, weight);
+                queue.add(new Entry(to));
+            }
+        }
+
+        /*
+         * Checks whether the candidate is in the subtree of the vertex. Only frames at the
+         * same distance as the vertex need to be walked, since a subtree never gets closer
+         * to the ground than its root.
+         */
+        private boolean isDescendant(Vertex candidate, Vertex vertex) {
+            Vertex current = candidate;
+            while (current != null && current.distance >= vertex.distance) {
+                if (current == vertex) {
+                    return true;
+                }
+                current = current.parent;
+            }
+            return false;
+        }
+
+        private void setParent(Vertex vertex, Vertex parent, MechanicalComponent component, double distance, double weight) {
+            if (vertex.parentComponent != component) {
+                if (vertex.parentComponent != null) {
+                    treeComponents.remove(vertex.parentComponent);
+                    recordRemoved(vertex.parentComponent.getVariables(domain));
+                    vertex.parent.children.remove(vertex);
+                }
+                if (component != null) {
+                    treeComponents.add(component);
+                    recordAdded(component.getVariables(domain));
+                    parent.children.add(vertex);
+                }
+            }
+            vertex.parent = parent;
+            vertex.parentComponent = component;
+            vertex.distance = distance;
+            vertex.lastWeight = weight;
+        }
+
+        private Vertex getVertex(ReferenceFrame frame) {
+            Vertex vertex = vertices.get(frame);
+            if (vertex == null) {
+                vertex = new Vertex(frame);
+                vertices.put(frame, vertex);
+            }
+            return vertex;
+        }
+    }
+
+    private static ReferenceFrame getOpposite(MechanicalComponent component, ReferenceFrame frame) {
+        if (component.getSourceReferenceFrame() == frame) {
+            return component.getTargetReferenceFrame();
+        }
+        return component.getSourceReferenceFrame();
+    }
+
+    /*
+     * A reference frame's state in the shortest paths tree of one domain
+     */
+    private static final class Vertex {
+
+        private final ReferenceFrame frame;
+        private final Set<Vertex> children;
+        private double distance;
+        private double lastWeight;
+        private Vertex parent;
+        private MechanicalComponent parentComponent;
+
+        Vertex(ReferenceFrame frame) {
+            this.frame = frame;
+            this.children = new LinkedHashSet<Vertex>();
+            this.distance = Double.POSITIVE_INFINITY;
+            this.lastWeight = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /*
+     * A queued vertex, ordered by distance and then by the weight of its last edge.
+     * Entries whose vertex has changed since they were queued are skipped.
+     */
+    private static final class Entry implements Comparable<Entry> {
+
+        private final Vertex vertex;
+        private final double distance;
+        private final double lastWeight;
+
+        Entry(Vertex vertex) {
+            this.vertex = vertex;
+            this.distance = vertex.distance;
+            this.lastWeight = vertex.lastWeight;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (distance != other.distance) {
+                return distance < other.distance ? -1 : 1;
+            }
+            if (lastWeight != other.lastWeight) {
+                return lastWeight < other.lastWeight ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * This class holds the variables added to and removed from the selection
+     * between two calls to {@link IncrementalModelingVariables#takeChanges()}.
+     */
+    public static final class Changes {
+
+        private final Set<String> addedVariables;
+        private final Set<String> removedVariables;
+
+        private Changes(Set<String> addedVariables, Set<String> removedVariables) {
+            this.addedVariables = Collections.unmodifiableSet(addedVariables);
+            this.removedVariables = Collections.unmodifiableSet(removedVariables);
+        }
+
+        /**
+         * @return the variables that were added to the selection
+         */
+        public Set<String> getAddedVariables() {
+            return addedVariables;
+        }
+
+        /**
+         * @return the variables that were removed from the selection
+         */
+        public Set<String> getRemovedVariables() {
+            return removedVariables;
+        }
+
+        /**
+         * @return true if the selection did not change
+         */
+        public boolean isEmpty() {
+            return addedVariables.isEmpty() && removedVariables.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Changes[Added: " + addedVariables + ", Removed: " + removedVariables + "]";
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class describes the kinematic loops closed by the components left out
+ * of the tree of a selection in one domain. The components related to the
+ * ground but not in the tree form the cotree, and each cotree component
+ * closes one fundamental cycle: the component itself and the tree path
+ * between its two reference frames.
+ *
+ * <p>
+ * Each cycle gives {@link #DOMAIN_DIMENSION} loop closure equations in the
+ * domain. The equations matching the variables of the cotree component
+ * define those variables in terms of the tree variables; the others are
+ * constraints between the tree variables that the solver must enforce. The
+ * number of constraints of a cycle is therefore the dimension of the domain
+ * minus the number of variables of its cotree component.
+ * </p>
+ */
+public final class KinematicLoops {
+
+    /** The number of loop closure equations of a cycle in each domain */
+    public static final int DOMAIN_DIMENSION = 3;
+
+    private final CompactMechanicalSystem system;
+    private final Domain domain;
+    private final int[] treeComponents;
+    private final int[] cotreeComponents;
+    private final int[] cycleOffsets;
+    private final int[] cycles;
+    private final int totalConstraintCount;
+
+    /**
+     * Finds the cotree and the fundamental cycles of the tree of a selection.
+     *
+     * @param selection is the selection whose tree is used
+     * @param domain is the domain of the tree
+     */
+    public KinematicLoops(VariableSelection selection, Domain domain) {
+        this.system = selection.getSystem();
+        this.domain = domain;
+        this.treeComponents = selection.getTreeComponents(domain);
+
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+        boolean[] inTree = new boolean[componentCount];
+        for (int component : treeComponents) {
+            inTree[component] = true;
+        }
+
+        /*
+         * Breadth first traversal of the tree from the ground, giving the parent and depth
+         * of each frame related to the ground
+         */
+        int[] parentComponents = new int[frameCount];
+        int[] parentFrames = new int[frameCount];
+        int[] depths = new int[frameCount];
+        Arrays.fill(depths, -1);
+        int[] queue = new int[frameCount];
+        int queueSize = 0;
+        depths[system.getGround()] = 0;
+        queue[queueSize++] = system.getGround();
+        for (int next = 0; next < queueSize; next++) {
+            int frame = queue[next];
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int adjacent = system.getAdjacentFrame(index);
+                int component = system.getAdjacentComponent(index);
+                if (inTree[component] && depths[adjacent] < 0) {
+                    depths[adjacent] = depths[frame] + 1;
+                    parentComponents[adjacent] = component;
+                    parentFrames[adjacent] = frame;
+                    queue[queueSize++] = adjacent;
+                }
+            }
+        }
+
+        int cotreeCount = 0;
+        for (int component = 0; component < componentCount; component++) {
+            if (!inTree[component] && depths[system.getSourceFrame(component)] >= 0) {
+                cotreeCount++;
+            }
+        }
+        cotreeComponents = new int[cotreeCount];
+        cycleOffsets = new int[cotreeCount + 1];
+        cotreeCount = 0;
+        for (int component = 0; component < componentCount; component++) {
+            if (!inTree[component] && depths[system.getSourceFrame(component)] >= 0) {
+                cotreeComponents[cotreeCount] = component;
+                cycleOffsets[cotreeCount + 1] = cycleOffsets[cotreeCount] + 1
+                        + getPathLength(system.getSourceFrame(component), system.getTargetFrame(component), depths, parentFrames);
+                cotreeCount++;
+            }
+        }
+
+        cycles = new int[cycleOffsets[cotreeCount]];
+        int constraints = 0;
+        for (int cycle = 0; cycle < cotreeCount; cycle++) {
+            int component = cotreeComponents[cycle];
+            int index = cycleOffsets[cycle];
+            cycles[index++] = component;
+
+            int source = system.getSourceFrame(component);
+            int target = system.getTargetFrame(component);
+            int targetIndex = cycleOffsets[cycle + 1];
+            while (source != target) {
+                if (depths[source] >= depths[target]) {
+                    cycles[index++] = parentComponents[source];
+                    source = parentFrames[source];
+                } else {
+                    cycles[--targetIndex] = parentComponents[target];
+                    target = parentFrames[target];
+                }
+            }
+            constraints += getConstraintCount(cycle);
+        }
+        totalConstraintCount = constraints;
+    }
+
+    /*
+     * Returns the number of tree components on the path between two frames
+     */
+    private static int getPathLength(int source, int target, int[] depths, int[] parentFrames) {
+        int length = 0;
+        while (source != target) {
+            if (depths[source] >= depths[target]) {
+                source = parentFrames[source];
+            } else {
+                target = parentFrames[target];
+            }
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * @return the domain of the tree
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return the ids of the components of the tree
+     */
+    public int[] getTreeComponents() {
+        return treeComponents.clone();
+    }
+
+    /**
+     * @return the ids of the components related to the ground but left out of the tree,
+     *         in increasing order
+     */
+    public int[] getCotreeComponents() {
+        return cotreeComponents.clone();
+    }
+
+    /**
+     * @return the number of fundamental cycles, which is the number of cotree components
+     */
+    public int getCycleCount() {
+        return cotreeComponents.length;
+    }
+
+    /**
+     * @param cycle is the index of the cycle, which is the index of its cotree component
+     *        in {@link #getCotreeComponents()}
+     * @return the ids of the components of the cycle: its cotree component followed by the
+     *         tree components from the cotree component's source frame to its target frame
+     */
+    public int[] getCycle(int cycle) {
+        return Arrays.copyOfRange(cycles, cycleOffsets[cycle], cycleOffsets[cycle + 1]);
+    }
+
+    /**
+     * @param cycle is the index of the cycle
+     * @return the number of loop closure constraints the cycle adds between the tree variables
+     */
+    public int getConstraintCount(int cycle) {
+        return Math.max(0, DOMAIN_DIMENSION - system.getNumberOfVariables(cotreeComponents[cycle], domain));
+    }
+
+    /**
+     * @return the number of loop closure constraints added by all the cycles
+     */
+    public int getTotalConstraintCount() {
+        return totalConstraintCount;
+    }
+
+    @Override
+    public String toString() {
+        return "KinematicLoops[Domain: " + domain + ", Tree: " + treeComponents.length + ", Cotree: "
+                + cotreeComponents.length + ", Constraints: " + totalConstraintCount + "]";
+    }
+}
@@ -0,0 +1,251 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class finds the tree of a compact mechanical system in a given domain
+ * that relates every reference frame to the ground with the fewest modeling
+ * variables in total, or more generally the smallest total edge weight.
+ *
+ * <p>
+ * The shortest paths tree minimizes the number of variables between each
+ * frame and the ground, which can select more variables in total when the
+ * system contains closed loops. Since every frame connected to the ground
+ * must be in the tree, the tree with the fewest variables in total is a
+ * minimum spanning tree, found exactly by Kruskal's algorithm. All the
+ * components of a type have the same weight, so the components are sorted
+ * by grouping them by type, and the search runs in time linear in the number
+ * of frames and components. Among components of equal weight, the types are
+ * taken in declaration order and the components in the order of their ids.
+ * </p>
+ */
+public final class MinimumVariablesTree {
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    /* The deadline is checked once every 1024 components or frames */
+    private static final int DEADLINE_CHECK_MASK = 1023;
+
+    private final CompactMechanicalSystem system;
+    private final Domain domain;
+    private final double[] typeWeights;
+    private final int[] parentComponents;
+    private final int[] parentFrames;
+    private final int[] frameOrder;
+    private int reachedFrames;
+    private double totalWeight;
+
+    /**
+     * Finds the tree of the system with the fewest variables in the given domain.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain whose variables weigh the edges
+     */
+    public MinimumVariablesTree(CompactMechanicalSystem system, Domain domain) {
+        this(system, domain, EdgeWeight.NUMBER_OF_VARIABLES);
+    }
+
+    /**
+     * Finds the tree of the system with the smallest total weight in the given domain.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the tree
+     * @param edgeWeight defines the weight of each edge
+     *
+     * @throws IllegalArgumentException if the weight of a component type is negative.
+     */
+    public MinimumVariablesTree(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight) {
+        this(system, domain, edgeWeight, SelectionDeadline.NONE);
+    }
+
+    /**
+     * Finds the tree of the system with the smallest total weight in the given domain,
+     * checking the deadline regularly during the search.
+     *
+     * @param system is the compact mechanical system
+     * @param domain is the domain of the tree
+     * @param edgeWeight defines the weight of each edge
+     * @param deadline is the deadline of the search
+     *
+     * @throws IllegalArgumentException if the weight of a component type is negative.
+     * @throws SelectionTimeoutException if the deadline expires before the tree is found.
+     */
+    public MinimumVariablesTree(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+        this.system = system;
+        this.domain = domain;
+        this.typeWeights = new double[TYPES.length];
+        for (ComponentType type : TYPES) {
+            double weight = edgeWeight.getWeight(type, domain);
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("The weight of " + type + " in the " + domain + " domain is negative");
+            }
+            typeWeights[type.ordinal()] = weight;
+        }
+
+        int frameCount = system.getFrameCount();
+        this.parentComponents = new int[frameCount];
+        this.parentFrames = new int[frameCount];
+        this.frameOrder = new int[frameCount];
+        Arrays.fill(parentComponents, -1);
+        Arrays.fill(parentFrames, -1);
+
+        orient(span(deadline), deadline);
+    }
+
+    /*
+     * Kruskal's algorithm: takes the components by increasing weight and keeps those
+     * linking two groups of frames that are not connected yet
+     */
+    private boolean[] span(SelectionDeadline deadline) {
+        int componentCount = system.getComponentCount();
+
+        Integer[] typeOrder = new Integer[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            typeOrder[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(typeOrder, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(typeWeights[a.intValue()], typeWeights[b.intValue()]);
+            }
+        });
+        int[] typeRanks = new int[TYPES.length];
+        for (int rank = 0; rank < TYPES.length; rank++) {
+            typeRanks[typeOrder[rank].intValue()] = rank;
+        }
+
+        int[] rankOffsets = new int[TYPES.length + 1];
+        for (int component = 0; component < componentCount; component++) {
+            rankOffsets[typeRanks[system.getComponentType(component).ordinal()] + 1]++;
+        }
+        for (int rank = 0; rank < TYPES.length; rank++) {
+            rankOffsets[rank + 1] += rankOffsets[rank];
+        }
+        int[] sortedComponents = new int[componentCount];
+        for (int component = 0; component < componentCount; component++) {
+            sortedComponents[rankOffsets[typeRanks[system.getComponentType(component).ordinal()]]++] = component;
+        }
+
+        int[] roots = new int[system.getFrameCount()];
+        for (int frame = 0; frame < roots.length; frame++) {
+            roots[frame] = frame;
+        }
+        boolean[] spanning = new boolean[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            if ((i & DEADLINE_CHECK_MASK) == 0) {
+                deadline.check();
+            }
+            int component = sortedComponents[i];
+            int sourceRoot = findRoot(roots, system.getSourceFrame(component));
+            int targetRoot = findRoot(roots, system.getTargetFrame(component));
+            if (sourceRoot != targetRoot) {
+                roots[sourceRoot] = targetRoot;
+                spanning[component] = true;
+            }
+        }
+        return spanning;
+    }
+
+    private static int findRoot(int[] roots, int frame) {
+        while (roots[frame] != frame) {
+            roots[frame] = roots[roots[frame]];
+            frame = roots[frame];
+        }
+        return frame;
+    }
+
+    /*
+     * Breadth first traversal of the spanning components from the ground, giving each
+     * frame its parent and ordering the frames so that parents precede their children
+     */
+    private void orient(boolean[] spanning, SelectionDeadline deadline) {
+        int ground = system.getGround();
+        boolean[] reached = new boolean[system.getFrameCount()];
+        reached[ground] = true;
+        frameOrder[reachedFrames++] = ground;
+
+        for (int next = 0; next < reachedFrames; next++) {
+            if ((next & DEADLINE_CHECK_MASK) == 0) {
+                deadline.check();
+            }
+            int frame = frameOrder[next];
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int component = system.getAdjacentComponent(index);
+                int adjacent = system.getAdjacentFrame(index);
+                if (spanning[component] && !reached[adjacent]) {
+                    reached[adjacent] = true;
+                    parentComponents[adjacent] = component;
+                    parentFrames[adjacent] = frame;
+                    frameOrder[reachedFrames++] = adjacent;
+                    totalWeight += typeWeights[system.getComponentType(component).ordinal()];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the domain in which the tree was found
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return the total weight of the tree, which is its number of variables for the
+     *         default weight
+     */
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return true if the reference frame is connected to the ground in the tree
+     */
+    public boolean isReachable(int frame) {
+        return frame == system.getGround() || parentComponents[frame] >= 0;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the component linking the frame to its parent, or -1 for the
+     *         ground and unreachable frames
+     */
+    public int getParentComponent(int frame) {
+        return parentComponents[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the frame's parent reference frame, or -1 for the ground and
+     *         unreachable frames
+     */
+    public int getParentFrame(int frame) {
+        return parentFrames[frame];
+    }
+
+    /**
+     * @return the ids of the reference frames reachable from the ground, in breadth
+     *         first order. Parents always precede their children.
+     */
+    public int[] getFrameOrder() {
+        return Arrays.copyOf(frameOrder, reachedFrames);
+    }
+
+    /**
+     * @return the ids of the components forming the tree, in the order of the frames
+     *         they relate to their parents
+     */
+    public int[] getTreeComponents() {
+        int[] components = new int[Math.max(reachedFrames - 1, 0)];
+        for (int i = 1; i < reachedFrames; i++) {
+            components[i - 1] = parentComponents[frameOrder[i]];
+        }
+        return components;
+    }
+}
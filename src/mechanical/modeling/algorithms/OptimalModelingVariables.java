@@ -1,11 +1,19 @@
 package mechanical.modeling.algorithms;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import graph.algorithms.ShortestPathsToNode;
 import graph.elements.WeightedGraph;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.Domain;
 import mechanical.modeling.components.MechanicalEdge;
 import mechanical.modeling.components.MechanicalSystem;
 import mechanical.modeling.components.ReferenceFrame;
@@ -16,7 +24,7 @@ import mechanical.modeling.components.ReferenceFrame;
  * will result in fast simulation times.
  *
  * <p>
- * The current implementation assigns the number of modeling variables
+ * The current implementation uses the number of modeling variables
  * associated with the component in the given domain as the weight of
  * each edge in each graph. Then, using the Shortest Paths to Node
  * algorithm of the graph theory package, a tree is selected that
@@ -26,6 +34,13 @@ import mechanical.modeling.components.ReferenceFrame;
  * </p>
  *
  * <p>
+ * In systems with closed loops, the shortest paths trees can select more
+ * variables in total than needed. The trees with the fewest variables in
+ * total are selected by passing {@link TreeSearch#MINIMUM_VARIABLES} to the
+ * compact system methods.
+ * </p>
+ *
+ * <p>
  * Note: This algorithm is in a state of flux and should be improved in
  * the future. Currently, a simple but effective version of the
  * algorithm has been implemented.
@@ -36,6 +51,8 @@ import mechanical.modeling.components.ReferenceFrame;
  */
 public final class OptimalModelingVariables {
 
+    private static volatile SelectionListener listener = SelectionListener.NONE;
+
     /*
      * This class contains only static utility methods. Therefore the constructor is private
      * so that nobody can instantiate it.
@@ -43,6 +60,33 @@ public final class OptimalModelingVariables {
     private OptimalModelingVariables(){
     }
 
+    /**
+     * Registers the listener notified after each selection made by the findVariables,
+     * selectVariables and selectCheapestVariables methods. The selections finding their
+     * trees on an executor, or solving the pieces of a decomposition or the repeated
+     * subassemblies of a system, are not reported. {@link #selectRootedVariables} and
+     * {@link #submitSelection} report each of their selections from the thread that
+     * made it, which can be a thread of the executor.
+     *
+     * @param selectionListener is the listener, or {@link SelectionListener#NONE} to
+     *        stop measuring the selections
+     *
+     * @throws IllegalArgumentException if the listener is null.
+     */
+    public static void setListener(SelectionListener selectionListener){
+        if (selectionListener == null) {
+            throw new IllegalArgumentException("The listener is null");
+        }
+        listener = selectionListener;
+    }
+
+    /**
+     * @return the listener notified after each selection
+     */
+    public static SelectionListener getListener(){
+        return listener;
+    }
+
     /**
      * Finds a set of modeling variables that can be used to generate the
      * mechanical system's equations in a format that will result in fast
@@ -59,29 +103,518 @@ public final class OptimalModelingVariables {
             throw new IllegalArgumentException("The mechanical system must contain components");
         }
 
+        SelectionRecorder recorder = SelectionRecorder.start(listener);
         ReferenceFrame ground = mechanicalSystem.getGround();
 
         WeightedGraph<ReferenceFrame, MechanicalEdge> rotationalGraph = mechanicalSystem.getRotationalGraph();
         WeightedGraph<ReferenceFrame, MechanicalEdge> translationalGraph = mechanicalSystem.getTranslationalGraph();
 
         Set<MechanicalEdge> rotationalTree = getTree(rotationalGraph, ground);
+        recorder.endPhase(SelectionPhase.ROTATIONAL_TREE);
         Set<MechanicalEdge> translationalTree = getTree(translationalGraph, ground);
+        recorder.endPhase(SelectionPhase.TRANSLATIONAL_TREE);
 
         Set<String> variables = new LinkedHashSet<String>();
-        variables.addAll(getTreeEdgeVariables(rotationalTree));
-        variables.addAll(getTreeEdgeVariables(translationalTree));
+        addTreeEdgeVariables(variables, rotationalTree);
+        addTreeEdgeVariables(variables, translationalTree);
+        recorder.endPhase(SelectionPhase.VARIABLE_ASSEMBLY);
+
+        if (recorder.isEnabled()) {
+            recorder.finish(rotationalGraph.getAllNodes().size(), mechanicalSystem.getAllComponents().size(),
+                    rotationalTree.size(), translationalTree.size(), variables.size());
+        }
         return variables;
     }
 
+    /**
+     * Finds a set of modeling variables of a compact mechanical system. The
+     * trees are found directly on the compact system's adjacency arrays.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public static Set<String> findVariables(CompactMechanicalSystem mechanicalSystem){
+        return findVariables(mechanicalSystem, EdgeWeight.NUMBER_OF_VARIABLES);
+    }
+
+    /**
+     * Finds a set of modeling variables of a compact mechanical system, using
+     * the given edge weight instead of the number of variables of each edge.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param edgeWeight defines the weight of each edge in each domain
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public static Set<String> findVariables(CompactMechanicalSystem mechanicalSystem, EdgeWeight edgeWeight){
+        return findVariableNames(mechanicalSystem, edgeWeight, TreeSearch.BINARY_HEAP, SelectionRecorder.start(listener));
+    }
+
+    /**
+     * Selects the optimal modeling variables of a compact mechanical system
+     * without building their names. Each selected variable is identified by
+     * its component and its index, and its name is only built on request.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @return the selected variables, in the same order as
+     *        {@link #findVariables(CompactMechanicalSystem)}.
+     */
+    public static VariableSelection selectVariables(CompactMechanicalSystem mechanicalSystem){
+        return selectVariables(mechanicalSystem, EdgeWeight.NUMBER_OF_VARIABLES);
+    }
+
+    /**
+     * Selects the optimal modeling variables of a compact mechanical system
+     * without building their names, using the given edge weight instead of the
+     * number of variables of each edge.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param edgeWeight defines the weight of each edge in each domain
+     * @return the selected variables, in the same order as
+     *        {@link #findVariables(CompactMechanicalSystem, EdgeWeight)}.
+     */
+    public static VariableSelection selectVariables(CompactMechanicalSystem mechanicalSystem, EdgeWeight edgeWeight){
+        return selectVariables(mechanicalSystem, edgeWeight, TreeSearch.BINARY_HEAP);
+    }
+
+    /**
+     * Finds a set of modeling variables of a compact mechanical system, using
+     * the given search to find the tree of each domain.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param treeSearch is the search finding the trees
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public static Set<String> findVariables(CompactMechanicalSystem mechanicalSystem, TreeSearch treeSearch){
+        return findVariableNames(mechanicalSystem, EdgeWeight.NUMBER_OF_VARIABLES, treeSearch, SelectionRecorder.start(listener));
+    }
+
+    /**
+     * Selects the optimal modeling variables of a compact mechanical system
+     * without building their names, using the given edge weight and the given
+     * search to find the tree of each domain.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param edgeWeight defines the weight of each edge in each domain
+     * @param treeSearch is the search finding the trees
+     * @return the selected variables, rotational variables first
+     */
+    public static VariableSelection selectVariables(CompactMechanicalSystem mechanicalSystem, EdgeWeight edgeWeight, TreeSearch treeSearch){
+        return selectVariables(mechanicalSystem, edgeWeight, treeSearch, SelectionDeadline.NONE);
+    }
+
+    /**
+     * Selects the optimal modeling variables of a compact mechanical system
+     * without building their names, unless the deadline expires first. The
+     * search of each tree checks the deadline regularly.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param edgeWeight defines the weight of each edge in each domain
+     * @param treeSearch is the search finding the trees
+     * @param deadline is the deadline of the selection
+     * @return the selected variables, rotational variables first
+     *
+     * @throws SelectionTimeoutException if the deadline expires before the selection is made.
+     */
+    public static VariableSelection selectVariables(CompactMechanicalSystem mechanicalSystem, EdgeWeight edgeWeight, TreeSearch treeSearch,
+            SelectionDeadline deadline){
+        SelectionRecorder recorder = SelectionRecorder.start(listener);
+        VariableSelection selection = select(mechanicalSystem, edgeWeight, treeSearch, deadline, recorder);
+        recorder.endPhase(SelectionPhase.VARIABLE_ASSEMBLY);
+        finish(recorder, selection);
+        return selection;
+    }
+
+    /**
+     * Selects the modeling variables of a compact mechanical system with the
+     * lowest predicted simulation cost. The trees are found with the model as
+     * edge weight by the shortest paths and minimum variables searches, and the
+     * selection whose variables and loop closure constraints cost the least is
+     * returned, the shortest paths trees on ties. The listener is notified once,
+     * with the trees of both searches measured together.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param costModel predicts the simulation cost of the variables and constraints
+     * @return the selected variables, rotational variables first
+     */
+    public static VariableSelection selectCheapestVariables(CompactMechanicalSystem mechanicalSystem, SimulationCostModel costModel){
+        SelectionRecorder recorder = SelectionRecorder.start(listener);
+        VariableSelection shortestPaths = select(mechanicalSystem, costModel, TreeSearch.BINARY_HEAP, SelectionDeadline.NONE, recorder);
+        VariableSelection minimumVariables = select(mechanicalSystem, costModel, TreeSearch.MINIMUM_VARIABLES, SelectionDeadline.NONE, recorder);
+        VariableSelection cheapest = shortestPaths;
+        if (costModel.predictCost(minimumVariables) < costModel.predictCost(shortestPaths)) {
+            cheapest = minimumVariables;
+        }
+        recorder.endPhase(SelectionPhase.VARIABLE_ASSEMBLY);
+        finish(recorder, cheapest);
+        return cheapest;
+    }
+
     /*
-     * Assigns the edge weights, runs the ShortestPathsToNode algorithm and
-     * returns the tree edges that were found
+     * Finds the trees of a compact mechanical system and assembles the names of the
+     * selected variables, reporting the phases to the recorder
      */
-    protected static Set<MechanicalEdge> getTree(WeightedGraph<ReferenceFrame, MechanicalEdge> graph, ReferenceFrame ground) {
-        for(MechanicalEdge edge : graph.getAllEdges()) {
-            edge.setWeight(edge.getNumberOfVariables());
+    private static Set<String> findVariableNames(CompactMechanicalSystem mechanicalSystem, EdgeWeight edgeWeight,
+            TreeSearch treeSearch, SelectionRecorder recorder) {
+        VariableSelection selection = select(mechanicalSystem, edgeWeight, treeSearch, SelectionDeadline.NONE, recorder);
+        Set<String> variables = selection.getVariableNames();
+        recorder.endPhase(SelectionPhase.VARIABLE_ASSEMBLY);
+        finish(recorder, selection);
+        return variables;
+    }
+
+    /*
+     * Finds the trees of a compact mechanical system and the selected variables,
+     * reporting the tree phases to the recorder and stopping if the deadline expires
+     */
+    private static VariableSelection select(CompactMechanicalSystem mechanicalSystem, EdgeWeight edgeWeight,
+            TreeSearch treeSearch, SelectionDeadline deadline, SelectionRecorder recorder) {
+
+        if (mechanicalSystem.getComponentCount() == 0) {
+            throw new IllegalArgumentException("The mechanical system must contain components");
         }
 
+        int[] rotationalTree = treeSearch.findTreeComponents(mechanicalSystem, Domain.ROTATIONAL, edgeWeight, deadline);
+        recorder.endPhase(SelectionPhase.ROTATIONAL_TREE);
+        int[] translationalTree = treeSearch.findTreeComponents(mechanicalSystem, Domain.TRANSLATIONAL, edgeWeight, deadline);
+        recorder.endPhase(SelectionPhase.TRANSLATIONAL_TREE);
+
+        return new VariableSelection(mechanicalSystem, rotationalTree, translationalTree);
+    }
+
+    private static void finish(SelectionRecorder recorder, VariableSelection selection) {
+        CompactMechanicalSystem mechanicalSystem = selection.getSystem();
+        recorder.finish(mechanicalSystem.getFrameCount(), mechanicalSystem.getComponentCount(),
+                selection.getTreeSize(Domain.ROTATIONAL), selection.getTreeSize(Domain.TRANSLATIONAL), selection.getVariableCount());
+    }
+
+    /**
+     * Finds a set of modeling variables of a mechanical system, using the given
+     * edge weight instead of the number of variables of each edge. The trees
+     * are found on a compact snapshot of the system, which is left unchanged.
+     *
+     * @param mechanicalSystem is the mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param edgeWeight defines the weight of each edge in each domain
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public static Set<String> findVariables(MechanicalSystem mechanicalSystem, EdgeWeight edgeWeight){
+        SelectionRecorder recorder = SelectionRecorder.start(listener);
+        CompactMechanicalSystem compactSystem = mechanicalSystem.compact();
+        recorder.endPhase(SelectionPhase.COMPACTION);
+        return findVariableNames(compactSystem, edgeWeight, TreeSearch.BINARY_HEAP, recorder);
+    }
+
+    /**
+     * Finds the optimal modeling variables of a mechanical system, finding the
+     * rotational and translational trees concurrently. The rotational tree is
+     * submitted to the executor while the translational tree is found on the
+     * calling thread. The variables are returned in the same order as
+     * {@link #findVariables(MechanicalSystem)}.
+     *
+     * @param mechanicalSystem is the mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param executor is the executor used to find the rotational tree
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public static Set<String> findVariables(MechanicalSystem mechanicalSystem, Executor executor){
+
+        if (mechanicalSystem.getAllComponents().isEmpty()) {
+            throw new IllegalArgumentException("The mechanical system must contain components");
+        }
+
+        final ReferenceFrame ground = mechanicalSystem.getGround();
+
+        final WeightedGraph<ReferenceFrame, MechanicalEdge> rotationalGraph = mechanicalSystem.getRotationalGraph();
+        WeightedGraph<ReferenceFrame, MechanicalEdge> translationalGraph = mechanicalSystem.getTranslationalGraph();
+
+        FutureTask<Set<MechanicalEdge>> rotationalTask = new FutureTask<Set<MechanicalEdge>>(new Callable<Set<MechanicalEdge>>() {
+            @Override
+            public Set<MechanicalEdge> call() {
+                return getTree(rotationalGraph, ground);
+            }
+        });
+        executor.execute(rotationalTask);
+
+        Set<MechanicalEdge> translationalTree = getTree(translationalGraph, ground);
+        Set<MechanicalEdge> rotationalTree = getResult(rotationalTask);
+
+        Set<String> variables = new LinkedHashSet<String>();
+        addTreeEdgeVariables(variables, rotationalTree);
+        addTreeEdgeVariables(variables, translationalTree);
+        return variables;
+    }
+
+    /**
+     * Finds the optimal modeling variables of a compact mechanical system,
+     * finding the rotational and translational trees concurrently. The variables
+     * are returned in the same order as {@link #findVariables(CompactMechanicalSystem)}.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param executor is the executor used to find the rotational tree
+     * @return a set of Strings defining the optimal modeling variables
+     *        of the system.
+     */
+    public static Set<String> findVariables(final CompactMechanicalSystem mechanicalSystem, Executor executor){
+
+        if (mechanicalSystem.getComponentCount() == 0) {
+            throw new IllegalArgumentException("The mechanical system must contain components");
+        }
+
+        FutureTask<CompactShortestPathsTree> rotationalTask = new FutureTask<CompactShortestPathsTree>(new Callable<CompactShortestPathsTree>() {
+            @Override
+            public CompactShortestPathsTree call() {
+                return new CompactShortestPathsTree(mechanicalSystem, Domain.ROTATIONAL);
+            }
+        });
+        executor.execute(rotationalTask);
+
+        CompactShortestPathsTree translationalTree = new CompactShortestPathsTree(mechanicalSystem, Domain.TRANSLATIONAL);
+        CompactShortestPathsTree rotationalTree = getResult(rotationalTask);
+
+        return new VariableSelection(mechanicalSystem, rotationalTree.getTreeComponents(),
+                translationalTree.getTreeComponents()).getVariableNames();
+    }
+
+    /**
+     * Selects the optimal modeling variables of a compact mechanical system by
+     * solving each piece of its decomposition independently. The pieces linked to
+     * the ground are submitted to the executor and the trees of each piece are
+     * returned one piece after the other. The frames of the detached pieces, given
+     * by {@link SystemDecomposition#getDetachedPieces()}, cannot be related to the
+     * ground and have no variables selected.
+     *
+     * @param decomposition is the decomposition of the compact mechanical system
+     *        who's optimal modeling variables need to be found
+     * @param executor is the executor used to solve the pieces
+     * @return the selected variables of all the pieces linked to the ground
+     */
+    public static VariableSelection selectVariables(SystemDecomposition decomposition, Executor executor){
+
+        CompactMechanicalSystem mechanicalSystem = decomposition.getSystem();
+        if (mechanicalSystem.getComponentCount() == 0) {
+            throw new IllegalArgumentException("The mechanical system must contain components");
+        }
+
+        List<FutureTask<int[][]>> pieceTasks = new ArrayList<FutureTask<int[][]>>();
+        for (int piece = 0; piece < decomposition.getPieceCount(); piece++) {
+            if (decomposition.isAttached(piece)) {
+                FutureTask<int[][]> pieceTask = new FutureTask<int[][]>(new PieceTrees(decomposition, piece));
+                pieceTasks.add(pieceTask);
+                executor.execute(pieceTask);
+            }
+        }
+
+        List<int[][]> pieceTrees = new ArrayList<int[][]>();
+        int rotationalLength = 0;
+        int translationalLength = 0;
+        for (FutureTask<int[][]> pieceTask : pieceTasks) {
+            int[][] trees = getResult(pieceTask);
+            pieceTrees.add(trees);
+            rotationalLength += trees[0].length;
+            translationalLength += trees[1].length;
+        }
+
+        int[] rotationalTree = new int[rotationalLength];
+        int[] translationalTree = new int[translationalLength];
+        rotationalLength = 0;
+        translationalLength = 0;
+        for (int[][] trees : pieceTrees) {
+            System.arraycopy(trees[0], 0, rotationalTree, rotationalLength, trees[0].length);
+            System.arraycopy(trees[1], 0, translationalTree, translationalLength, trees[1].length);
+            rotationalLength += trees[0].length;
+            translationalLength += trees[1].length;
+        }
+        return new VariableSelection(mechanicalSystem, rotationalTree, translationalTree);
+    }
+
+    /**
+     * Selects the optimal modeling variables of a compact mechanical system solving
+     * each repeated subassembly once. The trees of the core and of each template are
+     * found, then the tree of each template is copied to its instances, so the
+     * variables of an instance are named after its own components. The selection has
+     * the same distances to the ground as {@link #selectVariables(CompactMechanicalSystem)},
+     * although frames at equal distances can keep different paths.
+     *
+     * @param detection gives the repeated subassemblies of the compact mechanical
+     *        system who's optimal modeling variables need to be found
+     * @return the selected variables, the trees of the core being followed by the
+     *         trees of the instances
+     */
+    public static VariableSelection selectVariables(SubassemblyDetection detection){
+
+        CompactMechanicalSystem mechanicalSystem = detection.getSystem();
+        if (mechanicalSystem.getComponentCount() == 0) {
+            throw new IllegalArgumentException("The mechanical system must contain components");
+        }
+
+        CompactMechanicalSystem coreSystem = detection.extractCore();
+        int[] coreComponents = detection.getCoreComponents();
+        int[][] coreTrees = new int[2][];
+        coreTrees[0] = new CompactShortestPathsTree(coreSystem, Domain.ROTATIONAL).getTreeComponents();
+        coreTrees[1] = new CompactShortestPathsTree(coreSystem, Domain.TRANSLATIONAL).getTreeComponents();
+        int[] treeLengths = {coreTrees[0].length, coreTrees[1].length};
+
+        int[][][] templateTrees = new int[detection.getTemplateCount()][2][];
+        for (int template = 0; template < templateTrees.length; template++) {
+            CompactMechanicalSystem templateSystem = detection.extractTemplate(template);
+            templateTrees[template][0] = new CompactShortestPathsTree(templateSystem, Domain.ROTATIONAL).getTreeComponents();
+            templateTrees[template][1] = new CompactShortestPathsTree(templateSystem, Domain.TRANSLATIONAL).getTreeComponents();
+        }
+        for (int instance = 0; instance < detection.getInstanceCount(); instance++) {
+            treeLengths[0] += templateTrees[detection.getTemplate(instance)][0].length;
+            treeLengths[1] += templateTrees[detection.getTemplate(instance)][1].length;
+        }
+
+        /*
+         * The core reaches every attachment frame before the instances' trees leave it,
+         * so appending the trees of the instances keeps the parents before their children
+         */
+        int[][] trees = {new int[treeLengths[0]], new int[treeLengths[1]]};
+        for (int domain = 0; domain < 2; domain++) {
+            int length = 0;
+            for (int component : coreTrees[domain]) {
+                trees[domain][length++] = coreComponents[component];
+            }
+            for (int instance = 0; instance < detection.getInstanceCount(); instance++) {
+                int[] components = detection.getComponents(instance);
+                for (int component : templateTrees[detection.getTemplate(instance)][domain]) {
+                    trees[domain][length++] = components[component];
+                }
+            }
+        }
+        return new VariableSelection(mechanicalSystem, trees[0], trees[1]);
+    }
+
+    /**
+     * Selects the modeling variables of a compact mechanical system rooted at the
+     * cheapest of several candidate roots, for systems with a floating base. The
+     * system is rerooted at each candidate with {@link SystemRooting#reroot} and the
+     * candidates are selected concurrently with
+     * {@link #selectCheapestVariables(CompactMechanicalSystem, SimulationCostModel)}.
+     * The selection relating the most frames to its root is kept, then the one with
+     * the lowest predicted cost, then the first candidate.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param candidateRoots are the ids of the reference frames that can be the root
+     * @param costModel predicts the simulation cost of the variables and constraints
+     * @param executor is the executor used to evaluate the candidates
+     * @return the selected variables, whose system is rooted at the chosen candidate
+     *
+     * @throws IllegalArgumentException if there is no candidate root.
+     */
+    public static VariableSelection selectRootedVariables(final CompactMechanicalSystem mechanicalSystem, int[] candidateRoots,
+            final SimulationCostModel costModel, Executor executor){
+
+        if (candidateRoots.length == 0) {
+            throw new IllegalArgumentException("There is no candidate root");
+        }
+
+        List<FutureTask<VariableSelection>> rootTasks = new ArrayList<FutureTask<VariableSelection>>();
+        for (final int root : candidateRoots) {
+            FutureTask<VariableSelection> rootTask = new FutureTask<VariableSelection>(new Callable<VariableSelection>() {
+                @Override
+                public VariableSelection call() {
+                    return selectCheapestVariables(SystemRooting.reroot(mechanicalSystem, root), costModel);
+                }
+            });
+            rootTasks.add(rootTask);
+            executor.execute(rootTask);
+        }
+
+        VariableSelection cheapest = null;
+        double cheapestCost = 0;
+        for (FutureTask<VariableSelection> rootTask : rootTasks) {
+            VariableSelection selection = getResult(rootTask);
+            double cost = costModel.predictCost(selection);
+            if (cheapest == null || selection.getTreeSize(Domain.ROTATIONAL) > cheapest.getTreeSize(Domain.ROTATIONAL)
+                    || (selection.getTreeSize(Domain.ROTATIONAL) == cheapest.getTreeSize(Domain.ROTATIONAL) && cost < cheapestCost)) {
+                cheapest = selection;
+                cheapestCost = cost;
+            }
+        }
+        return cheapest;
+    }
+
+    /**
+     * Submits the selection of the optimal modeling variables of a compact mechanical
+     * system to an executor. The selection stops when the deadline expires, and
+     * {@link Future#get()} then throws an ExecutionException caused by a
+     * {@link SelectionTimeoutException}. Cancelling the future also cancels the
+     * deadline, unless it is {@link SelectionDeadline#NONE}, so that a running search
+     * stops as soon as possible; a deadline should therefore not be shared by
+     * selections that must not be cancelled together.
+     *
+     * @param mechanicalSystem is the compact mechanical system who's optimal
+     *        modeling variables need to be found
+     * @param deadline is the deadline of the selection
+     * @param executor is the executor running the selection
+     * @return the future result of the selection
+     */
+    public static Future<VariableSelection> submitSelection(final CompactMechanicalSystem mechanicalSystem,
+            final SelectionDeadline deadline, Executor executor){
+        FutureTask<VariableSelection> selectionTask = new FutureTask<VariableSelection>(new Callable<VariableSelection>() {
+            @Override
+            public VariableSelection call() {
+                return selectVariables(mechanicalSystem, EdgeWeight.NUMBER_OF_VARIABLES, TreeSearch.BINARY_HEAP, deadline);
+            }
+        }) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                if (deadline != SelectionDeadline.NONE) {
+                    deadline.cancel();
+                }
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        executor.execute(selectionTask);
+        return selectionTask;
+    }
+
+    /*
+     * Waits for the result of a task submitted to an executor. If the executor has not
+     * started the task yet, it is run on the calling thread so that a saturated executor
+     * can never block the selection.
+     */
+    private static <T> T getResult(FutureTask<T> task) {
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a tree", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /*
+     * Runs the ShortestPathsToNode algorithm and returns the tree edges that were
+     * found. The weight of each edge is derived from its number of variables and
+     * cannot be changed, so the graph is only read and can be shared by concurrent calls.
+     */
+    protected static Set<MechanicalEdge> getTree(WeightedGraph<ReferenceFrame, MechanicalEdge> graph, ReferenceFrame ground) {
         ShortestPathsToNode<ReferenceFrame, MechanicalEdge> findShortestPaths = new ShortestPathsToNode<ReferenceFrame, MechanicalEdge>(graph, ground);
         return findShortestPaths.getShortestPathsTreeEdges();
     }
@@ -93,9 +626,49 @@ public final class OptimalModelingVariables {
      */
     protected static Set<String> getTreeEdgeVariables(Set<MechanicalEdge> edges) {
         Set<String> variables = new LinkedHashSet<String>();
+        addTreeEdgeVariables(variables, edges);
+        return variables;
+    }
+
+    /*
+     * Adds the variable strings of each edge in the set passed in to the
+     * variables. Only the tree edges have their variable strings built.
+     */
+    private static void addTreeEdgeVariables(Set<String> variables, Set<MechanicalEdge> edges) {
         for(MechanicalEdge edge : edges) {
-            Collections.addAll(variables, edge.getVariables());
+            for(int i = 0; i < edge.getNumberOfVariables(); i++) {
+                variables.add(edge.getVariable(i));
+            }
+        }
+    }
+
+    /*
+     * Finds the trees of both domains of a piece of a decomposition, with the ids of
+     * the components in the decomposed system
+     */
+    private static final class PieceTrees implements Callable<int[][]> {
+
+        private final SystemDecomposition decomposition;
+        private final int piece;
+
+        PieceTrees(SystemDecomposition decomposition, int piece) {
+            this.decomposition = decomposition;
+            this.piece = piece;
+        }
+
+        @Override
+        public int[][] call() {
+            CompactMechanicalSystem pieceSystem = decomposition.extract(piece);
+            int[] components = decomposition.getComponents(piece);
+            int[] rotationalTree = new CompactShortestPathsTree(pieceSystem, Domain.ROTATIONAL).getTreeComponents();
+            int[] translationalTree = new CompactShortestPathsTree(pieceSystem, Domain.TRANSLATIONAL).getTreeComponents();
+            for (int i = 0; i < rotationalTree.length; i++) {
+                rotationalTree[i] = components[rotationalTree[i]];
+            }
+            for (int i = 0; i < translationalTree.length; i++) {
+                translationalTree[i] = components[translationalTree[i]];
+            }
+            return new int[][]{rotationalTree, translationalTree};
         }
-        return variables;
     }
 }
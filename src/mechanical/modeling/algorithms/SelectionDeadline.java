@@ -0,0 +1,75 @@
+package mechanical.modeling.algorithms;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class lets a caller stop a coordinate selection that is no longer
+ * needed. A deadline expires when its time limit passes or when it is
+ * cancelled, and the tree searches check it regularly, throwing a
+ * {@link SelectionTimeoutException} once it has expired.
+ */
+public final class SelectionDeadline {
+
+    /** The deadline that never expires. It cannot be cancelled. */
+    public static final SelectionDeadline NONE = new SelectionDeadline(Long.MAX_VALUE, false);
+
+    private final long expiryNanos;
+    private final boolean limited;
+    private volatile boolean cancelled;
+
+    private SelectionDeadline(long expiryNanos, boolean limited) {
+        this.expiryNanos = expiryNanos;
+        this.limited = limited;
+    }
+
+    /**
+     * @param timeout is the time left to make the selection
+     * @param unit is the unit of the timeout
+     * @return a deadline expiring after the timeout, or when it is cancelled
+     */
+    public static SelectionDeadline after(long timeout, TimeUnit unit) {
+        return new SelectionDeadline(System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /**
+     * @return a deadline that only expires when it is cancelled
+     */
+    public static SelectionDeadline cancellable() {
+        return new SelectionDeadline(Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Cancels the deadline, so that the selections checking it stop as soon as possible.
+     *
+     * @throws UnsupportedOperationException if this is {@link #NONE}.
+     */
+    public void cancel() {
+        if (this == NONE) {
+            throw new UnsupportedOperationException("The deadline that never expires cannot be cancelled");
+        }
+        cancelled = true;
+    }
+
+    /**
+     * @return true if the deadline was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the deadline was cancelled or its time limit has passed
+     */
+    public boolean isExpired() {
+        return cancelled || (limited && System.nanoTime() - expiryNanos >= 0);
+    }
+
+    /**
+     * @throws SelectionTimeoutException if the deadline has expired.
+     */
+    void check() {
+        if (isExpired()) {
+            throw new SelectionTimeoutException(cancelled ? "The selection was cancelled" : "The selection passed its deadline");
+        }
+    }
+}
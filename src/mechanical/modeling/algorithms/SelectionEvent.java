@@ -0,0 +1,105 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class holds the measurements of one coordinate selection: the duration
+ * and allocation of each phase, the size of the system and of its trees, and
+ * the number of selected variables.
+ */
+public final class SelectionEvent {
+
+    private final long[] durations;
+    private final long[] allocatedBytes;
+    private final int frameCount;
+    private final int componentCount;
+    private final int rotationalTreeSize;
+    private final int translationalTreeSize;
+    private final int variableCount;
+
+    SelectionEvent(long[] durations, long[] allocatedBytes, int frameCount, int componentCount,
+            int rotationalTreeSize, int translationalTreeSize, int variableCount) {
+        this.durations = durations;
+        this.allocatedBytes = allocatedBytes;
+        this.frameCount = frameCount;
+        this.componentCount = componentCount;
+        this.rotationalTreeSize = rotationalTreeSize;
+        this.translationalTreeSize = translationalTreeSize;
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * @param phase is the phase of the selection
+     * @return true if the phase was part of the selection
+     */
+    public boolean hasPhase(SelectionPhase phase) {
+        return durations[phase.ordinal()] >= 0;
+    }
+
+    /**
+     * @param phase is the phase of the selection
+     * @return the duration of the phase in nanoseconds, or -1 if the phase was not
+     *         part of the selection
+     */
+    public long getDuration(SelectionPhase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /**
+     * @return the total duration of the phases in nanoseconds
+     */
+    public long getTotalDuration() {
+        long total = 0;
+        for (long duration : durations) {
+            total += Math.max(duration, 0);
+        }
+        return total;
+    }
+
+    /**
+     * @param phase is the phase of the selection
+     * @return the number of bytes allocated by the selecting thread during the phase,
+     *         or -1 if the phase was not part of the selection or the virtual machine
+     *         does not report allocations
+     */
+    public long getAllocatedBytes(SelectionPhase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    /**
+     * @return the number of reference frames of the system, including the ground
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return the number of components of the system
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @param domain is the domain of the tree
+     * @return the number of components in the tree of the given domain
+     */
+    public int getTreeSize(Domain domain) {
+        return domain.equals(Domain.ROTATIONAL) ? rotationalTreeSize : translationalTreeSize;
+    }
+
+    /**
+     * @return the number of selected variables
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SelectionEvent[Frames: " + frameCount + ", Components: " + componentCount + ", Variables: " + variableCount
+                + ", Durations: " + Arrays.toString(durations) + ", Allocated: " + Arrays.toString(allocatedBytes) + "]";
+    }
+}
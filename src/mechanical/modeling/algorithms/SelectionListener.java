@@ -0,0 +1,32 @@
+package mechanical.modeling.algorithms;
+
+/**
+ * This interface is implemented by classes that need to be notified after
+ * each coordinate selection, for example to record metrics or traces. A
+ * listener is registered with
+ * {@link OptimalModelingVariables#setListener(SelectionListener)}.
+ *
+ * <p>
+ * The listener is called on the thread that made the selection, so it must
+ * be thread safe and return quickly.
+ * </p>
+ */
+public interface SelectionListener {
+
+    /**
+     * The listener registered by default. Nothing is measured while it is
+     * registered.
+     */
+    SelectionListener NONE = new SelectionListener() {
+        @Override
+        public void selectionFinished(SelectionEvent event) {
+        }
+    };
+
+    /**
+     * Called after a selection was successfully made
+     *
+     * @param event holds the measurements of the selection
+     */
+    void selectionFinished(SelectionEvent event);
+}
@@ -0,0 +1,16 @@
+package mechanical.modeling.algorithms;
+
+/**
+ * Enumerates the phases of a coordinate selection whose duration is reported
+ * to a {@link SelectionListener}.
+ */
+public enum SelectionPhase {
+    /** The copy of a mechanical system to a compact mechanical system */
+    COMPACTION,
+    /** The search of the rotational tree, including the evaluation of the edge weights */
+    ROTATIONAL_TREE,
+    /** The search of the translational tree, including the evaluation of the edge weights */
+    TRANSLATIONAL_TREE,
+    /** The assembly of the selected variables from the trees */
+    VARIABLE_ASSEMBLY
+}
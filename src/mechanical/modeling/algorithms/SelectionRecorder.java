@@ -0,0 +1,112 @@
+package mechanical.modeling.algorithms;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * This class measures the phases of one coordinate selection and reports them
+ * to a listener. When no listener is registered, the shared disabled recorder
+ * is used and every method returns immediately, so the selection reads no
+ * clock.
+ */
+final class SelectionRecorder {
+
+    private static final SelectionRecorder DISABLED = new SelectionRecorder(null);
+    private static final int PHASES = SelectionPhase.values().length;
+
+    private final SelectionListener listener;
+    private final long[] durations;
+    private final long[] allocatedBytes;
+    private long phaseStart;
+    private long phaseAllocationStart;
+
+    private SelectionRecorder(SelectionListener listener) {
+        this.listener = listener;
+        this.durations = new long[PHASES];
+        this.allocatedBytes = new long[PHASES];
+    }
+
+    /**
+     * Starts measuring a selection.
+     *
+     * @param listener is the listener to be notified
+     * @return the recorder of the selection
+     */
+    static SelectionRecorder start(SelectionListener listener) {
+        if (listener == SelectionListener.NONE) {
+            return DISABLED;
+        }
+        SelectionRecorder recorder = new SelectionRecorder(listener);
+        Arrays.fill(recorder.durations, -1);
+        Arrays.fill(recorder.allocatedBytes, -1);
+        recorder.phaseAllocationStart = getAllocatedBytes();
+        recorder.phaseStart = System.nanoTime();
+        return recorder;
+    }
+
+    /**
+     * @return true if the selection is measured
+     */
+    boolean isEnabled() {
+        return listener != null;
+    }
+
+    /**
+     * Ends the current phase, which started when the previous phase ended or when the
+     * selection started. A phase ended several times, such as the trees of each search
+     * compared by one selection, is reported with the sum of its measurements.
+     *
+     * @param phase is the phase that ended
+     */
+    void endPhase(SelectionPhase phase) {
+        if (listener == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long allocated = getAllocatedBytes();
+        int index = phase.ordinal();
+        long duration = now - phaseStart;
+        durations[index] = durations[index] < 0 ? duration : durations[index] + duration;
+        if (allocated < 0) {
+            allocatedBytes[index] = -1;
+        } else {
+            long bytes = allocated - phaseAllocationStart;
+            allocatedBytes[index] = allocatedBytes[index] < 0 ? bytes : allocatedBytes[index] + bytes;
+        }
+        phaseAllocationStart = getAllocatedBytes();
+        phaseStart = System.nanoTime();
+    }
+
+    /**
+     * Notifies the listener that the selection finished.
+     *
+     * @param frameCount is the number of reference frames of the system
+     * @param componentCount is the number of components of the system
+     * @param rotationalTreeSize is the number of components of the rotational tree
+     * @param translationalTreeSize is the number of components of the translational tree
+     * @param variableCount is the number of selected variables
+     */
+    void finish(int frameCount, int componentCount, int rotationalTreeSize, int translationalTreeSize, int variableCount) {
+        if (listener == null) {
+            return;
+        }
+        listener.selectionFinished(new SelectionEvent(durations, allocatedBytes, frameCount, componentCount,
+                rotationalTreeSize, translationalTreeSize, variableCount));
+    }
+
+    /*
+     * Returns the number of bytes allocated by the current thread, or -1 if the
+     * virtual machine does not report it
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+            if (hotSpotThreads.isThreadAllocatedMemorySupported() && hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+                return hotSpotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,69 @@
+package mechanical.modeling.algorithms;
+
+/**
+ * This listener accumulates the measurements of the selections it is notified
+ * of: the number of selections, and the total and maximum duration of each
+ * phase. It can be read while selections are being made, for example by a
+ * metrics exporter polling it periodically.
+ */
+public final class SelectionStatistics implements SelectionListener {
+
+    private final long[] totalDurations = new long[SelectionPhase.values().length];
+    private final long[] maxDurations = new long[SelectionPhase.values().length];
+    private long selectionCount;
+    private long variableCount;
+
+    @Override
+    public synchronized void selectionFinished(SelectionEvent event) {
+        selectionCount++;
+        variableCount += event.getVariableCount();
+        for (SelectionPhase phase : SelectionPhase.values()) {
+            long duration = event.getDuration(phase);
+            if (duration >= 0) {
+                totalDurations[phase.ordinal()] += duration;
+                maxDurations[phase.ordinal()] = Math.max(maxDurations[phase.ordinal()], duration);
+            }
+        }
+    }
+
+    /**
+     * @return the number of selections made
+     */
+    public synchronized long getSelectionCount() {
+        return selectionCount;
+    }
+
+    /**
+     * @return the total number of variables selected
+     */
+    public synchronized long getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * @param phase is the phase of the selections
+     * @return the total duration of the phase in nanoseconds
+     */
+    public synchronized long getTotalDuration(SelectionPhase phase) {
+        return totalDurations[phase.ordinal()];
+    }
+
+    /**
+     * @param phase is the phase of the selections
+     * @return the longest duration of the phase in nanoseconds
+     */
+    public synchronized long getMaxDuration(SelectionPhase phase) {
+        return maxDurations[phase.ordinal()];
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SelectionStatistics[Selections: ").append(selectionCount);
+        for (SelectionPhase phase : SelectionPhase.values()) {
+            sb.append(", ").append(phase).append(": ").append(totalDurations[phase.ordinal()]).append(" ns");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+}
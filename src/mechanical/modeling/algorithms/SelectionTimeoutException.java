@@ -0,0 +1,17 @@
+package mechanical.modeling.algorithms;
+
+/**
+ * This exception is thrown by a coordinate selection whose
+ * {@link SelectionDeadline} expired before the selection was made.
+ */
+public class SelectionTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message describes why the selection was stopped
+     */
+    public SelectionTimeoutException(String message) {
+        super(message);
+    }
+}
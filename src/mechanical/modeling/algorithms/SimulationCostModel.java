@@ -0,0 +1,324 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class predicts the simulation cost of the equations generated from a
+ * selection of modeling variables. Each variable costs a given amount
+ * depending on its domain, so that angular variables can be made more
+ * expensive than translational ones, and each loop closure constraint left
+ * to the solver costs a given amount. The variables of a given component
+ * type can be given their own cost, for instance to penalize the angles of
+ * spherical joints.
+ *
+ * <p>
+ * As an {@link EdgeWeight}, the model weighs each edge by the cost of the
+ * variables of its component, so the tree searches minimize the predicted
+ * cost of the variables. The cost of the constraints depends on the whole
+ * tree rather than on each edge; it is used by
+ * {@link OptimalModelingVariables#selectCheapestVariables(mechanical.modeling.components.CompactMechanicalSystem, SimulationCostModel)}
+ * to choose between the trees of the different searches.
+ * </p>
+ *
+ * <p>
+ * A model can be calibrated from measured simulation times with a
+ * {@link Calibration}.
+ * </p>
+ */
+public final class SimulationCostModel implements EdgeWeight {
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    /** The model in which every variable costs 1 and constraints are free, which counts the variables */
+    public static final SimulationCostModel VARIABLE_COUNT = new SimulationCostModel(1, 1, 0);
+
+    private final double[][] variableCosts;
+    private final double constraintCost;
+
+    /**
+     * Creates a model from the cost of each kind of variable and constraint.
+     *
+     * @param rotationalVariableCost is the cost of a rotational variable
+     * @param translationalVariableCost is the cost of a translational variable
+     * @param constraintCost is the cost of a loop closure constraint
+     *
+     * @throws IllegalArgumentException if a cost is negative or not a number.
+     */
+    public SimulationCostModel(double rotationalVariableCost, double translationalVariableCost, double constraintCost) {
+        if (!(rotationalVariableCost >= 0) || !(translationalVariableCost >= 0) || !(constraintCost >= 0)) {
+            throw new IllegalArgumentException("The costs must not be negative");
+        }
+        this.variableCosts = new double[TYPES.length][];
+        for (int type = 0; type < TYPES.length; type++) {
+            variableCosts[type] = new double[]{rotationalVariableCost, translationalVariableCost};
+        }
+        this.constraintCost = constraintCost;
+    }
+
+    private SimulationCostModel(double[][] variableCosts, double constraintCost) {
+        this.variableCosts = variableCosts;
+        this.constraintCost = constraintCost;
+    }
+
+    private static int getDomainIndex(Domain domain) {
+        return domain.equals(Domain.TRANSLATIONAL) ? 1 : 0;
+    }
+
+    /**
+     * Creates a copy of this model in which the variables of a component type in a
+     * domain have the given cost.
+     *
+     * @param type is the component type
+     * @param domain is the domain of the variables
+     * @param cost is the cost of each variable of the type in the domain
+     * @return the new model
+     *
+     * @throws IllegalArgumentException if the cost is negative or not a number.
+     */
+    public SimulationCostModel withVariableCost(ComponentType type, Domain domain, double cost) {
+        if (!(cost >= 0)) {
+            throw new IllegalArgumentException("The costs must not be negative");
+        }
+        double[][] costs = new double[TYPES.length][];
+        for (int i = 0; i < TYPES.length; i++) {
+            costs[i] = variableCosts[i].clone();
+        }
+        costs[type.ordinal()][getDomainIndex(domain)] = cost;
+        return new SimulationCostModel(costs, constraintCost);
+    }
+
+    /**
+     * @param type is the type of the variable's component
+     * @param domain is the domain of the variable
+     * @return the cost of a variable of the given component type and domain
+     */
+    public double getVariableCost(ComponentType type, Domain domain) {
+        return variableCosts[type.ordinal()][getDomainIndex(domain)];
+    }
+
+    /**
+     * @return the cost of a loop closure constraint
+     */
+    public double getConstraintCost() {
+        return constraintCost;
+    }
+
+    @Override
+    public double getWeight(ComponentType type, Domain domain) {
+        return EdgeWeight.NUMBER_OF_VARIABLES.getWeight(type, domain) * getVariableCost(type, domain);
+    }
+
+    /**
+     * @param selection is the selection of modeling variables
+     * @return the predicted simulation cost of the equations generated from the selection
+     */
+    public double predictCost(VariableSelection selection) {
+        CompactMechanicalSystem system = selection.getSystem();
+        double cost = constraintCost * getConstraintCount(selection);
+        for (int variable = 0; variable < selection.getVariableCount(); variable++) {
+            cost += getVariableCost(system.getComponentType(selection.getComponent(variable)), selection.getDomain(variable));
+        }
+        return cost;
+    }
+
+    private static int getConstraintCount(VariableSelection selection) {
+        return selection.getLoops(Domain.ROTATIONAL).getTotalConstraintCount()
+                + selection.getLoops(Domain.TRANSLATIONAL).getTotalConstraintCount();
+    }
+
+    /**
+     * This class fits a cost model to simulation times measured for different
+     * selections. The time of each simulation is modeled as a fixed overhead
+     * plus the cost of its rotational variables, translational variables and
+     * constraints, and the costs are found by least squares. When a cost fits
+     * as a negative value, it is set to 0 and the other costs are fitted again
+     * without it, so the costs are the non-negative ones that best predict the
+     * times. The fitted model has the same cost for every component type; type
+     * specific costs can then be set with
+     * {@link SimulationCostModel#withVariableCost(ComponentType, Domain, double)}.
+     */
+    public static final class Calibration {
+
+        private static final int TERMS = 4;
+
+        private final double[][] normalMatrix = new double[TERMS][TERMS];
+        private final double[] normalVector = new double[TERMS];
+        private int sampleCount;
+
+        /**
+         * Adds a measured simulation time.
+         *
+         * @param selection is the selection the simulated equations were generated from
+         * @param simulationTime is the measured simulation time, in any unit
+         *
+         * @throws IllegalArgumentException if the time is negative or not a number.
+         */
+        public void addSample(VariableSelection selection, double simulationTime) {
+            if (!(simulationTime >= 0)) {
+                throw new IllegalArgumentException("The simulation time must not be negative");
+            }
+            double[] terms = {1, selection.getVariableCount(Domain.ROTATIONAL),
+                    selection.getVariableCount(Domain.TRANSLATIONAL), getConstraintCount(selection)};
+            for (int row = 0; row < TERMS; row++) {
+                for (int column = 0; column < TERMS; column++) {
+                    normalMatrix[row][column] += terms[row] * terms[column];
+                }
+                normalVector[row] += terms[row] * simulationTime;
+            }
+            sampleCount++;
+        }
+
+        /**
+         * @return the number of measured simulation times
+         */
+        public int getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * Fits the model to the measured simulation times.
+         *
+         * @return the cost model that best predicts the measured times
+         *
+         * @throws IllegalStateException if the samples do not vary enough to determine
+         *         every cost.
+         */
+        public SimulationCostModel fit() {
+            boolean[] freeTerms = new boolean[TERMS];
+            Arrays.fill(freeTerms, true);
+            double[] costs = solve(freeTerms);
+            if (costs[1] < 0 || costs[2] < 0 || costs[3] < 0) {
+                costs = solveNonNegative();
+            }
+            return new SimulationCostModel(costs[1], costs[2], costs[3]);
+        }
+
+        /*
+         * Active set least squares keeping every cost non-negative, the overhead being
+         * free. Starting from all the costs at 0, the cost that would reduce the error
+         * the most is freed and the free terms are refitted. A free cost refitted as a
+         * negative value is moved back towards the previous solution until it reaches 0,
+         * and is then fixed at 0 again. The normal matrix is positive definite, since
+         * the unconstrained fit succeeded, so every refit has a solution.
+         */
+        private double[] solveNonNegative() {
+            double tolerance = 0;
+            for (int term = 0; term < TERMS; term++) {
+                tolerance = Math.max(tolerance, Math.abs(normalVector[term]));
+            }
+            tolerance *= 1e-12;
+
+            boolean[] freeTerms = new boolean[TERMS];
+            freeTerms[0] = true;
+            double[] costs = solve(freeTerms);
+            for (int iteration = 0; iteration < 3 * TERMS; iteration++) {
+                int freedTerm = -1;
+                double largestGradient = tolerance;
+                for (int term = 1; term < TERMS; term++) {
+                    if (freeTerms[term]) {
+                        continue;
+                    }
+                    double gradient = normalVector[term];
+                    for (int column = 0; column < TERMS; column++) {
+                        gradient -= normalMatrix[term][column] * costs[column];
+                    }
+                    if (gradient > largestGradient) {
+                        freedTerm = term;
+                        largestGradient = gradient;
+                    }
+                }
+                if (freedTerm < 0) {
+                    break;
+                }
+                freeTerms[freedTerm] = true;
+
+                while (true) {
+                    double[] refitted = solve(freeTerms);
+                    double step = 1;
+                    for (int term = 1; term < TERMS; term++) {
+                        if (freeTerms[term] && refitted[term] <= 0) {
+                            step = Math.min(step, costs[term] / (costs[term] - refitted[term]));
+                        }
+                    }
+                    for (int term = 0; term < TERMS; term++) {
+                        costs[term] += step * (refitted[term] - costs[term]);
+                    }
+                    if (step == 1) {
+                        break;
+                    }
+                    for (int term = 1; term < TERMS; term++) {
+                        if (freeTerms[term] && costs[term] <= tolerance) {
+                            freeTerms[term] = false;
+                            costs[term] = 0;
+                        }
+                    }
+                }
+            }
+            return costs;
+        }
+
+        /*
+         * Gaussian elimination with partial pivoting on a copy of the normal equations
+         * of the free terms, the other terms being 0
+         */
+        private double[] solve(boolean[] freeTerms) {
+            int[] terms = new int[TERMS];
+            int size = 0;
+            for (int term = 0; term < TERMS; term++) {
+                if (freeTerms[term]) {
+                    terms[size++] = term;
+                }
+            }
+            double[][] matrix = new double[size][size];
+            double[] vector = new double[size];
+            double scale = 0;
+            for (int row = 0; row < size; row++) {
+                for (int column = 0; column < size; column++) {
+                    matrix[row][column] = normalMatrix[terms[row]][terms[column]];
+                }
+                vector[row] = normalVector[terms[row]];
+                scale = Math.max(scale, Math.abs(matrix[row][row]));
+            }
+
+            for (int pivot = 0; pivot < size; pivot++) {
+                int best = pivot;
+                for (int row = pivot + 1; row < size; row++) {
+                    if (Math.abs(matrix[row][pivot]) > Math.abs(matrix[best][pivot])) {
+                        best = row;
+                    }
+                }
+                if (!(Math.abs(matrix[best][pivot]) > scale * 1e-12)) {
+                    throw new IllegalStateException("The samples do not determine every cost");
+                }
+                double[] swappedRow = matrix[pivot];
+                matrix[pivot] = matrix[best];
+                matrix[best] = swappedRow;
+                double swappedValue = vector[pivot];
+                vector[pivot] = vector[best];
+                vector[best] = swappedValue;
+
+                for (int row = pivot + 1; row < size; row++) {
+                    double factor = matrix[row][pivot] / matrix[pivot][pivot];
+                    for (int column = pivot; column < size; column++) {
+                        matrix[row][column] -= factor * matrix[pivot][column];
+                    }
+                    vector[row] -= factor * vector[pivot];
+                }
+            }
+
+            double[] solution = new double[TERMS];
+            for (int row = size - 1; row >= 0; row--) {
+                double value = vector[row];
+                for (int column = row + 1; column < size; column++) {
+                    value -= matrix[row][column] * solution[terms[column]];
+                }
+                solution[terms[row]] = value / matrix[row][row];
+            }
+            return solution;
+        }
+    }
+}
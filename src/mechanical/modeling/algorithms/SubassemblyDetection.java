@@ -0,0 +1,454 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+
+/**
+ * This class finds the repeated subassemblies of a compact mechanical system
+ * so that their modeling variables are selected once for all their copies.
+ *
+ * <p>
+ * A subassembly is a group of reference frames, away from the ground, that
+ * is linked to the rest of the system through a single attachment frame,
+ * with the components linking them together and to the attachment frame.
+ * Every path from the ground to a frame of a subassembly goes through its
+ * attachment frame, so the shortest paths tree of a subassembly only depends
+ * on the subassembly: it is the tree of the subassembly rooted at its
+ * attachment frame.
+ * </p>
+ *
+ * <p>
+ * Two subassemblies are copies of the same template when their components,
+ * in increasing id order, have the same types and the same wiring: the
+ * frames are numbered in the order they are first used, the attachment
+ * frame first, and each component relates the same numbered frames in the
+ * same direction. Copies built the same way, as is done for repeated legs or
+ * grippers, are therefore recognized. Subassemblies that are isomorphic but
+ * declared in a different order are left in the rest of the system; they are
+ * still solved, only not shared.
+ * </p>
+ *
+ * <p>
+ * The outermost copies are the instances: a copy lying within an instance of
+ * another template is solved with it, and is not compared with the other
+ * copies. The components that are not in an instance form the core of the
+ * system.
+ * </p>
+ */
+public final class SubassemblyDetection {
+
+    private final CompactMechanicalSystem system;
+    private final int[] instanceAttachments;
+    private final int[] instanceTemplates;
+    private final int[] instanceOffsets;
+    private final int[] instanceComponents;
+    private final int[] templateInstances;
+    private final int[] coreComponents;
+
+    /**
+     * Finds the repeated subassemblies of the system.
+     *
+     * @param system is the compact mechanical system
+     */
+    public SubassemblyDetection(CompactMechanicalSystem system) {
+        this.system = system;
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+
+        /*
+         * Depth first traversal from the ground giving the preorder number of each frame,
+         * the last preorder number of its subtree and the lowest preorder number reached
+         * from its subtree by a single component. The subtree of a frame whose lowest
+         * number is not below its parent's number only reaches the rest of the system
+         * through its parent: it is a subassembly attached at the parent.
+         */
+        int[] preorders = new int[frameCount];
+        int[] lastPreorders = new int[frameCount];
+        int[] lowest = new int[frameCount];
+        int[] parentComponents = new int[frameCount];
+        int[] cursors = new int[frameCount];
+        int[] frameOrder = new int[frameCount];
+        boolean[] attachedSubtrees = new boolean[frameCount];
+        Arrays.fill(preorders, -1);
+        int[] stack = new int[frameCount];
+        int stackSize = 0;
+        int ground = system.getGround();
+        int reachedFrames = 0;
+        preorders[ground] = reachedFrames;
+        lowest[ground] = reachedFrames;
+        parentComponents[ground] = -1;
+        cursors[ground] = system.getAdjacencyStart(ground);
+        frameOrder[reachedFrames++] = ground;
+        stack[stackSize++] = ground;
+        while (stackSize > 0) {
+            int frame = stack[stackSize - 1];
+            if (cursors[frame] < system.getAdjacencyEnd(frame)) {
+                int index = cursors[frame]++;
+                int component = system.getAdjacentComponent(index);
+                int adjacent = system.getAdjacentFrame(index);
+                if (component == parentComponents[frame]) {
+                    continue;
+                }
+                if (preorders[adjacent] < 0) {
+                    preorders[adjacent] = reachedFrames;
+                    lowest[adjacent] = reachedFrames;
+                    parentComponents[adjacent] = component;
+                    cursors[adjacent] = system.getAdjacencyStart(adjacent);
+                    frameOrder[reachedFrames++] = adjacent;
+                    stack[stackSize++] = adjacent;
+                } else {
+                    lowest[frame] = Math.min(lowest[frame], preorders[adjacent]);
+                }
+            } else {
+                stackSize--;
+                lastPreorders[frame] = reachedFrames - 1;
+                if (frame != ground) {
+                    int parent = getParentFrame(frame, parentComponents[frame]);
+                    lowest[parent] = Math.min(lowest[parent], lowest[frame]);
+                    attachedSubtrees[frame] = lowest[frame] >= preorders[parent];
+                }
+            }
+        }
+
+        /*
+         * Sorts the components by the larger preorder number of their frames, so the
+         * components of the subassembly of a subtree are contiguous
+         */
+        int[] ownerOffsets = new int[reachedFrames + 1];
+        for (int component = 0; component < componentCount; component++) {
+            if (preorders[system.getSourceFrame(component)] >= 0) {
+                ownerOffsets[getOwner(component, preorders) + 1]++;
+            }
+        }
+        for (int preorder = 0; preorder < reachedFrames; preorder++) {
+            ownerOffsets[preorder + 1] += ownerOffsets[preorder];
+        }
+        int[] ownedComponents = new int[ownerOffsets[reachedFrames]];
+        int[] next = Arrays.copyOf(ownerOffsets, reachedFrames);
+        for (int component = 0; component < componentCount; component++) {
+            if (preorders[system.getSourceFrame(component)] >= 0) {
+                ownedComponents[next[getOwner(component, preorders)]++] = component;
+            }
+        }
+
+        /*
+         * Only the subassemblies sharing their size and their sum of type hashes with
+         * another subassembly can be copies, so only those have their wiring compared
+         */
+        long[] typeHashSums = new long[ownedComponents.length + 1];
+        for (int i = 0; i < ownedComponents.length; i++) {
+            typeHashSums[i + 1] = typeHashSums[i] + getTypeHash(ownedComponents[i]);
+        }
+        Map<Long, Integer> sizeCounts = new HashMap<Long, Integer>();
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (attachedSubtrees[frame]) {
+                Long key = getSizeKey(frame, preorders, lastPreorders, ownerOffsets, typeHashSums);
+                Integer count = sizeCounts.get(key);
+                sizeCounts.put(key, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+            }
+        }
+
+        int candidateCount = 0;
+        long[] candidates = new long[frameCount];
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (attachedSubtrees[frame]
+                    && sizeCounts.get(getSizeKey(frame, preorders, lastPreorders, ownerOffsets, typeHashSums)).intValue() > 1) {
+                int size = ownerOffsets[lastPreorders[frame] + 1] - ownerOffsets[preorders[frame]];
+                candidates[candidateCount++] = ((long) (componentCount - size) << 32) | preorders[frame];
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+
+        /*
+         * Compares the wiring of the candidates from the largest to the smallest. Once the
+         * candidates of a size are grouped, the subtrees of the groups with several copies
+         * are covered, and the candidates nested in them are not wired: they are solved
+         * with the copy containing them. The nested suffixes of repeated chains are
+         * therefore not compared one by one.
+         */
+        int[] frameGroups = new int[frameCount];
+        Arrays.fill(frameGroups, -1);
+        Map<Wiring, Integer> groups = new HashMap<Wiring, Integer>();
+        int[] groupSizes = new int[frameCount];
+        int[] localFrames = new int[frameCount];
+        Arrays.fill(localFrames, -1);
+        boolean[] covered = new boolean[reachedFrames];
+        for (int first = 0; first < candidateCount;) {
+            int last = first;
+            while (last < candidateCount && (candidates[last] >>> 32) == (candidates[first] >>> 32)) {
+                int frame = frameOrder[(int) candidates[last++]];
+                if (covered[preorders[frame]]) {
+                    continue;
+                }
+                int[] components = Arrays.copyOfRange(ownedComponents, ownerOffsets[preorders[frame]],
+                        ownerOffsets[lastPreorders[frame] + 1]);
+                Arrays.sort(components);
+                Wiring wiring = new Wiring(getWiring(getParentFrame(frame, parentComponents[frame]), components, localFrames));
+                Integer group = groups.get(wiring);
+                if (group == null) {
+                    group = Integer.valueOf(groups.size());
+                    groups.put(wiring, group);
+                }
+                frameGroups[frame] = group.intValue();
+                groupSizes[group.intValue()]++;
+            }
+            for (; first < last; first++) {
+                int frame = frameOrder[(int) candidates[first]];
+                if (frameGroups[frame] >= 0 && groupSizes[frameGroups[frame]] > 1) {
+                    Arrays.fill(covered, preorders[frame], lastPreorders[frame] + 1, true);
+                }
+            }
+        }
+
+        /*
+         * Keeps the outermost copies, in preorder, numbering the templates in the order of
+         * their first instance
+         */
+        int[] groupTemplates = new int[groups.size()];
+        Arrays.fill(groupTemplates, -1);
+        int[] instanceRoots = new int[frameCount];
+        int[] templates = new int[frameCount];
+        int instanceCount = 0;
+        int templateCount = 0;
+        int instanceComponentCount = 0;
+        int coveredPreorder = -1;
+        for (int preorder = 0; preorder < reachedFrames; preorder++) {
+            int frame = frameOrder[preorder];
+            if (preorder > coveredPreorder && frameGroups[frame] >= 0 && groupSizes[frameGroups[frame]] > 1) {
+                int group = frameGroups[frame];
+                if (groupTemplates[group] < 0) {
+                    groupTemplates[group] = templateCount;
+                    templates[templateCount++] = instanceCount;
+                }
+                instanceRoots[instanceCount++] = frame;
+                instanceComponentCount += ownerOffsets[lastPreorders[frame] + 1] - ownerOffsets[preorder];
+                coveredPreorder = lastPreorders[frame];
+            }
+        }
+
+        instanceAttachments = new int[instanceCount];
+        instanceTemplates = new int[instanceCount];
+        instanceOffsets = new int[instanceCount + 1];
+        instanceComponents = new int[instanceComponentCount];
+        templateInstances = Arrays.copyOf(templates, templateCount);
+        boolean[] inInstance = new boolean[componentCount];
+        for (int instance = 0; instance < instanceCount; instance++) {
+            int frame = instanceRoots[instance];
+            instanceAttachments[instance] = getParentFrame(frame, parentComponents[frame]);
+            instanceTemplates[instance] = groupTemplates[frameGroups[frame]];
+            int start = instanceOffsets[instance];
+            int end = start + ownerOffsets[lastPreorders[frame] + 1] - ownerOffsets[preorders[frame]];
+            System.arraycopy(ownedComponents, ownerOffsets[preorders[frame]], instanceComponents, start, end - start);
+            Arrays.sort(instanceComponents, start, end);
+            for (int i = start; i < end; i++) {
+                inInstance[instanceComponents[i]] = true;
+            }
+            instanceOffsets[instance + 1] = end;
+        }
+
+        coreComponents = new int[componentCount - instanceComponentCount];
+        int coreCount = 0;
+        for (int component = 0; component < componentCount; component++) {
+            if (!inInstance[component]) {
+                coreComponents[coreCount++] = component;
+            }
+        }
+    }
+
+    private int getParentFrame(int frame, int parentComponent) {
+        int source = system.getSourceFrame(parentComponent);
+        return source == frame ? system.getTargetFrame(parentComponent) : source;
+    }
+
+    /*
+     * Returns the larger preorder number of the frames of a component
+     */
+    private int getOwner(int component, int[] preorders) {
+        return Math.max(preorders[system.getSourceFrame(component)], preorders[system.getTargetFrame(component)]);
+    }
+
+    private long getTypeHash(int component) {
+        return (system.getComponentType(component).ordinal() + 1) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static Long getSizeKey(int frame, int[] preorders, int[] lastPreorders, int[] ownerOffsets, long[] typeHashSums) {
+        int start = ownerOffsets[preorders[frame]];
+        int end = ownerOffsets[lastPreorders[frame] + 1];
+        return Long.valueOf(31 * (typeHashSums[end] - typeHashSums[start]) + end - start);
+    }
+
+    /*
+     * Returns the type, source and target of each component, the frames being numbered
+     * in the order they are first used from the attachment frame. The local numbers are
+     * cleared before returning.
+     */
+    private int[] getWiring(int attachment, int[] components, int[] localFrames) {
+        int[] wiring = new int[3 * components.length];
+        localFrames[attachment] = 0;
+        int localCount = 1;
+        for (int i = 0; i < components.length; i++) {
+            int source = system.getSourceFrame(components[i]);
+            int target = system.getTargetFrame(components[i]);
+            if (localFrames[source] < 0) {
+                localFrames[source] = localCount++;
+            }
+            if (localFrames[target] < 0) {
+                localFrames[target] = localCount++;
+            }
+            wiring[3 * i] = system.getComponentType(components[i]).ordinal();
+            wiring[3 * i + 1] = localFrames[source];
+            wiring[3 * i + 2] = localFrames[target];
+        }
+        localFrames[attachment] = -1;
+        for (int component : components) {
+            localFrames[system.getSourceFrame(component)] = -1;
+            localFrames[system.getTargetFrame(component)] = -1;
+        }
+        return wiring;
+    }
+
+    /**
+     * @return the compact mechanical system that was searched
+     */
+    public CompactMechanicalSystem getSystem() {
+        return system;
+    }
+
+    /**
+     * @return the number of instances of repeated subassemblies
+     */
+    public int getInstanceCount() {
+        return instanceAttachments.length;
+    }
+
+    /**
+     * @return the number of distinct repeated subassemblies
+     */
+    public int getTemplateCount() {
+        return templateInstances.length;
+    }
+
+    /**
+     * @param instance is the number of the instance
+     * @return the id of the reference frame the instance is attached at
+     */
+    public int getAttachmentFrame(int instance) {
+        return instanceAttachments[instance];
+    }
+
+    /**
+     * @param instance is the number of the instance
+     * @return the number of the template the instance is a copy of
+     */
+    public int getTemplate(int instance) {
+        return instanceTemplates[instance];
+    }
+
+    /**
+     * @param instance is the number of the instance
+     * @return the ids of the components of the instance, in increasing order: the
+     *         component at index i stands for the component i of the template's system
+     */
+    public int[] getComponents(int instance) {
+        return Arrays.copyOfRange(instanceComponents, instanceOffsets[instance], instanceOffsets[instance + 1]);
+    }
+
+    /**
+     * @return the ids of the components that are not in an instance, in increasing order
+     */
+    public int[] getCoreComponents() {
+        return coreComponents.clone();
+    }
+
+    /**
+     * Builds a compact mechanical system made of every reference frame of the system,
+     * with the same ids, and of the components of the core. The component at index i of
+     * {@link #getCoreComponents()} has the id i. The frames of the instances are not
+     * related to the ground in this system.
+     *
+     * @return the compact mechanical system of the core
+     */
+    public CompactMechanicalSystem extractCore() {
+        int frameCount = system.getFrameCount();
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(system.getFrameName(system.getGround()),
+                frameCount, coreComponents.length);
+        for (int frame = 1; frame < frameCount; frame++) {
+            builder.addFrame(system.getFrameName(frame));
+        }
+        for (int component : coreComponents) {
+            builder.addComponent(system.getComponentName(component), system.getSourceFrame(component),
+                    system.getTargetFrame(component), system.getComponentType(component));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the compact mechanical system of a template from its first instance. The
+     * attachment frame is the ground of the template's system, the other frames are
+     * numbered in the order they are first used and the component i of the template is
+     * the component at index i of {@link #getComponents(int)} for every instance of the
+     * template.
+     *
+     * @param template is the number of the template
+     * @return the compact mechanical system of the template
+     */
+    public CompactMechanicalSystem extractTemplate(int template) {
+        int instance = templateInstances[template];
+        int start = instanceOffsets[instance];
+        int end = instanceOffsets[instance + 1];
+        int attachment = instanceAttachments[instance];
+
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(system.getFrameName(attachment),
+                end - start + 1, end - start);
+        Map<Integer, Integer> localFrames = new HashMap<Integer, Integer>();
+        localFrames.put(Integer.valueOf(attachment), Integer.valueOf(0));
+        for (int i = start; i < end; i++) {
+            int component = instanceComponents[i];
+            builder.addComponent(system.getComponentName(component), getLocalFrame(system.getSourceFrame(component), localFrames, builder),
+                    getLocalFrame(system.getTargetFrame(component), localFrames, builder), system.getComponentType(component));
+        }
+        return builder.build();
+    }
+
+    private int getLocalFrame(int frame, Map<Integer, Integer> localFrames, CompactMechanicalSystem.Builder builder) {
+        Integer localFrame = localFrames.get(Integer.valueOf(frame));
+        if (localFrame == null) {
+            localFrame = Integer.valueOf(builder.addFrame(system.getFrameName(frame)));
+            localFrames.put(Integer.valueOf(frame), localFrame);
+        }
+        return localFrame.intValue();
+    }
+
+    @Override
+    public String toString() {
+        return "SubassemblyDetection[Templates: " + templateInstances.length + ", Instances: " + instanceAttachments.length
+                + ", Core components: " + coreComponents.length + "]";
+    }
+
+    /*
+     * The wiring of a subassembly as a key of the templates
+     */
+    private static final class Wiring {
+
+        private final int[] values;
+        private final int hashCode;
+
+        Wiring(int[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Wiring && Arrays.equals(values, ((Wiring) object).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
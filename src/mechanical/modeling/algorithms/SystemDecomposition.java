@@ -0,0 +1,244 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+
+/**
+ * This class splits a compact mechanical system into pieces that can be
+ * solved independently. A piece is a connected group of reference frames
+ * once the ground is removed, with the components linking them and the
+ * components linking them to the ground.
+ *
+ * <p>
+ * Every path from the ground to a frame of a piece stays within the piece,
+ * so the shortest paths tree of the system is the union of the trees of its
+ * pieces, each rooted at the ground. A piece without any component linked to
+ * the ground is detached: its frames cannot be related to the ground and no
+ * variable can be selected for them.
+ * </p>
+ *
+ * <p>
+ * The pieces are numbered in the order of their smallest frame id. Components
+ * linking the ground to itself belong to no piece.
+ * </p>
+ */
+public final class SystemDecomposition {
+
+    private final CompactMechanicalSystem system;
+    private final int[] framePieces;
+    private final int[] frameOffsets;
+    private final int[] frames;
+    private final int[] componentOffsets;
+    private final int[] components;
+    private final boolean[] attached;
+
+    /**
+     * Splits the system into pieces.
+     *
+     * @param system is the compact mechanical system
+     */
+    public SystemDecomposition(CompactMechanicalSystem system) {
+        this.system = system;
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+        int ground = system.getGround();
+
+        int[] roots = new int[frameCount];
+        for (int frame = 0; frame < frameCount; frame++) {
+            roots[frame] = frame;
+        }
+        for (int component = 0; component < componentCount; component++) {
+            int source = system.getSourceFrame(component);
+            int target = system.getTargetFrame(component);
+            if (source != ground && target != ground) {
+                int sourceRoot = findRoot(roots, source);
+                int targetRoot = findRoot(roots, target);
+                if (sourceRoot != targetRoot) {
+                    roots[Math.max(sourceRoot, targetRoot)] = Math.min(sourceRoot, targetRoot);
+                }
+            }
+        }
+
+        /*
+         * The root of each group is its smallest frame id, so numbering the roots in
+         * increasing order numbers the pieces in the order of their smallest frame.
+         */
+        framePieces = new int[frameCount];
+        int pieceCount = 0;
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (frame == ground) {
+                framePieces[frame] = -1;
+            } else if (findRoot(roots, frame) == frame) {
+                framePieces[frame] = pieceCount++;
+            } else {
+                framePieces[frame] = framePieces[findRoot(roots, frame)];
+            }
+        }
+
+        attached = new boolean[pieceCount];
+        frameOffsets = new int[pieceCount + 1];
+        componentOffsets = new int[pieceCount + 1];
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (frame != ground) {
+                frameOffsets[framePieces[frame] + 1]++;
+            }
+        }
+        for (int component = 0; component < componentCount; component++) {
+            int piece = getComponentPiece(component);
+            if (piece >= 0) {
+                componentOffsets[piece + 1]++;
+                if (system.getSourceFrame(component) == ground || system.getTargetFrame(component) == ground) {
+                    attached[piece] = true;
+                }
+            }
+        }
+        for (int piece = 0; piece < pieceCount; piece++) {
+            frameOffsets[piece + 1] += frameOffsets[piece];
+            componentOffsets[piece + 1] += componentOffsets[piece];
+        }
+
+        frames = new int[frameOffsets[pieceCount]];
+        int[] next = Arrays.copyOf(frameOffsets, pieceCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (frame != ground) {
+                frames[next[framePieces[frame]]++] = frame;
+            }
+        }
+        components = new int[componentOffsets[pieceCount]];
+        next = Arrays.copyOf(componentOffsets, pieceCount);
+        for (int component = 0; component < componentCount; component++) {
+            int piece = getComponentPiece(component);
+            if (piece >= 0) {
+                components[next[piece]++] = component;
+            }
+        }
+    }
+
+    private static int findRoot(int[] roots, int frame) {
+        while (roots[frame] != frame) {
+            roots[frame] = roots[roots[frame]];
+            frame = roots[frame];
+        }
+        return frame;
+    }
+
+    /**
+     * @return the compact mechanical system that was split
+     */
+    public CompactMechanicalSystem getSystem() {
+        return system;
+    }
+
+    /**
+     * @return the number of pieces
+     */
+    public int getPieceCount() {
+        return attached.length;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the piece of the reference frame, or -1 for the ground
+     */
+    public int getFramePiece(int frame) {
+        return framePieces[frame];
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the piece of the component, or -1 if it links the ground to itself
+     */
+    public int getComponentPiece(int component) {
+        int source = system.getSourceFrame(component);
+        return source == system.getGround() ? framePieces[system.getTargetFrame(component)] : framePieces[source];
+    }
+
+    /**
+     * @param piece is the number of the piece
+     * @return true if a component of the piece is linked to the ground
+     */
+    public boolean isAttached(int piece) {
+        return attached[piece];
+    }
+
+    /**
+     * @return the numbers of the pieces that are not linked to the ground
+     */
+    public int[] getDetachedPieces() {
+        int count = 0;
+        for (boolean pieceAttached : attached) {
+            if (!pieceAttached) {
+                count++;
+            }
+        }
+        int[] detached = new int[count];
+        count = 0;
+        for (int piece = 0; piece < attached.length; piece++) {
+            if (!attached[piece]) {
+                detached[count++] = piece;
+            }
+        }
+        return detached;
+    }
+
+    /**
+     * @param piece is the number of the piece
+     * @return the ids of the reference frames of the piece, in increasing order
+     */
+    public int[] getFrames(int piece) {
+        return Arrays.copyOfRange(frames, frameOffsets[piece], frameOffsets[piece + 1]);
+    }
+
+    /**
+     * @param piece is the number of the piece
+     * @return the ids of the components of the piece, in increasing order
+     */
+    public int[] getComponents(int piece) {
+        return Arrays.copyOfRange(components, componentOffsets[piece], componentOffsets[piece + 1]);
+    }
+
+    /**
+     * Builds a compact mechanical system made of the ground and of a piece. The frames
+     * and components of the piece keep their order: the frame at index i of
+     * {@link #getFrames(int)} has the id i + 1 in the piece's system, and the component
+     * at index i of {@link #getComponents(int)} has the id i.
+     *
+     * @param piece is the number of the piece
+     * @return the compact mechanical system of the piece
+     */
+    public CompactMechanicalSystem extract(int piece) {
+        int frameStart = frameOffsets[piece];
+        int frameEnd = frameOffsets[piece + 1];
+        int componentStart = componentOffsets[piece];
+        int componentEnd = componentOffsets[piece + 1];
+
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(system.getFrameName(system.getGround()),
+                frameEnd - frameStart + 1, componentEnd - componentStart);
+        for (int i = frameStart; i < frameEnd; i++) {
+            builder.addFrame(system.getFrameName(frames[i]));
+        }
+        for (int i = componentStart; i < componentEnd; i++) {
+            int component = components[i];
+            builder.addComponent(system.getComponentName(component), getPieceFrameId(system.getSourceFrame(component), frameStart, frameEnd),
+                    getPieceFrameId(system.getTargetFrame(component), frameStart, frameEnd), system.getComponentType(component));
+        }
+        return builder.build();
+    }
+
+    /*
+     * Returns the id of a frame in the system of its piece, the frames of the piece
+     * being sorted between the start and end indexes
+     */
+    private int getPieceFrameId(int frame, int frameStart, int frameEnd) {
+        if (frame == system.getGround()) {
+            return 0;
+        }
+        return Arrays.binarySearch(frames, frameStart, frameEnd, frame) - frameStart + 1;
+    }
+
+    @Override
+    public String toString() {
+        return "SystemDecomposition[Pieces: " + attached.length + ", Detached: " + getDetachedPieces().length + "]";
+    }
+}
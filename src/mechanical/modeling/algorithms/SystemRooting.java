@@ -0,0 +1,101 @@
+package mechanical.modeling.algorithms;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+
+/**
+ * This class changes the root of the trees of a compact mechanical system,
+ * which is always its ground reference frame.
+ *
+ * <p>
+ * A system fixed to several anchors is rooted at a virtual super-root: each
+ * anchor is linked to the ground by an {@link ComponentType#ARM}, which has
+ * no modeling variable, so every anchor is at distance 0 from the ground. A
+ * floating base system can be rooted at any of its frames, the chosen frame
+ * becoming the ground.
+ * </p>
+ */
+public final class SystemRooting {
+
+    /** The prefix of the names of the components linking the anchors to the ground */
+    public static final String ANCHOR_PREFIX = "anchor_";
+
+    /*
+     * This class contains only static utility methods. Therefore the constructor is private
+     * so that nobody can instantiate it.
+     */
+    private SystemRooting() {
+    }
+
+    /**
+     * Creates a copy of a system in which each anchor is fixed to the ground. The frames
+     * and components keep their ids; the component fixing the anchor at index i is given
+     * the id {@link CompactMechanicalSystem#getComponentCount()} + i and the name of the
+     * anchor prefixed by {@link #ANCHOR_PREFIX}.
+     *
+     * @param system is the compact mechanical system
+     * @param anchors are the ids of the reference frames fixed to the ground
+     * @return the system with its anchors fixed to the ground
+     *
+     * @throws IllegalArgumentException if an anchor is not a reference frame of the system.
+     */
+    public static CompactMechanicalSystem anchor(CompactMechanicalSystem system, int[] anchors) {
+        for (int anchor : anchors) {
+            checkFrame(system, anchor);
+        }
+
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(system.getFrameName(system.getGround()),
+                system.getFrameCount(), system.getComponentCount() + anchors.length);
+        for (int frame = 1; frame < system.getFrameCount(); frame++) {
+            builder.addFrame(system.getFrameName(frame));
+        }
+        for (int component = 0; component < system.getComponentCount(); component++) {
+            builder.addComponent(system.getComponentName(component), system.getSourceFrame(component),
+                    system.getTargetFrame(component), system.getComponentType(component));
+        }
+        for (int anchor : anchors) {
+            builder.addComponent(ANCHOR_PREFIX + system.getFrameName(anchor), system.getGround(), anchor, ComponentType.ARM);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a copy of a system whose ground is the given reference frame. The ids of the
+     * ground and of the new root are swapped; every other frame and every component keeps
+     * its id. Rerooting the copy at the same id gives back the original ids.
+     *
+     * @param system is the compact mechanical system
+     * @param root is the id of the reference frame that becomes the ground
+     * @return the system rooted at the given frame
+     *
+     * @throws IllegalArgumentException if the root is not a reference frame of the system.
+     */
+    public static CompactMechanicalSystem reroot(CompactMechanicalSystem system, int root) {
+        checkFrame(system, root);
+        int ground = system.getGround();
+
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(system.getFrameName(root),
+                system.getFrameCount(), system.getComponentCount());
+        for (int frame = 1; frame < system.getFrameCount(); frame++) {
+            builder.addFrame(system.getFrameName(swap(frame, ground, root)));
+        }
+        for (int component = 0; component < system.getComponentCount(); component++) {
+            builder.addComponent(system.getComponentName(component), swap(system.getSourceFrame(component), ground, root),
+                    swap(system.getTargetFrame(component), ground, root), system.getComponentType(component));
+        }
+        return builder.build();
+    }
+
+    private static int swap(int frame, int ground, int root) {
+        if (frame == ground) {
+            return root;
+        }
+        return frame == root ? ground : frame;
+    }
+
+    private static void checkFrame(CompactMechanicalSystem system, int frame) {
+        if (frame < 0 || frame >= system.getFrameCount()) {
+            throw new IllegalArgumentException("There is no reference frame " + frame);
+        }
+    }
+}
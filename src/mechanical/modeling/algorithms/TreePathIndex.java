@@ -0,0 +1,325 @@
+package mechanical.modeling.algorithms;
+
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class answers queries on the paths between the reference frames in
+ * the tree of a selection, in one domain: which tree components and which
+ * selected variables relate one frame to another, and which frame is their
+ * closest common ancestor.
+ *
+ * <p>
+ * The tree is numbered once: the parent, depth and number of variables from
+ * the ground of each frame, the preorder interval of its subtree and its
+ * heavy path, the path following the child with the largest subtree. Testing
+ * whether a frame is an ancestor of another takes constant time with the
+ * preorder intervals, and the common ancestor of two frames is found by
+ * climbing at most a logarithmic number of heavy paths. The lengths and
+ * numbers of variables of the paths then take constant time, and the paths
+ * are written into arrays given by the caller, so no query allocates
+ * memory.
+ * </p>
+ *
+ * <p>
+ * The index is immutable and can be queried by several threads at once.
+ * </p>
+ */
+public final class TreePathIndex {
+
+    private final VariableSelection selection;
+    private final Domain domain;
+    private final int[] parentFrames;
+    private final int[] parentComponents;
+    private final int[] depths;
+    private final int[] variableDepths;
+    private final int[] preorders;
+    private final int[] subtreeSizes;
+    private final int[] heads;
+    private final int[] variableStarts;
+
+    /**
+     * Builds the index of the tree of a selection.
+     *
+     * @param selection is the selection whose tree is indexed
+     * @param domain is the domain of the tree
+     */
+    public TreePathIndex(VariableSelection selection, Domain domain) {
+        this.selection = selection;
+        this.domain = domain;
+        CompactMechanicalSystem system = selection.getSystem();
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+
+        int[] treeComponents = selection.getTreeComponents(domain);
+        boolean[] inTree = new boolean[componentCount];
+        variableStarts = new int[componentCount];
+        Arrays.fill(variableStarts, -1);
+        int variable = domain.equals(Domain.ROTATIONAL) ? 0 : selection.getVariableCount(Domain.ROTATIONAL);
+        for (int component : treeComponents) {
+            inTree[component] = true;
+            variableStarts[component] = variable;
+            variable += system.getNumberOfVariables(component, domain);
+        }
+
+        /*
+         * Breadth first traversal of the tree from the ground, giving the parent and depth
+         * of each frame related to the ground, parents before children
+         */
+        parentFrames = new int[frameCount];
+        parentComponents = new int[frameCount];
+        depths = new int[frameCount];
+        variableDepths = new int[frameCount];
+        Arrays.fill(parentFrames, -1);
+        Arrays.fill(parentComponents, -1);
+        Arrays.fill(depths, -1);
+        int[] frameOrder = new int[frameCount];
+        int reachedFrames = 0;
+        int ground = system.getGround();
+        depths[ground] = 0;
+        frameOrder[reachedFrames++] = ground;
+        for (int next = 0; next < reachedFrames; next++) {
+            int frame = frameOrder[next];
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int adjacent = system.getAdjacentFrame(index);
+                int component = system.getAdjacentComponent(index);
+                if (inTree[component] && depths[adjacent] < 0) {
+                    depths[adjacent] = depths[frame] + 1;
+                    variableDepths[adjacent] = variableDepths[frame] + system.getNumberOfVariables(component, domain);
+                    parentFrames[adjacent] = frame;
+                    parentComponents[adjacent] = component;
+                    frameOrder[reachedFrames++] = adjacent;
+                }
+            }
+        }
+
+        /*
+         * The subtree sizes are summed children first, then each frame is given the
+         * preorder number following the subtrees of its previous siblings
+         */
+        subtreeSizes = new int[frameCount];
+        int[] heavyChildren = new int[frameCount];
+        Arrays.fill(heavyChildren, -1);
+        for (int next = reachedFrames - 1; next >= 0; next--) {
+            int frame = frameOrder[next];
+            subtreeSizes[frame]++;
+            if (frame != ground) {
+                int parent = parentFrames[frame];
+                subtreeSizes[parent] += subtreeSizes[frame];
+                if (heavyChildren[parent] < 0 || subtreeSizes[frame] > subtreeSizes[heavyChildren[parent]]) {
+                    heavyChildren[parent] = frame;
+                }
+            }
+        }
+
+        preorders = new int[frameCount];
+        heads = new int[frameCount];
+        Arrays.fill(preorders, -1);
+        int[] nextPreorders = new int[frameCount];
+        preorders[ground] = 0;
+        nextPreorders[ground] = 1;
+        heads[ground] = ground;
+        for (int next = 1; next < reachedFrames; next++) {
+            int frame = frameOrder[next];
+            int parent = parentFrames[frame];
+            preorders[frame] = nextPreorders[parent];
+            nextPreorders[parent] += subtreeSizes[frame];
+            nextPreorders[frame] = preorders[frame] + 1;
+            heads[frame] = heavyChildren[parent] == frame ? heads[parent] : frame;
+        }
+    }
+
+    private void checkRelated(int frame) {
+        if (depths[frame] < 0) {
+            throw new IllegalArgumentException("The reference frame " + frame + " is not related to the ground");
+        }
+    }
+
+    /**
+     * @return the selection whose tree is indexed
+     */
+    public VariableSelection getSelection() {
+        return selection;
+    }
+
+    /**
+     * @return the domain of the indexed tree
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return true if the frame is related to the ground by the tree
+     */
+    public boolean isRelated(int frame) {
+        return depths[frame] >= 0;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the number of tree components between the ground and the frame, or -1
+     *         if the frame is not related to the ground
+     */
+    public int getDepth(int frame) {
+        return depths[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the frame's parent in the tree, or -1 for the ground and the
+     *         frames not related to the ground
+     */
+    public int getParentFrame(int frame) {
+        return parentFrames[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the id of the tree component relating the frame to its parent, or -1 for
+     *         the ground and the frames not related to the ground
+     */
+    public int getParentComponent(int frame) {
+        return parentComponents[frame];
+    }
+
+    /**
+     * @param ancestor is the id of the possible ancestor
+     * @param frame is the id of the reference frame
+     * @return true if the ancestor is on the tree path between the ground and the frame,
+     *         the frame included
+     */
+    public boolean isAncestor(int ancestor, int frame) {
+        return depths[ancestor] >= 0 && depths[frame] >= 0 && preorders[ancestor] <= preorders[frame]
+                && preorders[frame] < preorders[ancestor] + subtreeSizes[ancestor];
+    }
+
+    /**
+     * @param first is the id of a reference frame
+     * @param second is the id of another reference frame
+     * @return the id of the deepest frame that is an ancestor of both frames, or -1 if
+     *         one of the frames is not related to the ground
+     */
+    public int getCommonAncestor(int first, int second) {
+        if (depths[first] < 0 || depths[second] < 0) {
+            return -1;
+        }
+        if (isAncestor(first, second)) {
+            return first;
+        }
+        if (isAncestor(second, first)) {
+            return second;
+        }
+        while (heads[first] != heads[second]) {
+            if (depths[heads[first]] > depths[heads[second]]) {
+                first = parentFrames[heads[first]];
+            } else {
+                second = parentFrames[heads[second]];
+            }
+        }
+        return depths[first] < depths[second] ? first : second;
+    }
+
+    /**
+     * @param source is the id of the reference frame the path starts at
+     * @param target is the id of the reference frame the path ends at
+     * @return the number of tree components on the path between the frames
+     *
+     * @throws IllegalArgumentException if a frame is not related to the ground.
+     */
+    public int getPathLength(int source, int target) {
+        checkRelated(source);
+        checkRelated(target);
+        return depths[source] + depths[target] - 2 * depths[getCommonAncestor(source, target)];
+    }
+
+    /**
+     * @param source is the id of the reference frame the path starts at
+     * @param target is the id of the reference frame the path ends at
+     * @return the number of selected variables of the components on the path between
+     *         the frames
+     *
+     * @throws IllegalArgumentException if a frame is not related to the ground.
+     */
+    public int getPathVariableCount(int source, int target) {
+        checkRelated(source);
+        checkRelated(target);
+        return variableDepths[source] + variableDepths[target] - 2 * variableDepths[getCommonAncestor(source, target)];
+    }
+
+    /**
+     * Writes the tree components relating the source frame to the target frame, from
+     * the source up to the common ancestor, then down to the target.
+     *
+     * @param source is the id of the reference frame the path starts at
+     * @param target is the id of the reference frame the path ends at
+     * @param components receives the ids of the components, from index 0
+     * @return the number of components written
+     *
+     * @throws IllegalArgumentException if a frame is not related to the ground or the
+     *         array is too short.
+     */
+    public int getPath(int source, int target, int[] components) {
+        int length = getPathLength(source, target);
+        if (components.length < length) {
+            throw new IllegalArgumentException("The components array is too short");
+        }
+        int ancestor = getCommonAncestor(source, target);
+        int index = 0;
+        for (int frame = source; frame != ancestor; frame = parentFrames[frame]) {
+            components[index++] = parentComponents[frame];
+        }
+        index = length;
+        for (int frame = target; frame != ancestor; frame = parentFrames[frame]) {
+            components[--index] = parentComponents[frame];
+        }
+        return length;
+    }
+
+    /**
+     * Writes the selected variables relating the source frame to the target frame, in
+     * the order of the components of {@link #getPath(int, int, int[])} and, for each
+     * component, in the order of its variables.
+     *
+     * @param source is the id of the reference frame the path starts at
+     * @param target is the id of the reference frame the path ends at
+     * @param variables receives the numbers of the variables in the selection, from index 0
+     * @return the number of variables written
+     *
+     * @throws IllegalArgumentException if a frame is not related to the ground or the
+     *         array is too short.
+     */
+    public int getPathVariables(int source, int target, int[] variables) {
+        int count = getPathVariableCount(source, target);
+        if (variables.length < count) {
+            throw new IllegalArgumentException("The variables array is too short");
+        }
+        int ancestor = getCommonAncestor(source, target);
+        int index = 0;
+        for (int frame = source; frame != ancestor; frame = parentFrames[frame]) {
+            int start = variableStarts[parentComponents[frame]];
+            int end = start + variableDepths[frame] - variableDepths[parentFrames[frame]];
+            for (int variable = start; variable < end; variable++) {
+                variables[index++] = variable;
+            }
+        }
+        index = count;
+        for (int frame = target; frame != ancestor; frame = parentFrames[frame]) {
+            int start = variableStarts[parentComponents[frame]];
+            int variableCount = variableDepths[frame] - variableDepths[parentFrames[frame]];
+            index -= variableCount;
+            for (int i = 0; i < variableCount; i++) {
+                variables[index + i] = start + i;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "TreePathIndex[Domain: " + domain + ", Tree components: " + selection.getTreeSize(domain) + "]";
+    }
+}
@@ -0,0 +1,53 @@
+package mechanical.modeling.algorithms;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.Domain;
+
+/**
+ * Enumerates the searches that can find the tree of each domain of a compact
+ * mechanical system. The binary heap, bucket queue and reduced graph searches
+ * find shortest paths trees, with the same distance between each reference
+ * frame and the ground. The minimum variables search finds the tree with the fewest
+ * variables in total, whose paths to the ground can be longer. Every search
+ * checks the deadline of the selection regularly.
+ */
+public enum TreeSearch {
+    /** Dijkstra's algorithm with a binary heap, see {@link CompactShortestPathsTree}. Supports any non-negative weight. */
+    BINARY_HEAP {
+        @Override
+        int[] findTreeComponents(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+            return new CompactShortestPathsTree(system, domain, edgeWeight, deadline).getTreeComponents();
+        }
+    },
+    /** Dial's algorithm with buckets, see {@link BucketShortestPathsTree}. Supports small integer weights. */
+    BUCKET_QUEUE {
+        @Override
+        int[] findTreeComponents(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+            return new BucketShortestPathsTree(system, domain, edgeWeight, deadline).getTreeComponents();
+        }
+    },
+    /** Kruskal's algorithm, see {@link MinimumVariablesTree}. Supports any non-negative weight. */
+    MINIMUM_VARIABLES {
+        @Override
+        int[] findTreeComponents(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+            return new MinimumVariablesTree(system, domain, edgeWeight, deadline).getTreeComponents();
+        }
+    },
+    /**
+     * Dijkstra's algorithm with a binary heap, run on the graph reduced by {@link GraphReduction}.
+     * Supports any non-negative weight.
+     */
+    REDUCED_GRAPH {
+        @Override
+        int[] findTreeComponents(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline) {
+            deadline.check();
+            GraphReduction reduction = new GraphReduction(system, domain, edgeWeight);
+            return reduction.expand(new CompactShortestPathsTree(reduction.getReducedSystem(), domain, edgeWeight, deadline).getTreeComponents());
+        }
+    };
+
+    /*
+     * Finds the tree of a domain, checking the deadline regularly during the search
+     */
+    abstract int[] findTreeComponents(CompactMechanicalSystem system, Domain domain, EdgeWeight edgeWeight, SelectionDeadline deadline);
+}
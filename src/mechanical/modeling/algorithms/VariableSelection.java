@@ -0,0 +1,213 @@
+package mechanical.modeling.algorithms;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class holds the modeling variables selected for a compact mechanical
+ * system. Each variable is a handle made of the id of its component, its
+ * domain and its index among the component's variables in that domain; its
+ * name is only built when it is requested.
+ *
+ * <p>
+ * The variables are numbered from 0 to {@link #getVariableCount()}, the
+ * rotational variables first and then the translational variables, in the
+ * same order as the set returned by
+ * {@link OptimalModelingVariables#findVariables(CompactMechanicalSystem)}.
+ * </p>
+ */
+public final class VariableSelection {
+
+    private final CompactMechanicalSystem system;
+    private final int[] rotationalTree;
+    private final int[] translationalTree;
+    private final int[] variableComponents;
+    private final byte[] variableIndexes;
+    private final int rotationalCount;
+    private volatile TreePathIndex rotationalIndex;
+    private volatile TreePathIndex translationalIndex;
+
+    /**
+     * Creates the selection made of every variable of the tree components of
+     * each domain.
+     *
+     * @param system is the compact mechanical system
+     * @param rotationalTree are the ids of the components of the rotational tree
+     * @param translationalTree are the ids of the components of the translational tree
+     */
+    VariableSelection(CompactMechanicalSystem system, int[] rotationalTree, int[] translationalTree) {
+        this.system = system;
+        this.rotationalTree = rotationalTree;
+        this.translationalTree = translationalTree;
+
+        int rotationalVariables = countVariables(system, rotationalTree, Domain.ROTATIONAL);
+        int translationalVariables = countVariables(system, translationalTree, Domain.TRANSLATIONAL);
+        this.rotationalCount = rotationalVariables;
+        this.variableComponents = new int[rotationalVariables + translationalVariables];
+        this.variableIndexes = new byte[variableComponents.length];
+
+        int variable = addVariables(system, rotationalTree, Domain.ROTATIONAL, 0);
+        addVariables(system, translationalTree, Domain.TRANSLATIONAL, variable);
+    }
+
+    private static int countVariables(CompactMechanicalSystem system, int[] tree, Domain domain) {
+        int count = 0;
+        for (int component : tree) {
+            count += system.getNumberOfVariables(component, domain);
+        }
+        return count;
+    }
+
+    private int addVariables(CompactMechanicalSystem system, int[] tree, Domain domain, int variable) {
+        for (int component : tree) {
+            int numberOfVariables = system.getNumberOfVariables(component, domain);
+            for (int index = 0; index < numberOfVariables; index++) {
+                variableComponents[variable] = component;
+                variableIndexes[variable] = (byte) index;
+                variable++;
+            }
+        }
+        return variable;
+    }
+
+    /**
+     * @return the compact mechanical system the variables were selected for
+     */
+    public CompactMechanicalSystem getSystem() {
+        return system;
+    }
+
+    /**
+     * @param domain is the domain of the tree
+     * @return the ids of the components of the tree of the given domain,
+     *         parents before children
+     */
+    public int[] getTreeComponents(Domain domain) {
+        if (domain.equals(Domain.ROTATIONAL)) {
+            return rotationalTree.clone();
+        }
+        return translationalTree.clone();
+    }
+
+    /**
+     * @param domain is the domain of the tree
+     * @return the number of components of the tree of the given domain
+     */
+    public int getTreeSize(Domain domain) {
+        if (domain.equals(Domain.ROTATIONAL)) {
+            return rotationalTree.length;
+        }
+        return translationalTree.length;
+    }
+
+    /**
+     * Finds the components left out of the tree of a domain and the kinematic loops
+     * they close, which give the loop closure constraints between the selected
+     * variables.
+     *
+     * @param domain is the domain of the tree
+     * @return the cotree and fundamental cycles of the tree of the given domain
+     */
+    public KinematicLoops getLoops(Domain domain) {
+        return new KinematicLoops(this, domain);
+    }
+
+    /**
+     * Gives the index answering the path queries on the tree of a domain. The index is
+     * built on the first call and kept for the following calls, so calling this method
+     * once per domain right after the selection builds the indexes before the first
+     * path query needs them.
+     *
+     * @param domain is the domain of the tree
+     * @return the path index of the tree of the given domain
+     */
+    public TreePathIndex getPathIndex(Domain domain) {
+        if (domain.equals(Domain.ROTATIONAL)) {
+            if (rotationalIndex == null) {
+                rotationalIndex = new TreePathIndex(this, domain);
+            }
+            return rotationalIndex;
+        }
+        if (translationalIndex == null) {
+            translationalIndex = new TreePathIndex(this, domain);
+        }
+        return translationalIndex;
+    }
+
+    /**
+     * @return the number of selected variables
+     */
+    public int getVariableCount() {
+        return variableComponents.length;
+    }
+
+    /**
+     * @param domain is the domain of the variables
+     * @return the number of selected variables in the given domain
+     */
+    public int getVariableCount(Domain domain) {
+        if (domain.equals(Domain.ROTATIONAL)) {
+            return rotationalCount;
+        }
+        return variableComponents.length - rotationalCount;
+    }
+
+    /**
+     * @param variable is the number of the variable
+     * @return the id of the component the variable belongs to
+     */
+    public int getComponent(int variable) {
+        return variableComponents[variable];
+    }
+
+    /**
+     * @param variable is the number of the variable
+     * @return the domain of the variable
+     */
+    public Domain getDomain(int variable) {
+        if (variable < 0 || variable >= variableComponents.length) {
+            throw new IndexOutOfBoundsException("There is no variable " + variable);
+        }
+        return variable < rotationalCount ? Domain.ROTATIONAL : Domain.TRANSLATIONAL;
+    }
+
+    /**
+     * @param variable is the number of the variable
+     * @return the index of the variable among the variables of its component
+     *         in its domain
+     */
+    public int getVariableIndex(int variable) {
+        return variableIndexes[variable];
+    }
+
+    /**
+     * Builds the name of a variable, which is the name of the component type's
+     * variable appended with an underscore and the component name.
+     *
+     * @param variable is the number of the variable
+     * @return the name of the variable
+     */
+    public String getVariableName(int variable) {
+        return system.getVariable(variableComponents[variable], getDomain(variable), variableIndexes[variable]);
+    }
+
+    /**
+     * @return the names of all the selected variables, in order
+     */
+    public Set<String> getVariableNames() {
+        Set<String> variables = new LinkedHashSet<String>();
+        for (int variable = 0; variable < variableComponents.length; variable++) {
+            variables.add(getVariableName(variable));
+        }
+        return variables;
+    }
+
+    @Override
+    public String toString() {
+        return "VariableSelection[Rotational: " + rotationalCount + ", Translational: "
+                + (variableComponents.length - rotationalCount) + "]";
+    }
+}
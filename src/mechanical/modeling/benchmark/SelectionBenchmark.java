@@ -0,0 +1,212 @@
+package mechanical.modeling.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Set;
+
+import mechanical.modeling.algorithms.OptimalModelingVariables;
+import mechanical.modeling.algorithms.TreeSearch;
+import mechanical.modeling.benchmark.SyntheticSystems.Topology;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.MechanicalSystem;
+
+/**
+ * This class contains the main method of the coordinate selection benchmark.
+ * For each topology and size, it measures the cost of constructing the
+ * mechanical system and its compact form, then the throughput, latency
+ * percentiles and allocation rate of each selection engine.
+ *
+ * <p>
+ * Usage: SelectionBenchmark [sizes...], for example
+ * <code>SelectionBenchmark 10 1000 100000 1000000</code>. The number of
+ * iterations of each measurement is scaled down for large systems.
+ * </p>
+ *
+ * <p>
+ * The allocation rate is read from the HotSpot thread MXBean and is reported
+ * as unavailable on other virtual machines.
+ * </p>
+ */
+public final class SelectionBenchmark {
+
+    /**
+     * Enumerates the coordinate selection engines being compared. New engines
+     * are benchmarked by adding a constant to this enum.
+     */
+    public enum Engine {
+        /** The shortest paths to node algorithm of the graph library, run on the object graphs */
+        OBJECT_GRAPH {
+            @Override
+            Set<String> select(MechanicalSystem system, CompactMechanicalSystem compactSystem) {
+                return OptimalModelingVariables.findVariables(system);
+            }
+        },
+        /** The Dijkstra search run on the arrays of the compact system */
+        COMPACT {
+            @Override
+            Set<String> select(MechanicalSystem system, CompactMechanicalSystem compactSystem) {
+                return OptimalModelingVariables.findVariables(compactSystem);
+            }
+        },
+        /** The bucket queue search run on the arrays of the compact system */
+        BUCKET_QUEUE {
+            @Override
+            Set<String> select(MechanicalSystem system, CompactMechanicalSystem compactSystem) {
+                return OptimalModelingVariables.findVariables(compactSystem, TreeSearch.BUCKET_QUEUE);
+            }
+        },
+        /** The minimum spanning tree search run on the arrays of the compact system */
+        MINIMUM_VARIABLES {
+            @Override
+            Set<String> select(MechanicalSystem system, CompactMechanicalSystem compactSystem) {
+                return OptimalModelingVariables.findVariables(compactSystem, TreeSearch.MINIMUM_VARIABLES);
+            }
+        },
+        /** The Dijkstra search run on the graphs reduced by contracting the edges without variables */
+        REDUCED_GRAPH {
+            @Override
+            Set<String> select(MechanicalSystem system, CompactMechanicalSystem compactSystem) {
+                return OptimalModelingVariables.findVariables(compactSystem, TreeSearch.REDUCED_GRAPH);
+            }
+        };
+
+        abstract Set<String> select(MechanicalSystem system, CompactMechanicalSystem compactSystem);
+    }
+
+    private static final long SEED = 42;
+    private static final int WORK_PER_MEASUREMENT = 2000000;
+    private static final int MIN_ITERATIONS = 5;
+    private static final int MAX_ITERATIONS = 10000;
+
+    /*
+     * This class contains only static utility methods. Therefore the constructor is private
+     * so that nobody can instantiate it.
+     */
+    private SelectionBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {10, 1000, 100000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println(String.format("%-13s %9s %-17s %12s %10s %10s %10s %10s %14s",
+                "Topology", "Size", "Measurement", "ops/s", "p50 us", "p90 us", "p99 us", "max us", "bytes/op"));
+        for (Topology topology : Topology.values()) {
+            for (int size : sizes) {
+                run(topology, size);
+            }
+        }
+    }
+
+    private static void run(Topology topology, final int size) {
+        int iterations = Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, WORK_PER_MEASUREMENT / size));
+
+        final Topology systemTopology = topology;
+        print(topology, size, "construction", measure(iterations, new Measured() {
+            @Override
+            public void run() {
+                SyntheticSystems.generate(systemTopology, size, SEED);
+            }
+        }));
+
+        final MechanicalSystem system = SyntheticSystems.generate(topology, size, SEED);
+        print(topology, size, "compaction", measure(iterations, new Measured() {
+            @Override
+            public void run() {
+                system.compact();
+            }
+        }));
+
+        final CompactMechanicalSystem compactSystem = system.compact();
+        for (final Engine engine : Engine.values()) {
+            print(topology, size, engine.toString(), measure(iterations, new Measured() {
+                @Override
+                public void run() {
+                    engine.select(system, compactSystem);
+                }
+            }));
+        }
+    }
+
+    /*
+     * Runs the measured code as many times as measured iterations to warm it up,
+     * then measures the latency and allocation of each iteration.
+     */
+    private static Measurement measure(int iterations, Measured measured) {
+        for (int i = 0; i < iterations; i++) {
+            measured.run();
+        }
+
+        long[] latencies = new long[iterations];
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long iterationStart = System.nanoTime();
+            measured.run();
+            latencies[i] = System.nanoTime() - iterationStart;
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = getAllocatedBytes();
+
+        Arrays.sort(latencies);
+        long bytesPerOperation = allocatedBefore < 0 ? -1 : (allocatedAfter - allocatedBefore) / iterations;
+        return new Measurement(iterations * 1e9 / elapsed, latencies, bytesPerOperation);
+    }
+
+    /*
+     * Returns the number of bytes allocated by the current thread, or -1 if the
+     * virtual machine does not report it
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+            if (hotSpotThreads.isThreadAllocatedMemorySupported() && hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+                return hotSpotThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static void print(Topology topology, int size, String measurement, Measurement result) {
+        System.out.println(String.format("%-13s %9d %-17s %12.1f %10.1f %10.1f %10.1f %10.1f %14s",
+                topology, size, measurement, result.throughput,
+                result.getPercentile(0.50) / 1e3, result.getPercentile(0.90) / 1e3,
+                result.getPercentile(0.99) / 1e3, result.getPercentile(1.0) / 1e3,
+                result.bytesPerOperation < 0 ? "n/a" : Long.toString(result.bytesPerOperation)));
+    }
+
+    /*
+     * The code being measured
+     */
+    private interface Measured {
+        void run();
+    }
+
+    /*
+     * The result of a measurement, with the latencies sorted in increasing order
+     */
+    private static final class Measurement {
+
+        private final double throughput;
+        private final long[] latencies;
+        private final long bytesPerOperation;
+
+        Measurement(double throughput, long[] latencies, long bytesPerOperation) {
+            this.throughput = throughput;
+            this.latencies = latencies;
+            this.bytesPerOperation = bytesPerOperation;
+        }
+
+        double getPercentile(double percentile) {
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(index, latencies.length - 1))];
+        }
+    }
+}
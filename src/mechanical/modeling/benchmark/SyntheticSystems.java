@@ -0,0 +1,137 @@
+package mechanical.modeling.benchmark;
+
+import java.util.Random;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+/**
+ * This class generates synthetic mechanical systems of a given size and
+ * topology, used to measure the performance of the coordinate selection.
+ *
+ * <p>
+ * The type of each component is drawn from a random generator seeded by
+ * the caller, so the same parameters always generate the same system.
+ * </p>
+ */
+public final class SyntheticSystems {
+
+    /**
+     * Enumerates the topologies that can be generated.
+     */
+    public enum Topology {
+        /** A single chain of components starting at the ground */
+        SERIAL_CHAIN,
+        /** A chain where every fourth frame is also linked back to the frame four links earlier */
+        CLOSED_LOOPS,
+        /** A tree where each frame carries up to four child frames */
+        TREE,
+        /** A square grid of frames linked to their right and lower neighbors */
+        DENSE_MESH
+    }
+
+    private static final int LOOP_LENGTH = 4;
+    private static final int BRANCHING = 4;
+
+    /*
+     * This class contains only static utility methods. Therefore the constructor is private
+     * so that nobody can instantiate it.
+     */
+    private SyntheticSystems() {
+    }
+
+    /**
+     * Generates a mechanical system.
+     *
+     * @param topology is the topology of the system
+     * @param components is the number of components of the system
+     * @param seed is the seed of the random component types
+     * @return the generated mechanical system
+     *
+     * @throws IllegalArgumentException if the number of components is not positive.
+     */
+    public static MechanicalSystem generate(Topology topology, int components, long seed) {
+        if (components < 1) {
+            throw new IllegalArgumentException("The number of components must be positive");
+        }
+
+        Random random = new Random(seed);
+        switch (topology) {
+            case SERIAL_CHAIN:
+                return serialChain(components, random);
+            case CLOSED_LOOPS:
+                return closedLoops(components, random);
+            case TREE:
+                return tree(components, random);
+            default:
+                return denseMesh(components, random);
+        }
+    }
+
+    private static MechanicalSystem serialChain(int components, Random random) {
+        ReferenceFrame[] frames = createFrames(components + 1);
+        MechanicalSystem system = new MechanicalSystem(frames[0]);
+        for (int i = 0; i < components; i++) {
+            addComponent(system, i, frames[i], frames[i + 1], random);
+        }
+        return system;
+    }
+
+    private static MechanicalSystem closedLoops(int components, Random random) {
+        int chainLength = components - components / (LOOP_LENGTH + 1);
+        ReferenceFrame[] frames = createFrames(chainLength + 1);
+        MechanicalSystem system = new MechanicalSystem(frames[0]);
+        int component = 0;
+        for (int i = 0; i < chainLength; i++) {
+            addComponent(system, component++, frames[i], frames[i + 1], random);
+            if ((i + 1) % LOOP_LENGTH == 0 && component < components) {
+                addComponent(system, component++, frames[i + 1 - LOOP_LENGTH], frames[i + 1], random);
+            }
+        }
+        return system;
+    }
+
+    private static MechanicalSystem tree(int components, Random random) {
+        ReferenceFrame[] frames = createFrames(components + 1);
+        MechanicalSystem system = new MechanicalSystem(frames[0]);
+        for (int i = 0; i < components; i++) {
+            addComponent(system, i, frames[i / BRANCHING], frames[i + 1], random);
+        }
+        return system;
+    }
+
+    private static MechanicalSystem denseMesh(int components, Random random) {
+        int width = Math.max(2, (int) Math.ceil(Math.sqrt(components / 2.0)));
+        ReferenceFrame[] frames = createFrames(width * width);
+        MechanicalSystem system = new MechanicalSystem(frames[0]);
+        int component = 0;
+        for (int frame = 0; frame < frames.length && component < components; frame++) {
+            int row = frame / width;
+            int column = frame % width;
+            if (column + 1 < width) {
+                addComponent(system, component++, frames[frame], frames[frame + 1], random);
+            }
+            if (row + 1 < width && component < components) {
+                addComponent(system, component++, frames[frame], frames[frame + width], random);
+            }
+        }
+        return system;
+    }
+
+    private static ReferenceFrame[] createFrames(int count) {
+        ReferenceFrame[] frames = new ReferenceFrame[count];
+        frames[0] = new ReferenceFrame("Ground");
+        for (int i = 1; i < count; i++) {
+            frames[i] = new ReferenceFrame("CS" + i);
+        }
+        return frames;
+    }
+
+    private static void addComponent(MechanicalSystem system, int index, ReferenceFrame source, ReferenceFrame target, Random random) {
+        ComponentType[] types = ComponentType.values();
+        ComponentType type = types[random.nextInt(types.length)];
+        system.addComponent(new MechanicalComponent("c" + index, source, target, type));
+    }
+}
@@ -0,0 +1,317 @@
+package mechanical.modeling.components;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a compact, immutable representation of a mechanical
+ * system's topology. Reference frames and mechanical components are identified
+ * by int ids and the graph adjacency is stored in compressed sparse row arrays
+ * instead of node and edge objects.
+ *
+ * <p>
+ * Both domain graphs of a mechanical system contain the same reference frames
+ * and one edge per component. The compact system therefore stores a single
+ * adjacency structure shared by both domains, and the weight of an edge in a
+ * given domain is derived from the component type when it is needed.
+ * </p>
+ *
+ * <p>
+ * A compact system can either be frozen from an existing mechanical system
+ * using {@link MechanicalSystem#compact()} or built directly using a
+ * {@link CompactMechanicalSystem.Builder}.
+ * </p>
+ */
+public final class CompactMechanicalSystem {
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    private final String[] frameNames;
+    private final int ground;
+    private final String[] componentNames;
+    private final byte[] componentTypes;
+    private final int[] sourceFrames;
+    private final int[] targetFrames;
+    private final int[] adjacencyOffsets;
+    private final int[] adjacentFrames;
+    private final int[] adjacentComponents;
+
+    private CompactMechanicalSystem(Builder builder) {
+        this.frameNames = Arrays.copyOf(builder.frameNames, builder.frameCount);
+        this.ground = builder.ground;
+        this.componentNames = Arrays.copyOf(builder.componentNames, builder.componentCount);
+        this.componentTypes = Arrays.copyOf(builder.componentTypes, builder.componentCount);
+        this.sourceFrames = Arrays.copyOf(builder.sourceFrames, builder.componentCount);
+        this.targetFrames = Arrays.copyOf(builder.targetFrames, builder.componentCount);
+
+        int frameCount = frameNames.length;
+        int componentCount = componentNames.length;
+
+        /*
+         * Counting sort of the edge end points into the compressed sparse row arrays.
+         * Every component appears once in the adjacency of each of its two frames.
+         */
+        this.adjacencyOffsets = new int[frameCount + 1];
+        for (int component = 0; component < componentCount; component++) {
+            adjacencyOffsets[sourceFrames[component] + 1]++;
+            adjacencyOffsets[targetFrames[component] + 1]++;
+        }
+        for (int frame = 0; frame < frameCount; frame++) {
+            adjacencyOffsets[frame + 1] += adjacencyOffsets[frame];
+        }
+
+        this.adjacentFrames = new int[2 * componentCount];
+        this.adjacentComponents = new int[2 * componentCount];
+        int[] next = Arrays.copyOf(adjacencyOffsets, frameCount);
+        for (int component = 0; component < componentCount; component++) {
+            int source = sourceFrames[component];
+            int target = targetFrames[component];
+
+            adjacentFrames[next[source]] = target;
+            adjacentComponents[next[source]++] = component;
+
+            adjacentFrames[next[target]] = source;
+            adjacentComponents[next[target]++] = component;
+        }
+    }
+
+    /**
+     * @return the number of reference frames in the system
+     */
+    public int getFrameCount() {
+        return frameNames.length;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the name of the reference frame
+     */
+    public String getFrameName(int frame) {
+        return frameNames[frame];
+    }
+
+    /**
+     * @return the id of the ground reference frame
+     */
+    public int getGround() {
+        return ground;
+    }
+
+    /**
+     * @return the number of mechanical components in the system
+     */
+    public int getComponentCount() {
+        return componentNames.length;
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the name of the mechanical component
+     */
+    public String getComponentName(int component) {
+        return componentNames[component];
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the type of the mechanical component
+     */
+    public ComponentType getComponentType(int component) {
+        return TYPES[componentTypes[component]];
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the id of the component's source reference frame
+     */
+    public int getSourceFrame(int component) {
+        return sourceFrames[component];
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the id of the component's target reference frame
+     */
+    public int getTargetFrame(int component) {
+        return targetFrames[component];
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @param domain is the domain in which the variables are counted
+     * @return the number of variables associated with the component in the given domain
+     */
+    public int getNumberOfVariables(int component, Domain domain) {
+        return getTypeVariables(TYPES[componentTypes[component]], domain).length;
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @param domain is the domain of the variables
+     * @return a new string array of variable names associated to the component in the
+     *         given domain. The variable names are appended with an underscore and the
+     *         component name.
+     */
+    public String[] getVariables(int component, Domain domain) {
+        String[] variables = new String[getNumberOfVariables(component, domain)];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = getVariable(component, domain, i);
+        }
+        return variables;
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @param domain is the domain of the variable
+     * @param index is the index of the variable, from 0 to the component's number of variables
+     * @return the name of the variable, appended with an underscore and the component name
+     */
+    public String getVariable(int component, Domain domain, int index) {
+        return getTypeVariables(TYPES[componentTypes[component]], domain)[index] + "_" + componentNames[component];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the index of the first entry of the frame's adjacency
+     */
+    public int getAdjacencyStart(int frame) {
+        return adjacencyOffsets[frame];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the index following the last entry of the frame's adjacency
+     */
+    public int getAdjacencyEnd(int frame) {
+        return adjacencyOffsets[frame + 1];
+    }
+
+    /**
+     * @param index is an adjacency index between a frame's adjacency start and end
+     * @return the id of the reference frame found at the other end of the edge
+     */
+    public int getAdjacentFrame(int index) {
+        return adjacentFrames[index];
+    }
+
+    /**
+     * @param index is an adjacency index between a frame's adjacency start and end
+     * @return the id of the component represented by the edge
+     */
+    public int getAdjacentComponent(int index) {
+        return adjacentComponents[index];
+    }
+
+    private static String[] getTypeVariables(ComponentType type, Domain domain) {
+        if (domain.equals(Domain.TRANSLATIONAL)) {
+            return type.getTranslationalVariables();
+        }
+        return type.getRotationalVariables();
+    }
+
+    @Override
+    public String toString() {
+        return "CompactMechanicalSystem[Frames: " + frameNames.length + ", Components: " +
+                componentNames.length + ", Ground: " + frameNames[ground] + "]";
+    }
+
+    /**
+     * This class builds a compact mechanical system one reference frame
+     * and one component at a time. The builder's arrays are pre-sized from
+     * the expected counts and grow when they are exceeded.
+     */
+    public static final class Builder {
+
+        private String[] frameNames;
+        private int frameCount;
+        private int ground;
+        private String[] componentNames;
+        private byte[] componentTypes;
+        private int[] sourceFrames;
+        private int[] targetFrames;
+        private int componentCount;
+
+        /**
+         * Creates a builder for a compact mechanical system.
+         *
+         * @param groundName is the name of the ground reference frame, which will be given the id 0
+         * @param expectedFrames is the expected number of reference frames
+         * @param expectedComponents is the expected number of mechanical components
+         */
+        public Builder(String groundName, int expectedFrames, int expectedComponents) {
+            this.frameNames = new String[Math.max(expectedFrames, 1)];
+            this.componentNames = new String[Math.max(expectedComponents, 1)];
+            this.componentTypes = new byte[componentNames.length];
+            this.sourceFrames = new int[componentNames.length];
+            this.targetFrames = new int[componentNames.length];
+            this.ground = addFrame(groundName);
+        }
+
+        /**
+         * Adds a reference frame to the system.
+         *
+         * @param name is the name of the reference frame
+         * @return the id given to the reference frame
+         */
+        public int addFrame(String name) {
+            if (frameCount == frameNames.length) {
+                frameNames = Arrays.copyOf(frameNames, 2 * frameCount);
+            }
+            frameNames[frameCount] = name;
+            return frameCount++;
+        }
+
+        /**
+         * Adds a mechanical component linking two reference frames already added to the builder.
+         *
+         * @param name is the name of the component
+         * @param source is the id of the source reference frame
+         * @param target is the id of the target reference frame
+         * @param type is the type of component
+         * @return the id given to the component
+         *
+         * @throws IllegalArgumentException if a frame id is unknown or the type is null.
+         */
+        public int addComponent(String name, int source, int target, ComponentType type) {
+            if (source < 0 || source >= frameCount || target < 0 || target >= frameCount) {
+                throw new IllegalArgumentException("The component references an unknown reference frame");
+            }
+            if (type == null) {
+                throw new IllegalArgumentException("The component type is null");
+            }
+
+            if (componentCount == componentNames.length) {
+                int capacity = 2 * componentCount;
+                componentNames = Arrays.copyOf(componentNames, capacity);
+                componentTypes = Arrays.copyOf(componentTypes, capacity);
+                sourceFrames = Arrays.copyOf(sourceFrames, capacity);
+                targetFrames = Arrays.copyOf(targetFrames, capacity);
+            }
+            componentNames[componentCount] = name;
+            componentTypes[componentCount] = (byte) type.ordinal();
+            sourceFrames[componentCount] = source;
+            targetFrames[componentCount] = target;
+            return componentCount++;
+        }
+
+        /**
+         * @return the number of reference frames added so far
+         */
+        public int getFrameCount() {
+            return frameCount;
+        }
+
+        /**
+         * @return the number of components added so far
+         */
+        public int getComponentCount() {
+            return componentCount;
+        }
+
+        /**
+         * @return the compact mechanical system containing the frames and components added
+         */
+        public CompactMechanicalSystem build() {
+            return new CompactMechanicalSystem(this);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package mechanical.modeling.components;
+
+import graph.components.BasicWeightedGraph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * This class holds a mechanical system that can be read by many threads
+ * while other threads modify it.
+ *
+ * <p>
+ * Readers get a snapshot of the system: a mechanical system whose components
+ * and graphs never change once published. Writers are serialized; each write
+ * copies the current snapshot, applies the change to the copy and publishes
+ * it as the new snapshot. Reading the current snapshot requires no locking,
+ * and a reader keeps a consistent view of the components and of both domain
+ * graphs for as long as it holds on to its snapshot.
+ * </p>
+ *
+ * <p>
+ * Writes cost a copy of the system, so several changes should be applied
+ * together using {@link #update(Collection, Collection)}. Snapshots share
+ * their component and edge objects, which are never modified by the
+ * algorithms.
+ * </p>
+ */
+public final class ConcurrentMechanicalSystem {
+
+    private final ReferenceFrame ground;
+    private volatile MechanicalSystem snapshot;
+
+    /**
+     * Creates an empty concurrent mechanical system.
+     *
+     * @param ground is the ground reference system
+     */
+    public ConcurrentMechanicalSystem(ReferenceFrame ground) {
+        this.ground = ground;
+        this.snapshot = new Snapshot(ground, 0).seal();
+    }
+
+    /**
+     * @return the current snapshot of the mechanical system. Trying to add or remove
+     *         components of the snapshot, or edges and nodes of its graphs, throws an
+     *         UnsupportedOperationException.
+     */
+    public MechanicalSystem getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Adds a component to the mechanical system and publishes the new snapshot
+     *
+     * @param component is the component to be added
+     *
+     * @return a boolean indicating if the component was successfully added to the system
+     *
+     * @throws IllegalArgumentException if the component to be added is null.
+     */
+    public boolean addComponent(MechanicalComponent component) {
+        if(component == null) {
+            throw new IllegalArgumentException("The component is null");
+        }
+        return update(Collections.singleton(component), Collections.<MechanicalComponent>emptySet());
+    }
+
+    /**
+     * Removes a component from the mechanical system and publishes the new snapshot
+     *
+     * @param component is the component to be removed
+     *
+     * @return a boolean indicating if the component was successfully removed from the system
+     *
+     * @throws IllegalArgumentException if the component to be removed is null.
+     */
+    public boolean removeComponent(MechanicalComponent component) {
+        if(component == null) {
+            throw new IllegalArgumentException("The component is null");
+        }
+        return update(Collections.<MechanicalComponent>emptySet(), Collections.singleton(component));
+    }
+
+    /**
+     * Removes and adds components in a single copy of the system, then publishes the
+     * new snapshot. Readers see either none or all of the changes.
+     *
+     * @param added are the components to be added
+     * @param removed are the components to be removed
+     *
+     * @return a boolean indicating if the system was changed
+     *
+     * @throws IllegalArgumentException if one of the components to be added is null.
+     */
+    public synchronized boolean update(Collection<MechanicalComponent> added, Collection<MechanicalComponent> removed) {
+        for(MechanicalComponent component : added) {
+            if(component == null) {
+                throw new IllegalArgumentException("The component is null");
+            }
+        }
+
+        Set<MechanicalComponent> kept = new LinkedHashSet<MechanicalComponent>(snapshot.getAllComponents());
+        boolean changed = kept.removeAll(removed);
+        Snapshot next = new Snapshot(ground, kept.size() + added.size());
+        next.addComponents(kept);
+        changed = next.addComponents(added) > 0 || changed;
+
+        if(changed) {
+            snapshot = next.seal();
+        }
+        return changed;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentMechanicalSystem[" + snapshot.toString() + "]";
+    }
+
+    /*
+     * A mechanical system that rejects changes once it is sealed
+     */
+    private static final class Snapshot extends MechanicalSystem {
+
+        private final SnapshotGraph translationalGraph;
+        private final SnapshotGraph rotationalGraph;
+        private boolean sealed;
+
+        Snapshot(ReferenceFrame ground, int expectedComponents) {
+            this(ground, expectedComponents, new SnapshotGraph(), new SnapshotGraph());
+        }
+
+        private Snapshot(ReferenceFrame ground, int expectedComponents, SnapshotGraph translationalGraph, SnapshotGraph rotationalGraph) {
+            super(ground, expectedComponents, translationalGraph, rotationalGraph);
+            this.translationalGraph = translationalGraph;
+            this.rotationalGraph = rotationalGraph;
+        }
+
+        Snapshot seal() {
+            sealed = true;
+            translationalGraph.seal();
+            rotationalGraph.seal();
+            return this;
+        }
+
+        @Override
+        public boolean addComponent(MechanicalComponent component) {
+            if(sealed) {
+                throw new UnsupportedOperationException("A snapshot of a concurrent mechanical system cannot be modified");
+            }
+            return super.addComponent(component);
+        }
+
+        @Override
+        public int addComponents(Collection<MechanicalComponent> added) {
+            if(sealed) {
+                throw new UnsupportedOperationException("A snapshot of a concurrent mechanical system cannot be modified");
+            }
+            return super.addComponents(added);
+        }
+
+        @Override
+        public boolean removeComponent(MechanicalComponent component) {
+            if(sealed) {
+                throw new UnsupportedOperationException("A snapshot of a concurrent mechanical system cannot be modified");
+            }
+            return super.removeComponent(component);
+        }
+
+        @Override
+        public int removeComponents(Collection<MechanicalComponent> removed) {
+            if(sealed) {
+                throw new UnsupportedOperationException("A snapshot of a concurrent mechanical system cannot be modified");
+            }
+            return super.removeComponents(removed);
+        }
+    }
+
+    /*
+     * A graph of a snapshot that rejects changes once it is sealed. The weights of its
+     * mechanical edges are derived from their variables and cannot be changed either.
+     */
+    private static final class SnapshotGraph extends BasicWeightedGraph<ReferenceFrame, MechanicalEdge> {
+
+        private boolean sealed;
+
+        void seal() {
+            sealed = true;
+        }
+
+        @Override
+        public boolean addEdge(MechanicalEdge edge) {
+            if(sealed) {
+                throw new UnsupportedOperationException("A snapshot of a concurrent mechanical system cannot be modified");
+            }
+            return super.addEdge(edge);
+        }
+
+        @Override
+        public boolean removeEdge(MechanicalEdge edge) {
+            if(sealed) {
+                throw new UnsupportedOperationException("A snapshot of a concurrent mechanical system cannot be modified");
+            }
+            return super.removeEdge(edge);
+        }
+
+        @Override
+        public Set<ReferenceFrame> getAllNodes() {
+            return sealed ? Collections.unmodifiableSet(super.getAllNodes()) : super.getAllNodes();
+        }
+
+        @Override
+        public Set<MechanicalEdge> getAllEdges() {
+            return sealed ? Collections.unmodifiableSet(super.getAllEdges()) : super.getAllEdges();
+        }
+    }
+}
@@ -69,6 +69,33 @@ public class MechanicalComponent {
         return type;
     }
 
+    /**
+     * @param domain is the domain of the variables
+     * @return a string array of variable names associated to the component in the given
+     *         domain. The variable names are appended with an underscore and the component name.
+     */
+    public String[] getVariables(Domain domain) {
+        return getEdge(domain).getVariables();
+    }
+
+    /**
+     * @param domain is the domain in which the variables are counted
+     * @return the number of variables associated with the component in the given domain.
+     */
+    public int getNumberOfVariables(Domain domain) {
+        return getEdge(domain).getNumberOfVariables();
+    }
+
+    /**
+     * @return the graph edge associated with the mechanical component in the given domain.
+     */
+    protected MechanicalEdge getEdge(Domain domain) {
+        if(domain.equals(Domain.TRANSLATIONAL)) {
+            return translationalEdge;
+        }
+        return rotationalEdge;
+    }
+
     /**
      * @return the translational graph edge associated with the mechanical component.
      */
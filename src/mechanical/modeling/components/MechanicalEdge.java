@@ -15,11 +15,14 @@ public class MechanicalEdge extends NamedWeightedEdge<ReferenceFrame> {
 
     private final ComponentType type;
     private final Domain domain;
-    private final String[] variables;
+    private final String[] typeVariables;
+    private volatile String[] variables;
 
     /**
      * Creates a graph theoretical edge that represents a components properties
-     * in a certain domain (translational or rotational).
+     * in a certain domain (translational or rotational). The weight of the edge
+     * is the number of variables of the component in the domain. The variable
+     * names are only built the first time they are requested.
      * 
      * @param name is the name of the component being represented
      * @param source is the source reference frame of the component being represented
@@ -32,17 +35,12 @@ public class MechanicalEdge extends NamedWeightedEdge<ReferenceFrame> {
         this.type = type;
         this.domain = domain;
 
-        String[] defaultVariabless;
         if(domain.equals(Domain.TRANSLATIONAL)) {
-            defaultVariabless = type.getTranslationalVariables();
+            typeVariables = type.getTranslationalVariables();
         } else {
-            defaultVariabless = type.getRotationalVariables();
-        }
-
-        variables = new String[defaultVariabless.length];
-        for(int i =0; i < defaultVariabless.length; i++) {
-            variables[i] = defaultVariabless[i] + "_" + name;
+            typeVariables = type.getRotationalVariables();
         }
+        setWeight(typeVariables.length);
     }
 
     /**
@@ -57,7 +55,23 @@ public class MechanicalEdge extends NamedWeightedEdge<ReferenceFrame> {
      *         domain. The variable names are appended with an underscore and the component name.
      */
     public String[] getVariables() {
-        return variables;
+        String[] edgeVariables = variables;
+        if(edgeVariables == null) {
+            edgeVariables = new String[typeVariables.length];
+            for(int i = 0; i < typeVariables.length; i++) {
+                edgeVariables[i] = getVariable(i);
+            }
+            variables = edgeVariables;
+        }
+        return edgeVariables;
+    }
+
+    /**
+     * @param index is the index of the variable, from 0 to the number of variables
+     * @return the name of the variable, appended with an underscore and the component name.
+     */
+    public String getVariable(int index) {
+        return typeVariables[index] + "_" + getName();
     }
 
     /**
@@ -65,7 +79,7 @@ public class MechanicalEdge extends NamedWeightedEdge<ReferenceFrame> {
      *         domain.
      */
     public int getNumberOfVariables() {
-        return variables.length;
+        return typeVariables.length;
     }
 
     /**
@@ -75,6 +89,30 @@ public class MechanicalEdge extends NamedWeightedEdge<ReferenceFrame> {
         return type;
     }
 
+    /**
+     * @return the weight of the edge, which is always its number of variables
+     */
+    @Override
+    public double getWeight() {
+        return typeVariables.length;
+    }
+
+    /**
+     * The weight of the edge is derived from its number of variables, so that the
+     * searches sharing the graph always see the same weights.
+     *
+     * @param weight is the weight of the edge
+     *
+     * @throws IllegalArgumentException if the weight is not the number of variables.
+     */
+    @Override
+    public void setWeight(double weight) {
+        if (weight != typeVariables.length) {
+            throw new IllegalArgumentException("The weight of a mechanical edge is its number of variables");
+        }
+        super.setWeight(weight);
+    }
+
     @Override
     public String toString() {
         return "MechanicalEdge[Name: " + getName() + ", ReferenceFrames: " + getSourceNode().getName() +
@@ -3,9 +3,15 @@ package mechanical.modeling.components;
 import graph.components.BasicWeightedGraph;
 import graph.elements.WeightedGraph;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class creates a mechanical system consisting of a set of mechanical
@@ -20,6 +26,7 @@ public class MechanicalSystem {
     private final WeightedGraph<ReferenceFrame, MechanicalEdge> translationalGraph;
     private final WeightedGraph<ReferenceFrame, MechanicalEdge> rotationalGraph;
     private final ReferenceFrame ground;
+    private final List<MechanicalSystemListener> listeners;
 
     /**
      * Creates a mechanical system of mechanical components connected to reference frames.
@@ -27,10 +34,31 @@ public class MechanicalSystem {
      * @param ground is the ground reference system
      */
     public MechanicalSystem(ReferenceFrame ground){
-        this.components = new LinkedHashSet<MechanicalComponent>();
-        this.translationalGraph = new BasicWeightedGraph<ReferenceFrame, MechanicalEdge>();
-        this.rotationalGraph = new BasicWeightedGraph<ReferenceFrame, MechanicalEdge>();
+        this(ground, 16);
+    }
+
+    /**
+     * Creates a mechanical system sized to hold the given number of components
+     * without growing.
+     * 
+     * @param ground is the ground reference system
+     * @param expectedComponents is the expected number of mechanical components
+     */
+    public MechanicalSystem(ReferenceFrame ground, int expectedComponents){
+        this(ground, expectedComponents, new BasicWeightedGraph<ReferenceFrame, MechanicalEdge>(),
+                new BasicWeightedGraph<ReferenceFrame, MechanicalEdge>());
+    }
+
+    /*
+     * Creates a mechanical system holding its topology in the given empty graphs
+     */
+    MechanicalSystem(ReferenceFrame ground, int expectedComponents, WeightedGraph<ReferenceFrame, MechanicalEdge> translationalGraph,
+            WeightedGraph<ReferenceFrame, MechanicalEdge> rotationalGraph){
+        this.components = new LinkedHashSet<MechanicalComponent>(Math.max(2 * expectedComponents, 16));
+        this.translationalGraph = translationalGraph;
+        this.rotationalGraph = rotationalGraph;
         this.ground = ground;
+        this.listeners = new CopyOnWriteArrayList<MechanicalSystemListener>();
     }
 
     /**
@@ -54,6 +82,48 @@ public class MechanicalSystem {
             throw new IllegalArgumentException("The component is null");
         }
 
+        boolean success = insert(component);
+        if(success) {
+            for(MechanicalSystemListener listener : listeners) {
+                listener.componentAdded(this, component);
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Adds several components to the mechanical system. The components are all
+     * checked before any is added, and the listeners are notified once every
+     * component is in both domain graphs. Components already in the system are
+     * skipped.
+     * 
+     * @param added are the components to be added
+     * 
+     * @return the number of components that were added to the system
+     * 
+     * @throws IllegalArgumentException if one of the components to be added is null.
+     */
+    public int addComponents(Collection<MechanicalComponent> added) {
+        checkComponents(added);
+
+        List<MechanicalComponent> inserted = new ArrayList<MechanicalComponent>(added.size());
+        for(MechanicalComponent component : added) {
+            if(insert(component)) {
+                inserted.add(component);
+            }
+        }
+        for(MechanicalSystemListener listener : listeners) {
+            for(MechanicalComponent component : inserted) {
+                listener.componentAdded(this, component);
+            }
+        }
+        return inserted.size();
+    }
+
+    /*
+     * Adds a component to the set of components and to both domain graphs
+     */
+    private boolean insert(MechanicalComponent component) {
         boolean success = true;
         success = success && components.add(component);
         success = success && translationalGraph.addEdge(component.getTranslationalEdge());
@@ -61,6 +131,14 @@ public class MechanicalSystem {
         return success;
     }
 
+    private static void checkComponents(Collection<MechanicalComponent> checked) {
+        for(MechanicalComponent component : checked) {
+            if(component == null) {
+                throw new IllegalArgumentException("The component is null");
+            }
+        }
+    }
+
     /**
      * Removes a component to the mechanical system
      * 
@@ -75,6 +153,48 @@ public class MechanicalSystem {
             throw new IllegalArgumentException("The component is null");
         }
 
+        boolean success = delete(component);
+        if(success) {
+            for(MechanicalSystemListener listener : listeners) {
+                listener.componentRemoved(this, component);
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Removes several components from the mechanical system. The components are
+     * all checked before any is removed, and the listeners are notified once every
+     * component is out of both domain graphs. Components not in the system are
+     * skipped.
+     * 
+     * @param removed are the components to be removed
+     * 
+     * @return the number of components that were removed from the system
+     * 
+     * @throws IllegalArgumentException if one of the components to be removed is null.
+     */
+    public int removeComponents(Collection<MechanicalComponent> removed) {
+        checkComponents(removed);
+
+        List<MechanicalComponent> deleted = new ArrayList<MechanicalComponent>(removed.size());
+        for(MechanicalComponent component : removed) {
+            if(delete(component)) {
+                deleted.add(component);
+            }
+        }
+        for(MechanicalSystemListener listener : listeners) {
+            for(MechanicalComponent component : deleted) {
+                listener.componentRemoved(this, component);
+            }
+        }
+        return deleted.size();
+    }
+
+    /*
+     * Removes a component from the set of components and from both domain graphs
+     */
+    private boolean delete(MechanicalComponent component) {
         boolean success = true;
         success = success && components.remove(component);
         success = success && translationalGraph.removeEdge(component.getTranslationalEdge());
@@ -82,6 +202,32 @@ public class MechanicalSystem {
         return success;
     }
 
+    /**
+     * Registers a listener that is notified each time a component is added to or
+     * removed from the mechanical system
+     * 
+     * @param listener is the listener to be registered
+     * 
+     * @throws IllegalArgumentException if the listener is null.
+     */
+    public void addListener(MechanicalSystemListener listener) {
+        if(listener == null) {
+            throw new IllegalArgumentException("The listener is null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener from the mechanical system
+     * 
+     * @param listener is the listener to be unregistered
+     * 
+     * @return a boolean indicating if the listener was registered
+     */
+    public boolean removeListener(MechanicalSystemListener listener) {
+        return listeners.remove(listener);
+    }
+
     /**
      * @return the ground reference frame of the mechanical system
      */
@@ -103,6 +249,41 @@ public class MechanicalSystem {
         return rotationalGraph;
     }
 
+    /**
+     * Freezes the current topology of the mechanical system into a compact system
+     * in which reference frames and components are identified by int ids. The ground
+     * reference frame is given the id 0 and the components keep the order in which
+     * they were added.
+     *
+     * @return a compact snapshot of the mechanical system
+     */
+    public CompactMechanicalSystem compact() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(ground.getName(),
+                components.size() + 1, components.size());
+
+        Map<ReferenceFrame, Integer> frameIds = new HashMap<ReferenceFrame, Integer>();
+        frameIds.put(ground, Integer.valueOf(builder.getFrameCount() - 1));
+        for(MechanicalComponent component : components) {
+            int source = getFrameId(builder, frameIds, component.getSourceReferenceFrame());
+            int target = getFrameId(builder, frameIds, component.getTargetReferenceFrame());
+            builder.addComponent(component.getName(), source, target, component.getType());
+        }
+        return builder.build();
+    }
+
+    /*
+     * Returns the id of the reference frame, adding it to the builder the first time it is seen
+     */
+    private static int getFrameId(CompactMechanicalSystem.Builder builder, Map<ReferenceFrame, Integer> frameIds,
+            ReferenceFrame frame) {
+        Integer id = frameIds.get(frame);
+        if(id == null) {
+            id = Integer.valueOf(builder.addFrame(frame.getName()));
+            frameIds.put(frame, id);
+        }
+        return id.intValue();
+    }
+
     @Override
     public String toString() {
         String newLine = System.getProperty("line.separator");
@@ -123,4 +304,57 @@ public class MechanicalSystem {
 
         return sb.toString();
     }
+
+    /**
+     * This class collects the components of a mechanical system and adds them all
+     * at once to a system sized to hold them.
+     */
+    public static final class Builder {
+
+        private final ReferenceFrame ground;
+        private final List<MechanicalComponent> components;
+
+        /**
+         * Creates a builder for a mechanical system.
+         *
+         * @param ground is the ground reference system
+         * @param expectedComponents is the expected number of mechanical components
+         */
+        public Builder(ReferenceFrame ground, int expectedComponents) {
+            this.ground = ground;
+            this.components = new ArrayList<MechanicalComponent>(Math.max(expectedComponents, 1));
+        }
+
+        /**
+         * Adds a component to the system being built.
+         *
+         * @param component is the component to be added
+         * @return this builder
+         *
+         * @throws IllegalArgumentException if the component is null.
+         */
+        public Builder addComponent(MechanicalComponent component) {
+            if(component == null) {
+                throw new IllegalArgumentException("The component is null");
+            }
+            components.add(component);
+            return this;
+        }
+
+        /**
+         * @return the number of components added so far
+         */
+        public int getComponentCount() {
+            return components.size();
+        }
+
+        /**
+         * @return the mechanical system containing the components added, in order
+         */
+        public MechanicalSystem build() {
+            MechanicalSystem system = new MechanicalSystem(ground, components.size());
+            system.addComponents(components);
+            return system;
+        }
+    }
 }
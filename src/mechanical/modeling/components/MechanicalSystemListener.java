@@ -0,0 +1,24 @@
+package mechanical.modeling.components;
+
+/**
+ * This interface is implemented by classes that need to be notified when
+ * the topology of a mechanical system changes.
+ */
+public interface MechanicalSystemListener {
+
+    /**
+     * Called after a component was successfully added to a mechanical system
+     * 
+     * @param mechanicalSystem is the system to which the component was added
+     * @param component is the component that was added
+     */
+    void componentAdded(MechanicalSystem mechanicalSystem, MechanicalComponent component);
+
+    /**
+     * Called after a component was successfully removed from a mechanical system
+     * 
+     * @param mechanicalSystem is the system from which the component was removed
+     * @param component is the component that was removed
+     */
+    void componentRemoved(MechanicalSystem mechanicalSystem, MechanicalComponent component);
+}
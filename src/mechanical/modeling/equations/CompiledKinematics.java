@@ -0,0 +1,309 @@
+package mechanical.modeling.equations;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+
+/**
+ * This class compiles the kinematic chain expressions of a selection into a
+ * flat list of instructions that computes the poses of every reference frame
+ * from a vector of coordinates. Only the nodes needed by the poses are kept,
+ * each is computed once per evaluation, in topological order, into a
+ * preallocated array of registers, so evaluating does not allocate any
+ * memory.
+ *
+ * <p>
+ * The coordinates are the selected variables, in the order of the
+ * selection. The pose of a frame takes 12 values, starting at 12 times its
+ * id: its rotation matrix row by row, then its position. The values of the
+ * frames that are not related to the ground are left unchanged.
+ * </p>
+ *
+ * <p>
+ * The registers belong to the instance, so an instance must not be used by
+ * several threads at once; {@link #copy()} gives an instance sharing the
+ * instructions with its own registers. The instructions can also be written
+ * as Java source with {@link #writeJavaSource(Writer, String)}, to be
+ * compiled with the simulation code.
+ * </p>
+ */
+public final class CompiledKinematics {
+
+    /** The number of values of the pose of each reference frame */
+    public static final int POSE_SIZE = 12;
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final int frameCount;
+    private final int coordinateCount;
+    private final byte[] operations;
+    private final int[] leftOperands;
+    private final int[] rightOperands;
+    private final int[] results;
+    private final int[] poseIndexes;
+    private final int[] poseRegisters;
+    private final double[] registers;
+
+    /**
+     * Compiles the expressions of the poses of every frame related to the ground.
+     *
+     * @param equations are the kinematic chain expressions of a selection
+     */
+    public CompiledKinematics(KinematicEquations equations) {
+        ExpressionGraph graph = equations.getGraph();
+        CompactMechanicalSystem system = equations.getSelection().getSystem();
+        this.frameCount = system.getFrameCount();
+        this.coordinateCount = equations.getSelection().getVariableCount();
+
+        int poseCount = 0;
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (equations.isRelated(frame)) {
+                poseCount += POSE_SIZE;
+            }
+        }
+        int[] poseNodes = new int[poseCount];
+        poseIndexes = new int[poseCount];
+        poseCount = 0;
+        for (int frame = 0; frame < frameCount; frame++) {
+            if (equations.isRelated(frame)) {
+                for (int i = 0; i < 9; i++) {
+                    poseIndexes[poseCount] = POSE_SIZE * frame + i;
+                    poseNodes[poseCount++] = equations.getOrientation(frame, i / 3, i % 3);
+                }
+                for (int axis = 0; axis < 3; axis++) {
+                    poseIndexes[poseCount] = POSE_SIZE * frame + 9 + axis;
+                    poseNodes[poseCount++] = equations.getPosition(frame, axis);
+                }
+            }
+        }
+
+        /*
+         * The operands of a node have smaller ids, so a backward sweep marks every node
+         * needed by the poses
+         */
+        int nodeCount = graph.getNodeCount();
+        boolean[] needed = new boolean[nodeCount];
+        for (int node : poseNodes) {
+            needed[node] = true;
+        }
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            if (needed[node] && graph.getOperation(node) != Operation.CONSTANT && graph.getOperation(node) != Operation.VARIABLE) {
+                needed[graph.getLeftOperand(node)] = true;
+                if (graph.getRightOperand(node) >= 0) {
+                    needed[graph.getRightOperand(node)] = true;
+                }
+            }
+        }
+
+        int[] graphCoordinates = new int[graph.getVariableCount()];
+        Arrays.fill(graphCoordinates, -1);
+        for (int coordinate = 0; coordinate < coordinateCount; coordinate++) {
+            graphCoordinates[graph.getLeftOperand(equations.getCoordinateNode(coordinate))] = coordinate;
+        }
+
+        /*
+         * The first registers hold the coordinates, followed by the constants and the
+         * results of the instructions
+         */
+        int[] nodeRegisters = new int[nodeCount];
+        int registerCount = coordinateCount;
+        int instructionCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (!needed[node]) {
+                continue;
+            }
+            Operation operation = graph.getOperation(node);
+            if (operation == Operation.VARIABLE) {
+                nodeRegisters[node] = graphCoordinates[graph.getLeftOperand(node)];
+            } else {
+                nodeRegisters[node] = registerCount++;
+                if (operation != Operation.CONSTANT) {
+                    instructionCount++;
+                }
+            }
+        }
+
+        registers = new double[registerCount];
+        operations = new byte[instructionCount];
+        leftOperands = new int[instructionCount];
+        rightOperands = new int[instructionCount];
+        results = new int[instructionCount];
+        instructionCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            if (!needed[node]) {
+                continue;
+            }
+            Operation operation = graph.getOperation(node);
+            if (operation == Operation.CONSTANT) {
+                registers[nodeRegisters[node]] = graph.getConstant(node);
+            } else if (operation != Operation.VARIABLE) {
+                operations[instructionCount] = (byte) operation.ordinal();
+                leftOperands[instructionCount] = nodeRegisters[graph.getLeftOperand(node)];
+                rightOperands[instructionCount] = graph.getRightOperand(node) >= 0 ? nodeRegisters[graph.getRightOperand(node)] : -1;
+                results[instructionCount] = nodeRegisters[node];
+                instructionCount++;
+            }
+        }
+
+        poseRegisters = new int[poseNodes.length];
+        for (int i = 0; i < poseNodes.length; i++) {
+            poseRegisters[i] = nodeRegisters[poseNodes[i]];
+        }
+    }
+
+    private CompiledKinematics(CompiledKinematics kinematics) {
+        this.frameCount = kinematics.frameCount;
+        this.coordinateCount = kinematics.coordinateCount;
+        this.operations = kinematics.operations;
+        this.leftOperands = kinematics.leftOperands;
+        this.rightOperands = kinematics.rightOperands;
+        this.results = kinematics.results;
+        this.poseIndexes = kinematics.poseIndexes;
+        this.poseRegisters = kinematics.poseRegisters;
+        this.registers = kinematics.registers.clone();
+    }
+
+    /**
+     * @return a copy sharing the instructions of this instance with its own registers,
+     *         to evaluate the poses on another thread
+     */
+    public CompiledKinematics copy() {
+        return new CompiledKinematics(this);
+    }
+
+    /**
+     * @return the number of coordinates expected by {@link #evaluate(double[], double[])}
+     */
+    public int getCoordinateCount() {
+        return coordinateCount;
+    }
+
+    /**
+     * @return the number of values written by {@link #evaluate(double[], double[])},
+     *         which is {@link #POSE_SIZE} times the number of frames
+     */
+    public int getPosesSize() {
+        return POSE_SIZE * frameCount;
+    }
+
+    /**
+     * @return the number of instructions run by each evaluation
+     */
+    public int getInstructionCount() {
+        return operations.length;
+    }
+
+    /**
+     * Computes the poses of the reference frames.
+     *
+     * @param coordinates are the values of the selected variables, in the order of the selection
+     * @param poses receives the poses of the frames
+     *
+     * @throws IllegalArgumentException if an array is too short.
+     */
+    public void evaluate(double[] coordinates, double[] poses) {
+        if (coordinates.length < coordinateCount || poses.length < POSE_SIZE * frameCount) {
+            throw new IllegalArgumentException("The coordinates or poses array is too short");
+        }
+        double[] values = registers;
+        System.arraycopy(coordinates, 0, values, 0, coordinateCount);
+        for (int i = 0; i < operations.length; i++) {
+            int left = leftOperands[i];
+            switch (OPERATIONS[operations[i]]) {
+            case ADD:
+                values[results[i]] = values[left] + values[rightOperands[i]];
+                break;
+            case SUBTRACT:
+                values[results[i]] = values[left] - values[rightOperands[i]];
+                break;
+            case MULTIPLY:
+                values[results[i]] = values[left] * values[rightOperands[i]];
+                break;
+            case NEGATE:
+                values[results[i]] = -values[left];
+                break;
+            case SIN:
+                values[results[i]] = Math.sin(values[left]);
+                break;
+            default:
+                values[results[i]] = Math.cos(values[left]);
+                break;
+            }
+        }
+        for (int i = 0; i < poseRegisters.length; i++) {
+            poses[poseIndexes[i]] = values[poseRegisters[i]];
+        }
+    }
+
+    /**
+     * Writes the instructions as the Java source of a class with a static method
+     * evaluate(double[] q, double[] poses) computing the poses with straight-line code.
+     * The method of a large system can exceed the size limit of a Java method.
+     *
+     * @param writer receives the source
+     * @param className is the simple name of the class
+     *
+     * @throws IOException if the source cannot be written.
+     */
+    public void writeJavaSource(Writer writer, String className) throws IOException {
+        String newLine = System.getProperty("line.separator");
+        writer.write("public final class " + className + " {" + newLine + newLine);
+        writer.write("    public static void evaluate(double[] q, double[] poses) {" + newLine);
+        boolean[] resultRegisters = new boolean[registers.length];
+        for (int result : results) {
+            resultRegisters[result] = true;
+        }
+        for (int i = 0; i < operations.length; i++) {
+            String left = getRegisterName(leftOperands[i], resultRegisters);
+            String expression;
+            switch (OPERATIONS[operations[i]]) {
+            case ADD:
+                expression = left + " + " + getRegisterName(rightOperands[i], resultRegisters);
+                break;
+            case SUBTRACT:
+                expression = left + " - " + getRegisterName(rightOperands[i], resultRegisters);
+                break;
+            case MULTIPLY:
+                expression = left + " * " + getRegisterName(rightOperands[i], resultRegisters);
+                break;
+            case NEGATE:
+                expression = "-" + left;
+                break;
+            case SIN:
+                expression = "Math.sin(" + left + ")";
+                break;
+            default:
+                expression = "Math.cos(" + left + ")";
+                break;
+            }
+            writer.write("        final double r" + results[i] + " = " + expression + ";" + newLine);
+        }
+        for (int i = 0; i < poseRegisters.length; i++) {
+            writer.write("        poses[" + poseIndexes[i] + "] = " + getRegisterName(poseRegisters[i], resultRegisters) + ";" + newLine);
+        }
+        writer.write("    }" + newLine + "}" + newLine);
+        writer.flush();
+    }
+
+    /*
+     * Returns the Java expression of a register: a coordinate, a constant or the
+     * local variable of an instruction's result
+     */
+    private String getRegisterName(int register, boolean[] resultRegisters) {
+        if (register < coordinateCount) {
+            return "q[" + register + "]";
+        }
+        if (resultRegisters[register]) {
+            return "r" + register;
+        }
+        return "(" + registers[register] + ")";
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledKinematics[Frames: " + frameCount + ", Coordinates: " + coordinateCount
+                + ", Instructions: " + operations.length + "]";
+    }
+}
@@ -0,0 +1,360 @@
+package mechanical.modeling.equations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class holds symbolic expressions as a directed acyclic graph of
+ * nodes. Building an expression that already exists returns the existing
+ * node, so common subexpressions are stored and evaluated only once, and
+ * operations on constants are folded as the expressions are built.
+ *
+ * <p>
+ * A node is identified by an int id. The operands of a node always have a
+ * smaller id than the node, so evaluating the nodes in increasing id order
+ * evaluates every operand before it is used. The variables are numbered in
+ * the order they are added to the graph.
+ * </p>
+ */
+public final class ExpressionGraph {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private byte[] operations = new byte[64];
+    private int[] leftOperands = new int[64];
+    private int[] rightOperands = new int[64];
+    private double[] constants = new double[64];
+    private int nodeCount;
+
+    private final Map<Long, Integer> operationNodes = new HashMap<Long, Integer>();
+    private final Map<Long, Integer> constantNodes = new HashMap<Long, Integer>();
+    private final Map<String, Integer> variableNodes = new HashMap<String, Integer>();
+    private final List<String> variableNames = new ArrayList<String>();
+
+    /**
+     * @param value is the value of the constant
+     * @return the id of the node of the constant
+     */
+    public int constant(double value) {
+        if (value == 0) {
+            value = 0; // -0.0 and 0.0 are the same node
+        }
+        Long key = Long.valueOf(Double.doubleToLongBits(value));
+        Integer node = constantNodes.get(key);
+        if (node == null) {
+            node = Integer.valueOf(addNode(Operation.CONSTANT, -1, -1, value));
+            constantNodes.put(key, node);
+        }
+        return node.intValue();
+    }
+
+    /**
+     * @param name is the name of the variable
+     * @return the id of the node of the variable, which is added to the graph if it
+     *         was not already
+     *
+     * @throws IllegalArgumentException if the name is null.
+     */
+    public int variable(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("The variable name is null");
+        }
+        Integer node = variableNodes.get(name);
+        if (node == null) {
+            node = Integer.valueOf(addNode(Operation.VARIABLE, variableNames.size(), -1, 0));
+            variableNodes.put(name, node);
+            variableNames.add(name);
+        }
+        return node.intValue();
+    }
+
+    /**
+     * @param left is the id of the left operand
+     * @param right is the id of the right operand
+     * @return the id of the node of the sum
+     */
+    public int add(int left, int right) {
+        if (isConstant(left, 0)) {
+            return right;
+        }
+        if (isConstant(right, 0)) {
+            return left;
+        }
+        if (isConstant(left) && isConstant(right)) {
+            return constant(constants[left] + constants[right]);
+        }
+        return operation(Operation.ADD, Math.min(left, right), Math.max(left, right));
+    }
+
+    /**
+     * @param left is the id of the left operand
+     * @param right is the id of the right operand
+     * @return the id of the node of the difference
+     */
+    public int subtract(int left, int right) {
+        if (isConstant(right, 0)) {
+            return left;
+        }
+        if (isConstant(left, 0)) {
+            return negate(right);
+        }
+        if (left == right) {
+            return constant(0);
+        }
+        if (isConstant(left) && isConstant(right)) {
+            return constant(constants[left] - constants[right]);
+        }
+        return operation(Operation.SUBTRACT, left, right);
+    }
+
+    /**
+     * @param left is the id of the left operand
+     * @param right is the id of the right operand
+     * @return the id of the node of the product
+     */
+    public int multiply(int left, int right) {
+        if (isConstant(left, 0) || isConstant(right, 0)) {
+            return constant(0);
+        }
+        if (isConstant(left, 1)) {
+            return right;
+        }
+        if (isConstant(right, 1)) {
+            return left;
+        }
+        if (isConstant(left, -1)) {
+            return negate(right);
+        }
+        if (isConstant(right, -1)) {
+            return negate(left);
+        }
+        if (isConstant(left) && isConstant(right)) {
+            return constant(constants[left] * constants[right]);
+        }
+        return operation(Operation.MULTIPLY, Math.min(left, right), Math.max(left, right));
+    }
+
+    /**
+     * @param operand is the id of the operand
+     * @return the id of the node of the negated operand
+     */
+    public int negate(int operand) {
+        if (isConstant(operand)) {
+            return constant(-constants[operand]);
+        }
+        if (operations[operand] == Operation.NEGATE.ordinal()) {
+            return leftOperands[operand];
+        }
+        return operation(Operation.NEGATE, operand, -1);
+    }
+
+    /**
+     * @param operand is the id of the operand, in radians
+     * @return the id of the node of the sine of the operand
+     */
+    public int sin(int operand) {
+        if (isConstant(operand)) {
+            return constant(Math.sin(constants[operand]));
+        }
+        return operation(Operation.SIN, operand, -1);
+    }
+
+    /**
+     * @param operand is the id of the operand, in radians
+     * @return the id of the node of the cosine of the operand
+     */
+    public int cos(int operand) {
+        if (isConstant(operand)) {
+            return constant(Math.cos(constants[operand]));
+        }
+        return operation(Operation.COS, operand, -1);
+    }
+
+    private boolean isConstant(int node) {
+        checkNode(node);
+        return operations[node] == Operation.CONSTANT.ordinal();
+    }
+
+    private boolean isConstant(int node, double value) {
+        return isConstant(node) && constants[node] == value;
+    }
+
+    /*
+     * Returns the node of an operation, adding it only if the same operation on the same
+     * operands is not already in the graph
+     */
+    private int operation(Operation operation, int left, int right) {
+        checkNode(left);
+        if (right >= 0) {
+            checkNode(right);
+        }
+        Long key = Long.valueOf(((long) operation.ordinal() << 58) | ((long) left << 29) | (right + 1));
+        Integer node = operationNodes.get(key);
+        if (node == null) {
+            node = Integer.valueOf(addNode(operation, left, right, 0));
+            operationNodes.put(key, node);
+        }
+        return node.intValue();
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= nodeCount) {
+            throw new IllegalArgumentException("There is no node " + node);
+        }
+    }
+
+    private int addNode(Operation operation, int left, int right, double constant) {
+        if (nodeCount == operations.length) {
+            int capacity = 2 * nodeCount;
+            operations = Arrays.copyOf(operations, capacity);
+            leftOperands = Arrays.copyOf(leftOperands, capacity);
+            rightOperands = Arrays.copyOf(rightOperands, capacity);
+            constants = Arrays.copyOf(constants, capacity);
+        }
+        operations[nodeCount] = (byte) operation.ordinal();
+        leftOperands[nodeCount] = left;
+        rightOperands[nodeCount] = right;
+        constants[nodeCount] = constant;
+        return nodeCount++;
+    }
+
+    /**
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return the number of variables in the graph
+     */
+    public int getVariableCount() {
+        return variableNames.size();
+    }
+
+    /**
+     * @param variable is the number of the variable
+     * @return the name of the variable
+     */
+    public String getVariableName(int variable) {
+        return variableNames.get(variable);
+    }
+
+    /**
+     * @param node is the id of the node
+     * @return the operation of the node
+     */
+    public Operation getOperation(int node) {
+        checkNode(node);
+        return OPERATIONS[operations[node]];
+    }
+
+    /**
+     * @param node is the id of the node
+     * @return the id of the left or only operand of the node, the number of the variable
+     *         for a variable node, or -1 for a constant node
+     */
+    public int getLeftOperand(int node) {
+        checkNode(node);
+        return leftOperands[node];
+    }
+
+    /**
+     * @param node is the id of the node
+     * @return the id of the right operand of the node, or -1 if the operation has less
+     *         than two operands
+     */
+    public int getRightOperand(int node) {
+        checkNode(node);
+        return rightOperands[node];
+    }
+
+    /**
+     * @param node is the id of the node
+     * @return the value of a constant node, or 0 for other nodes
+     */
+    public double getConstant(int node) {
+        checkNode(node);
+        return constants[node];
+    }
+
+    /**
+     * Evaluates a node. This walks every node up to the given one and is meant for
+     * checking expressions; repeated evaluations should be compiled.
+     *
+     * @param node is the id of the node
+     * @param values are the values of the variables, by variable number
+     * @return the value of the node
+     */
+    public double evaluate(int node, double[] values) {
+        checkNode(node);
+        double[] results = new double[node + 1];
+        for (int i = 0; i <= node; i++) {
+            int left = leftOperands[i];
+            int right = rightOperands[i];
+            switch (OPERATIONS[operations[i]]) {
+            case CONSTANT:
+                results[i] = constants[i];
+                break;
+            case VARIABLE:
+                results[i] = values[left];
+                break;
+            case ADD:
+                results[i] = results[left] + results[right];
+                break;
+            case SUBTRACT:
+                results[i] = results[left] - results[right];
+                break;
+            case MULTIPLY:
+                results[i] = results[left] * results[right];
+                break;
+            case NEGATE:
+                results[i] = -results[left];
+                break;
+            case SIN:
+                results[i] = Math.sin(results[left]);
+                break;
+            case COS:
+                results[i] = Math.cos(results[left]);
+                break;
+            }
+        }
+        return results[node];
+    }
+
+    /**
+     * @param node is the id of the node
+     * @return the expression of the node in infix notation
+     */
+    public String toString(int node) {
+        checkNode(node);
+        int left = leftOperands[node];
+        int right = rightOperands[node];
+        switch (OPERATIONS[operations[node]]) {
+        case CONSTANT:
+            return Double.toString(constants[node]);
+        case VARIABLE:
+            return variableNames.get(left);
+        case ADD:
+            return "(" + toString(left) + " + " + toString(right) + ")";
+        case SUBTRACT:
+            return "(" + toString(left) + " - " + toString(right) + ")";
+        case MULTIPLY:
+            return toString(left) + "*" + toString(right);
+        case NEGATE:
+            return "-" + toString(left);
+        case SIN:
+            return "sin(" + toString(left) + ")";
+        default:
+            return "cos(" + toString(left) + ")";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionGraph[Nodes: " + nodeCount + ", Variables: " + variableNames.size() + "]";
+    }
+}
@@ -0,0 +1,250 @@
+package mechanical.modeling.equations;
+
+import java.util.Arrays;
+
+import mechanical.modeling.algorithms.VariableSelection;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class assembles the kinematic chain expressions of the reference
+ * frames of a compact mechanical system from its selected modeling
+ * variables. The orientation of each frame relative to the ground is built
+ * along the rotational tree and its position along the translational tree,
+ * one tree component after the other from the ground, so the expressions of
+ * a frame reuse the nodes of its parent's expressions.
+ *
+ * <p>
+ * The rotational variables phi, theta and psi of a component are successive
+ * rotations about the x, y and z axes of its source frame, and the
+ * translational variables x, y and z are displacements along those axes, as
+ * oriented by the rotational tree. The components only define the motions
+ * allowed between their frames, so the fixed offsets of the bodies are not
+ * part of the expressions; a component without variables in a domain
+ * relates its frames by the identity in that domain.
+ * </p>
+ */
+public final class KinematicEquations {
+
+    private final VariableSelection selection;
+    private final ExpressionGraph graph;
+    private final int[] coordinateNodes;
+    private final int[] orientations;
+    private final int[] positions;
+
+    /**
+     * Assembles the expressions of every frame related to the ground into the graph.
+     *
+     * @param selection is the selection of modeling variables
+     * @param graph is the expression graph receiving the expressions, which can be
+     *        shared with other systems
+     */
+    public KinematicEquations(VariableSelection selection, ExpressionGraph graph) {
+        this.selection = selection;
+        this.graph = graph;
+        CompactMechanicalSystem system = selection.getSystem();
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+
+        coordinateNodes = new int[selection.getVariableCount()];
+        int[] rotationalStarts = new int[componentCount];
+        int[] translationalStarts = new int[componentCount];
+        Arrays.fill(rotationalStarts, -1);
+        Arrays.fill(translationalStarts, -1);
+        for (int variable = 0; variable < coordinateNodes.length; variable++) {
+            coordinateNodes[variable] = graph.variable(selection.getVariableName(variable));
+            int[] starts = selection.getDomain(variable).equals(Domain.ROTATIONAL) ? rotationalStarts : translationalStarts;
+            if (starts[selection.getComponent(variable)] < 0) {
+                starts[selection.getComponent(variable)] = variable;
+            }
+        }
+
+        orientations = new int[9 * frameCount];
+        positions = new int[3 * frameCount];
+        Arrays.fill(orientations, -1);
+        Arrays.fill(positions, -1);
+        int ground = system.getGround();
+        int zero = graph.constant(0);
+        int one = graph.constant(1);
+        for (int i = 0; i < 9; i++) {
+            orientations[9 * ground + i] = i % 4 == 0 ? one : zero;
+        }
+        for (int i = 0; i < 3; i++) {
+            positions[3 * ground + i] = zero;
+        }
+
+        /*
+         * The tree components are ordered parents before children, so one of the
+         * frames of each component already has its expressions
+         */
+        for (int component : selection.getTreeComponents(Domain.ROTATIONAL)) {
+            int source = system.getSourceFrame(component);
+            int target = system.getTargetFrame(component);
+            boolean forward = orientations[9 * source] >= 0;
+            int[] rotation = getRotation(system.getComponentType(component), rotationalStarts[component]);
+            if (forward) {
+                multiply(orientations, source, rotation, false, target);
+            } else {
+                multiply(orientations, target, rotation, true, source);
+            }
+        }
+        for (int component : selection.getTreeComponents(Domain.TRANSLATIONAL)) {
+            int source = system.getSourceFrame(component);
+            int target = system.getTargetFrame(component);
+            boolean forward = positions[3 * source] >= 0;
+            int[] displacement = rotate(source, getDisplacement(system.getComponentType(component), translationalStarts[component]));
+            for (int axis = 0; axis < 3; axis++) {
+                if (forward) {
+                    positions[3 * target + axis] = graph.add(positions[3 * source + axis], displacement[axis]);
+                } else {
+                    positions[3 * source + axis] = graph.subtract(positions[3 * target + axis], displacement[axis]);
+                }
+            }
+        }
+    }
+
+    /*
+     * Returns the rotation matrix of a component, row by row: the product of the
+     * rotations about the axes of its variables
+     */
+    private int[] getRotation(ComponentType type, int start) {
+        int zero = graph.constant(0);
+        int one = graph.constant(1);
+        int[] rotation = {one, zero, zero, zero, one, zero, zero, zero, one};
+        String[] variables = type.getRotationalVariables();
+        for (int index = 0; index < variables.length; index++) {
+            int angle = coordinateNodes[start + index];
+            int c = graph.cos(angle);
+            int s = graph.sin(angle);
+            int minusS = graph.negate(s);
+            int[] axisRotation;
+            switch (getAxis(variables[index])) {
+            case 0:
+                axisRotation = new int[]{one, zero, zero, zero, c, minusS, zero, s, c};
+                break;
+            case 1:
+                axisRotation = new int[]{c, zero, s, zero, one, zero, minusS, zero, c};
+                break;
+            default:
+                axisRotation = new int[]{c, minusS, zero, s, c, zero, zero, zero, one};
+                break;
+            }
+            int[] product = new int[9];
+            for (int row = 0; row < 3; row++) {
+                for (int column = 0; column < 3; column++) {
+                    product[3 * row + column] = dot(rotation, 3 * row, 1, axisRotation, column, 3);
+                }
+            }
+            rotation = product;
+        }
+        return rotation;
+    }
+
+    /*
+     * Returns the displacement of a component along the axes of its variables
+     */
+    private int[] getDisplacement(ComponentType type, int start) {
+        int zero = graph.constant(0);
+        int[] displacement = {zero, zero, zero};
+        String[] variables = type.getTranslationalVariables();
+        for (int index = 0; index < variables.length; index++) {
+            displacement[getAxis(variables[index])] = coordinateNodes[start + index];
+        }
+        return displacement;
+    }
+
+    private static int getAxis(String variable) {
+        if (variable.equals("x") || variable.equals("phi")) {
+            return 0;
+        }
+        if (variable.equals("y") || variable.equals("theta")) {
+            return 1;
+        }
+        return 2;
+    }
+
+    /*
+     * Sets the orientation of the child frame to the orientation of the parent frame
+     * multiplied by the rotation, or by its transpose
+     */
+    private void multiply(int[] matrices, int parent, int[] rotation, boolean transpose, int child) {
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 3; column++) {
+                matrices[9 * child + 3 * row + column] = transpose
+                        ? dot(matrices, 9 * parent + 3 * row, 1, rotation, 3 * column, 1)
+                        : dot(matrices, 9 * parent + 3 * row, 1, rotation, column, 3);
+            }
+        }
+    }
+
+    /*
+     * Expresses a displacement along the axes of a frame in the axes of the ground
+     */
+    private int[] rotate(int frame, int[] displacement) {
+        int[] rotated = new int[3];
+        for (int row = 0; row < 3; row++) {
+            rotated[row] = dot(orientations, 9 * frame + 3 * row, 1, displacement, 0, 1);
+        }
+        return rotated;
+    }
+
+    private int dot(int[] left, int leftStart, int leftStride, int[] right, int rightStart, int rightStride) {
+        int sum = graph.constant(0);
+        for (int i = 0; i < 3; i++) {
+            sum = graph.add(sum, graph.multiply(left[leftStart + i * leftStride], right[rightStart + i * rightStride]));
+        }
+        return sum;
+    }
+
+    /**
+     * @return the selection of modeling variables the expressions were built from
+     */
+    public VariableSelection getSelection() {
+        return selection;
+    }
+
+    /**
+     * @return the expression graph holding the expressions
+     */
+    public ExpressionGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @param variable is the number of the variable in the selection
+     * @return the id of the node of the variable
+     */
+    public int getCoordinateNode(int variable) {
+        return coordinateNodes[variable];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return true if the frame is related to the ground in both domains
+     */
+    public boolean isRelated(int frame) {
+        return orientations[9 * frame] >= 0 && positions[3 * frame] >= 0;
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @param row is the row of the rotation matrix, from 0 to 2
+     * @param column is the column of the rotation matrix, from 0 to 2
+     * @return the id of the node of the entry of the rotation matrix from the frame's
+     *         axes to the ground's axes, or -1 if the frame is not related to the ground
+     */
+    public int getOrientation(int frame, int row, int column) {
+        return orientations[9 * frame + 3 * row + column];
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @param axis is the axis of the ground, from 0 to 2
+     * @return the id of the node of the frame's position along the axis, or -1 if the
+     *         frame is not related to the ground
+     */
+    public int getPosition(int frame, int axis) {
+        return positions[3 * frame + axis];
+    }
+}
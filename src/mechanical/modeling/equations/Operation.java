@@ -0,0 +1,15 @@
+package mechanical.modeling.equations;
+
+/**
+ * Enumerates the operations of the nodes of an expression graph.
+ */
+public enum Operation {
+    CONSTANT,
+    VARIABLE,
+    ADD,
+    SUBTRACT,
+    MULTIPLY,
+    NEGATE,
+    SIN,
+    COS
+}
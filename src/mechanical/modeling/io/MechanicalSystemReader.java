@@ -0,0 +1,280 @@
+package mechanical.modeling.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+/**
+ * This class reads mechanical systems exported by other tools, in a line
+ * oriented text format or in a compact binary format. Both formats are
+ * read in a single pass; only the reference frames are kept in memory
+ * besides the system being built, and each reference frame name is
+ * interned so that all the components attached to it share one frame.
+ *
+ * <p>
+ * The text format has one record per line. Empty lines and lines starting
+ * with # are ignored. The first record declares the ground and every
+ * following record declares a component, with comma separated fields:
+ * </p>
+ *
+ * <pre>
+ * ground,O
+ * m1,RIGID_BODY,O,A
+ * h2,REVOLUTE_JOINT,A,B
+ * </pre>
+ *
+ * <p>
+ * The binary format, written by {@link MechanicalSystemWriter}, starts with
+ * a header holding a magic number, a version and the name of the ground.
+ * It is followed by frame records, which give the next frame id to a name,
+ * and component records referring to the frames by id.
+ * </p>
+ *
+ * <p>
+ * A malformed record does not abort the reading: it is skipped and reported
+ * in the result, and the system is built from the other records. Only the
+ * first {@link #MAX_REPORTED_ERRORS} errors are kept, the others are counted.
+ * </p>
+ */
+public final class MechanicalSystemReader {
+
+    /** The maximum number of errors whose message is kept in a result */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    static final int MAGIC = 0x4D535953;
+    static final int VERSION = 1;
+    static final byte END_RECORD = 0;
+    static final byte FRAME_RECORD = 1;
+    static final byte COMPONENT_RECORD = 2;
+    static final String GROUND_RECORD = "ground";
+    static final char SEPARATOR = ',';
+
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    /*
+     * This class contains only static utility methods. Therefore the constructor is private
+     * so that nobody can instantiate it.
+     */
+    private MechanicalSystemReader() {
+    }
+
+    /**
+     * Reads a mechanical system in the text format. The reader is not closed.
+     *
+     * @param reader is the reader of the text
+     * @return the system built from the valid records, and the malformed records
+     *
+     * @throws IOException if the text cannot be read or does not declare the ground
+     *         before its components.
+     */
+    public static Result readText(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Map<String, ReferenceFrame> frames = new HashMap<String, ReferenceFrame>();
+        String[] fields = new String[4];
+        Result result = null;
+
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().length() == 0 || line.charAt(0) == '#') {
+                continue;
+            }
+
+            int fieldCount = split(line, fields);
+            if (result == null) {
+                if (fieldCount != 2 || !GROUND_RECORD.equals(fields[0]) || fields[1].length() == 0) {
+                    throw new IOException("Line " + lineNumber + ": the ground must be declared before the components");
+                }
+                ReferenceFrame ground = new ReferenceFrame(fields[1]);
+                frames.put(ground.getName(), ground);
+                result = new Result(new MechanicalSystem(ground));
+                continue;
+            }
+
+            if (fieldCount != 4) {
+                result.addError(lineNumber, "expected 4 fields but found " + fieldCount);
+                continue;
+            }
+            if (fields[0].length() == 0 || fields[2].length() == 0 || fields[3].length() == 0) {
+                result.addError(lineNumber, "the component and reference frame names cannot be empty");
+                continue;
+            }
+            ComponentType type = getType(fields[1]);
+            if (type == null) {
+                result.addError(lineNumber, "unknown component type " + fields[1]);
+                continue;
+            }
+            result.system.addComponent(new MechanicalComponent(fields[0], getFrame(frames, fields[2]),
+                    getFrame(frames, fields[3]), type));
+        }
+
+        if (result == null) {
+            throw new IOException("The text does not declare a ground");
+        }
+        return result;
+    }
+
+    /**
+     * Reads a mechanical system in the binary format. The stream is not closed. If the
+     * stream ends before the end record, the error is reported and the components read
+     * so far are returned.
+     *
+     * @param stream is the input stream of the binary data
+     * @return the system built from the valid records, and the malformed records
+     *
+     * @throws IOException if the stream cannot be read or does not hold a system in a
+     *         supported version of the binary format.
+     */
+    public static Result readBinary(InputStream stream) throws IOException {
+        DataInputStream input = new DataInputStream(stream instanceof BufferedInputStream ? stream : new BufferedInputStream(stream));
+        if (input.readInt() != MAGIC) {
+            throw new IOException("The stream does not hold a mechanical system");
+        }
+        int version = input.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of the binary format");
+        }
+
+        List<ReferenceFrame> frames = new ArrayList<ReferenceFrame>();
+        frames.add(new ReferenceFrame(input.readUTF()));
+        Result result = new Result(new MechanicalSystem(frames.get(0)));
+
+        int record = 0;
+        try {
+            while (true) {
+                record++;
+                byte tag = input.readByte();
+                if (tag == END_RECORD) {
+                    break;
+                } else if (tag == FRAME_RECORD) {
+                    frames.add(new ReferenceFrame(input.readUTF()));
+                } else if (tag == COMPONENT_RECORD) {
+                    String name = input.readUTF();
+                    int type = input.readByte();
+                    int source = input.readInt();
+                    int target = input.readInt();
+                    if (type < 0 || type >= TYPES.length) {
+                        result.addError(record, "unknown component type " + type);
+                    } else if (source < 0 || source >= frames.size() || target < 0 || target >= frames.size()) {
+                        result.addError(record, "unknown reference frame");
+                    } else {
+                        result.system.addComponent(new MechanicalComponent(name, frames.get(source), frames.get(target), TYPES[type]));
+                    }
+                } else {
+                    result.addError(record, "unknown record " + tag + ", the rest of the stream was skipped");
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            result.addError(record, "the stream ended before the end record");
+        }
+        return result;
+    }
+
+    /*
+     * Splits the line on the separator into the fields array, trimming each field, and
+     * returns the number of fields found. Fields beyond the array's length are counted
+     * but not stored.
+     */
+    private static int split(String line, String[] fields) {
+        int count = 0;
+        int start = 0;
+        while (true) {
+            int end = line.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = line.length();
+            }
+            if (count < fields.length) {
+                fields[count] = line.substring(start, end).trim();
+            }
+            count++;
+            if (end == line.length()) {
+                return count;
+            }
+            start = end + 1;
+        }
+    }
+
+    private static ComponentType getType(String name) {
+        try {
+            return ComponentType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ReferenceFrame getFrame(Map<String, ReferenceFrame> frames, String name) {
+        ReferenceFrame frame = frames.get(name);
+        if (frame == null) {
+            frame = new ReferenceFrame(name);
+            frames.put(name, frame);
+        }
+        return frame;
+    }
+
+    /**
+     * This class holds a mechanical system that was read and the errors found
+     * while reading it.
+     */
+    public static final class Result {
+
+        private final MechanicalSystem system;
+        private final List<String> errors;
+        private int errorCount;
+
+        Result(MechanicalSystem system) {
+            this.system = system;
+            this.errors = new ArrayList<String>();
+        }
+
+        void addError(int record, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Record " + record + ": " + message);
+            }
+        }
+
+        /**
+         * @return the mechanical system built from the valid records
+         */
+        public MechanicalSystem getSystem() {
+            return system;
+        }
+
+        /**
+         * @return the number of malformed records
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return the messages of the first malformed records, each starting with the
+         *         number of the record. The records of the text format are numbered
+         *         by line.
+         */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        @Override
+        public String toString() {
+            return "MechanicalSystemReader.Result[Components: " + system.getAllComponents().size() + ", Errors: " + errorCount + "]";
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package mechanical.modeling.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import mechanical.modeling.algorithms.VariableSelection;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+/**
+ * This class gives read access to a snapshot file of a compact mechanical
+ * system and, optionally, of the trees selected for it. The file is mapped
+ * in memory when it is opened; its content is read on demand, so opening a
+ * snapshot costs the same for any size of system.
+ *
+ * <p>
+ * The snapshot holds the reference frames and components of the system and
+ * the adjacency arrays of its graph, whose topology is the same in both
+ * domains. When the trees are included, the selected variables are served
+ * from the snapshot by building the names of the tree components only. The
+ * system can also be copied back to a {@link CompactMechanicalSystem} to
+ * run new selections.
+ * </p>
+ *
+ * <p>
+ * The file starts with a magic number and a version; a file written in a
+ * different version is rejected. A snapshot can be read by concurrent
+ * threads.
+ * </p>
+ */
+public final class MechanicalSystemSnapshot {
+
+    static final int MAGIC = 0x4D534E50;
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 32;
+    private static final ComponentType[] TYPES = ComponentType.values();
+
+    private final ByteBuffer buffer;
+    private final int frameCount;
+    private final int componentCount;
+    private final boolean hasTrees;
+    private final int rotationalTreeLength;
+    private final int translationalTreeLength;
+    private final int typesOffset;
+    private final int sourceFramesOffset;
+    private final int targetFramesOffset;
+    private final int adjacencyOffsetsOffset;
+    private final int adjacentFramesOffset;
+    private final int adjacentComponentsOffset;
+    private final int rotationalTreeOffset;
+    private final int translationalTreeOffset;
+    private final int nameOffsetsOffset;
+    private final int charactersOffset;
+
+    private MechanicalSystemSnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("The file is not a mechanical system snapshot");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of the snapshot format");
+        }
+        this.buffer = buffer;
+        this.frameCount = buffer.getInt(8);
+        this.componentCount = buffer.getInt(12);
+        this.hasTrees = buffer.getInt(16) != 0;
+        this.rotationalTreeLength = buffer.getInt(20);
+        this.translationalTreeLength = buffer.getInt(24);
+        int characterCount = buffer.getInt(28);
+
+        typesOffset = HEADER_BYTES;
+        sourceFramesOffset = typesOffset + align(componentCount);
+        targetFramesOffset = sourceFramesOffset + 4 * componentCount;
+        adjacencyOffsetsOffset = targetFramesOffset + 4 * componentCount;
+        adjacentFramesOffset = adjacencyOffsetsOffset + 4 * (frameCount + 1);
+        adjacentComponentsOffset = adjacentFramesOffset + 8 * componentCount;
+        rotationalTreeOffset = adjacentComponentsOffset + 8 * componentCount;
+        translationalTreeOffset = rotationalTreeOffset + 4 * rotationalTreeLength;
+        nameOffsetsOffset = translationalTreeOffset + 4 * translationalTreeLength;
+        charactersOffset = nameOffsetsOffset + 4 * (frameCount + componentCount + 1);
+        if (buffer.capacity() != charactersOffset + 2L * characterCount) {
+            throw new IOException("The snapshot file is truncated or corrupted");
+        }
+    }
+
+    /**
+     * Writes a snapshot of a compact mechanical system and of the trees selected for it.
+     *
+     * @param system is the compact mechanical system
+     * @param selection is the selection made for the system, or null to only write the system
+     * @param file is the file to be written
+     *
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the selection was made for another system.
+     */
+    public static void write(CompactMechanicalSystem system, VariableSelection selection, File file) throws IOException {
+        if (selection != null && selection.getSystem() != system) {
+            throw new IllegalArgumentException("The selection was not made for the system");
+        }
+        int[] rotationalTree = selection == null ? new int[0] : selection.getTreeComponents(Domain.ROTATIONAL);
+        int[] translationalTree = selection == null ? new int[0] : selection.getTreeComponents(Domain.TRANSLATIONAL);
+        int frameCount = system.getFrameCount();
+        int componentCount = system.getComponentCount();
+
+        int characterCount = 0;
+        for (int frame = 0; frame < frameCount; frame++) {
+            characterCount += system.getFrameName(frame).length();
+        }
+        for (int component = 0; component < componentCount; component++) {
+            characterCount += system.getComponentName(component).length();
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(frameCount);
+            output.writeInt(componentCount);
+            output.writeInt(selection == null ? 0 : 1);
+            output.writeInt(rotationalTree.length);
+            output.writeInt(translationalTree.length);
+            output.writeInt(characterCount);
+
+            for (int component = 0; component < componentCount; component++) {
+                output.writeByte(system.getComponentType(component).ordinal());
+            }
+            for (int i = componentCount; i < align(componentCount); i++) {
+                output.writeByte(0);
+            }
+            for (int component = 0; component < componentCount; component++) {
+                output.writeInt(system.getSourceFrame(component));
+            }
+            for (int component = 0; component < componentCount; component++) {
+                output.writeInt(system.getTargetFrame(component));
+            }
+            for (int frame = 0; frame < frameCount; frame++) {
+                output.writeInt(system.getAdjacencyStart(frame));
+            }
+            output.writeInt(2 * componentCount);
+            for (int i = 0; i < 2 * componentCount; i++) {
+                output.writeInt(system.getAdjacentFrame(i));
+            }
+            for (int i = 0; i < 2 * componentCount; i++) {
+                output.writeInt(system.getAdjacentComponent(i));
+            }
+            for (int component : rotationalTree) {
+                output.writeInt(component);
+            }
+            for (int component : translationalTree) {
+                output.writeInt(component);
+            }
+
+            int nameOffset = 0;
+            for (int frame = 0; frame < frameCount; frame++) {
+                output.writeInt(nameOffset);
+                nameOffset += system.getFrameName(frame).length();
+            }
+            for (int component = 0; component < componentCount; component++) {
+                output.writeInt(nameOffset);
+                nameOffset += system.getComponentName(component).length();
+            }
+            output.writeInt(nameOffset);
+            for (int frame = 0; frame < frameCount; frame++) {
+                output.writeChars(system.getFrameName(frame));
+            }
+            for (int component = 0; component < componentCount; component++) {
+                output.writeChars(system.getComponentName(component));
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Opens a snapshot file by mapping it in memory. The mapping stays valid after the
+     * file is closed, until the snapshot is garbage collected.
+     *
+     * @param file is the snapshot file
+     * @return the snapshot
+     *
+     * @throws IOException if the file cannot be read, is not a snapshot in the supported
+     *         version of the format, or is larger than 2 GB.
+     */
+    public static MechanicalSystemSnapshot open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The snapshot file is larger than 2 GB");
+            }
+            return new MechanicalSystemSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+
+    /**
+     * @return the number of reference frames, including the ground
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @param frame is the id of the reference frame. The ground has the id 0.
+     * @return the name of the reference frame
+     */
+    public String getFrameName(int frame) {
+        return getName(frame);
+    }
+
+    /**
+     * @return the number of mechanical components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the name of the mechanical component
+     */
+    public String getComponentName(int component) {
+        return getName(frameCount + component);
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the type of the mechanical component
+     */
+    public ComponentType getComponentType(int component) {
+        return TYPES[buffer.get(typesOffset + component)];
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the id of the source reference frame of the component
+     */
+    public int getSourceFrame(int component) {
+        return buffer.getInt(sourceFramesOffset + 4 * component);
+    }
+
+    /**
+     * @param component is the id of the mechanical component
+     * @return the id of the target reference frame of the component
+     */
+    public int getTargetFrame(int component) {
+        return buffer.getInt(targetFramesOffset + 4 * component);
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the index of the first entry of the frame's adjacency
+     */
+    public int getAdjacencyStart(int frame) {
+        return buffer.getInt(adjacencyOffsetsOffset + 4 * frame);
+    }
+
+    /**
+     * @param frame is the id of the reference frame
+     * @return the index following the last entry of the frame's adjacency
+     */
+    public int getAdjacencyEnd(int frame) {
+        return buffer.getInt(adjacencyOffsetsOffset + 4 * (frame + 1));
+    }
+
+    /**
+     * @param index is the index of an adjacency entry
+     * @return the id of the reference frame at the other end of the entry's component
+     */
+    public int getAdjacentFrame(int index) {
+        return buffer.getInt(adjacentFramesOffset + 4 * index);
+    }
+
+    /**
+     * @param index is the index of an adjacency entry
+     * @return the id of the entry's component
+     */
+    public int getAdjacentComponent(int index) {
+        return buffer.getInt(adjacentComponentsOffset + 4 * index);
+    }
+
+    /**
+     * @return true if the snapshot includes the trees selected for the system
+     */
+    public boolean hasTrees() {
+        return hasTrees;
+    }
+
+    /**
+     * @param domain is the domain of the tree
+     * @return the ids of the components of the selected tree of the given domain
+     *
+     * @throws IllegalStateException if the snapshot does not include the trees.
+     */
+    public int[] getTreeComponents(Domain domain) {
+        if (!hasTrees) {
+            throw new IllegalStateException("The snapshot does not include the selected trees");
+        }
+        int offset = domain.equals(Domain.ROTATIONAL) ? rotationalTreeOffset : translationalTreeOffset;
+        int length = domain.equals(Domain.ROTATIONAL) ? rotationalTreeLength : translationalTreeLength;
+        int[] tree = new int[length];
+        for (int i = 0; i < length; i++) {
+            tree[i] = buffer.getInt(offset + 4 * i);
+        }
+        return tree;
+    }
+
+    /**
+     * Builds the names of the selected variables, in the order they were returned
+     * by the selection the snapshot was written with.
+     *
+     * @return a set of Strings defining the selected modeling variables
+     *
+     * @throws IllegalStateException if the snapshot does not include the trees.
+     */
+    public Set<String> getVariables() {
+        Set<String> variables = new LinkedHashSet<String>();
+        addTreeVariables(variables, Domain.ROTATIONAL);
+        addTreeVariables(variables, Domain.TRANSLATIONAL);
+        return variables;
+    }
+
+    private void addTreeVariables(Set<String> variables, Domain domain) {
+        for (int component : getTreeComponents(domain)) {
+            ComponentType type = getComponentType(component);
+            String[] typeVariables = domain.equals(Domain.ROTATIONAL) ? type.getRotationalVariables() : type.getTranslationalVariables();
+            if (typeVariables.length > 0) {
+                String name = getComponentName(component);
+                for (String typeVariable : typeVariables) {
+                    variables.add(typeVariable + "_" + name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the snapshot to a compact mechanical system, with the same frame and
+     * component ids.
+     *
+     * @return the compact mechanical system
+     */
+    public CompactMechanicalSystem toCompactSystem() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder(getFrameName(0), frameCount, componentCount);
+        for (int frame = 1; frame < frameCount; frame++) {
+            builder.addFrame(getFrameName(frame));
+        }
+        for (int component = 0; component < componentCount; component++) {
+            builder.addComponent(getComponentName(component), getSourceFrame(component), getTargetFrame(component),
+                    getComponentType(component));
+        }
+        return builder.build();
+    }
+
+    /*
+     * Reads the name at the given index of the name table, where the frames are
+     * followed by the components
+     */
+    private String getName(int index) {
+        int start = buffer.getInt(nameOffsetsOffset + 4 * index);
+        int end = buffer.getInt(nameOffsetsOffset + 4 * (index + 1));
+        char[] characters = new char[end - start];
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = buffer.getChar(charactersOffset + 2 * (start + i));
+        }
+        return new String(characters);
+    }
+
+    @Override
+    public String toString() {
+        return "MechanicalSystemSnapshot[Frames: " + frameCount + ", Components: " + componentCount + ", Trees: " + hasTrees + "]";
+    }
+}
@@ -0,0 +1,116 @@
+package mechanical.modeling.io;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+/**
+ * This class writes mechanical systems in the text and binary formats read
+ * by {@link MechanicalSystemReader}. The components are written in the
+ * order they were added to the system.
+ */
+public final class MechanicalSystemWriter {
+
+    /*
+     * This class contains only static utility methods. Therefore the constructor is private
+     * so that nobody can instantiate it.
+     */
+    private MechanicalSystemWriter() {
+    }
+
+    /**
+     * Writes a mechanical system in the text format. The writer is flushed but not closed.
+     *
+     * @param mechanicalSystem is the mechanical system to be written
+     * @param writer is the writer of the text
+     *
+     * @throws IOException if the text cannot be written.
+     * @throws IllegalArgumentException if a name is empty, contains a separator or a line break,
+     *         starts with # or starts or ends with whitespace.
+     */
+    public static void writeText(MechanicalSystem mechanicalSystem, Writer writer) throws IOException {
+        BufferedWriter lines = new BufferedWriter(writer);
+        lines.write(MechanicalSystemReader.GROUND_RECORD);
+        lines.write(MechanicalSystemReader.SEPARATOR);
+        lines.write(checkName(mechanicalSystem.getGround().getName()));
+        lines.newLine();
+        for (MechanicalComponent component : mechanicalSystem.getAllComponents()) {
+            lines.write(checkName(component.getName()));
+            lines.write(MechanicalSystemReader.SEPARATOR);
+            lines.write(component.getType().name());
+            lines.write(MechanicalSystemReader.SEPARATOR);
+            lines.write(checkName(component.getSourceReferenceFrame().getName()));
+            lines.write(MechanicalSystemReader.SEPARATOR);
+            lines.write(checkName(component.getTargetReferenceFrame().getName()));
+            lines.newLine();
+        }
+        lines.flush();
+    }
+
+    /**
+     * Writes a mechanical system in the binary format. The stream is flushed but not closed.
+     *
+     * @param mechanicalSystem is the mechanical system to be written
+     * @param stream is the output stream of the binary data
+     *
+     * @throws IOException if the data cannot be written.
+     */
+    public static void writeBinary(MechanicalSystem mechanicalSystem, OutputStream stream) throws IOException {
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+        output.writeInt(MechanicalSystemReader.MAGIC);
+        output.writeShort(MechanicalSystemReader.VERSION);
+        output.writeUTF(mechanicalSystem.getGround().getName());
+
+        Map<ReferenceFrame, Integer> frameIds = new HashMap<ReferenceFrame, Integer>();
+        frameIds.put(mechanicalSystem.getGround(), Integer.valueOf(0));
+        for (MechanicalComponent component : mechanicalSystem.getAllComponents()) {
+            int source = getFrameId(output, frameIds, component.getSourceReferenceFrame());
+            int target = getFrameId(output, frameIds, component.getTargetReferenceFrame());
+            output.writeByte(MechanicalSystemReader.COMPONENT_RECORD);
+            output.writeUTF(component.getName());
+            output.writeByte(component.getType().ordinal());
+            output.writeInt(source);
+            output.writeInt(target);
+        }
+        output.writeByte(MechanicalSystemReader.END_RECORD);
+        output.flush();
+    }
+
+    /*
+     * Returns the id of the reference frame, writing a frame record the first time it is seen
+     */
+    private static int getFrameId(DataOutputStream output, Map<ReferenceFrame, Integer> frameIds,
+            ReferenceFrame frame) throws IOException {
+        Integer id = frameIds.get(frame);
+        if (id == null) {
+            id = Integer.valueOf(frameIds.size());
+            frameIds.put(frame, id);
+            output.writeByte(MechanicalSystemReader.FRAME_RECORD);
+            output.writeUTF(frame.getName());
+        }
+        return id.intValue();
+    }
+
+    /*
+     * Rejects the names the reader would not read back unchanged: names holding a
+     * separator or a line break, names starting with the comment character, which would
+     * start a comment line as a component name, and names with leading or trailing
+     * whitespace, which the reader trims.
+     */
+    private static String checkName(String name) {
+        if (name.length() == 0 || name.indexOf(MechanicalSystemReader.SEPARATOR) >= 0 || name.indexOf('\n') >= 0
+                || name.indexOf('\r') >= 0 || name.charAt(0) == '#' || !name.trim().equals(name)) {
+            throw new IllegalArgumentException("The name " + name + " cannot be written in the text format");
+        }
+        return name;
+    }
+}
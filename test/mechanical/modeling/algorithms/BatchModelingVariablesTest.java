@@ -0,0 +1,74 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+import org.junit.Test;
+
+public class BatchModelingVariablesTest {
+
+    @Test
+    public void findTheVariablesOfABatchContainingAnEmptySystem_onlyTheEmptySystemShouldFail() {
+        List<MechanicalSystem> systems = new ArrayList<MechanicalSystem>();
+        for (int i = 0; i < 5; i++) {
+            ReferenceFrame ground = new ReferenceFrame("Ground");
+            ReferenceFrame cs1 = new ReferenceFrame("CS1");
+            MechanicalSystem system = new MechanicalSystem(ground);
+            if (i != 2) {
+                system.addComponent(new MechanicalComponent("h" + i, ground, cs1, ComponentType.REVOLUTE_JOINT));
+            }
+            systems.add(system);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<BatchModelingVariables.Result> results = new BatchModelingVariables(executor, 2).findVariables(systems);
+            assertEquals("The wrong number of results was returned", 5, results.size());
+            for (int i = 0; i < 5; i++) {
+                if (i == 2) {
+                    assertTrue("The empty system should have failed", !results.get(i).isSuccessful());
+                    assertTrue("The wrong error was returned", results.get(i).getError() instanceof IllegalArgumentException);
+                } else {
+                    assertTrue("The system should not have failed", results.get(i).isSuccessful());
+                    assertEquals("The results were not returned in order", 1, results.get(i).getVariables().size());
+                    assertTrue("The results were not returned in order", results.get(i).getVariables().contains("phi_h" + i));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void getTheVariablesOfAFailedSystem_shouldReturnAnException() {
+        List<MechanicalSystem> systems = new ArrayList<MechanicalSystem>();
+        systems.add(new MechanicalSystem(new ReferenceFrame("Ground")));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new BatchModelingVariables(executor, 1).findVariables(systems).get(0).getVariables();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void createABatchWithoutAllowingSystemsInFlight_shouldReturnAnException() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new BatchModelingVariables(executor, 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class BucketShortestPathsTreeTest {
+
+    @Test
+    public void findTheRotationalTreeOfACompactSystem_theRightTreeShouldBeReturned() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 5, 6);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int nD = builder.addFrame("D");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        int r3 = builder.addComponent("r3", nA, nC, ComponentType.ARM);
+        int r4 = builder.addComponent("r4", nB, nD, ComponentType.ARM);
+        int h5 = builder.addComponent("h5", 0, nA, ComponentType.REVOLUTE_JOINT);
+        int h6 = builder.addComponent("h6", nC, nD, ComponentType.REVOLUTE_JOINT);
+        CompactMechanicalSystem system = builder.build();
+
+        BucketShortestPathsTree tree = new BucketShortestPathsTree(system, Domain.ROTATIONAL);
+        assertArrayEquals("The wrong tree was found", new int[]{h5, r3, h6, r4}, tree.getTreeComponents());
+        assertEquals("The wrong distance was found", 2, tree.getDistance(nB));
+        assertEquals("The wrong parent frame was found", nD, tree.getParentFrame(nB));
+        assertEquals("The ground should not have a parent", -1, tree.getParentComponent(0));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void findATreeWithAFractionalWeight_shouldReturnAnException() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        builder.addComponent("m1", 0, builder.addFrame("A"), ComponentType.RIGID_BODY);
+
+        new BucketShortestPathsTree(builder.build(), Domain.ROTATIONAL, new EdgeWeight() {
+            @Override
+            public double getWeight(ComponentType type, Domain domain) {
+                return 0.5;
+            }
+        });
+    }
+}
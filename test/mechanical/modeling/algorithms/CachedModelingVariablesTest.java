@@ -0,0 +1,73 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+import org.junit.Test;
+
+public class CachedModelingVariablesTest {
+
+    @Test
+    public void findTheVariablesOfTwoSystemsWithTheSameTopology_theSecondSystemShouldBeAnsweredFromTheCache() {
+        CachedModelingVariables cache = new CachedModelingVariables(10, 1024 * 1024);
+
+        Set<String> firstVariables = cache.findVariables(createSystem("a", ComponentType.REVOLUTE_JOINT));
+        Set<String> secondVariables = cache.findVariables(createSystem("b", ComponentType.REVOLUTE_JOINT));
+
+        assertEquals("The second system was not answered from the cache", 1, cache.getHitCount());
+        assertEquals("The first system should have been solved", 1, cache.getMissCount());
+        assertEquals("The wrong number of modeling variables were found", 1, firstVariables.size());
+        assertTrue("The variables were not named after the first system's components", firstVariables.contains("phi_ah"));
+        assertEquals("The wrong number of modeling variables were found", 1, secondVariables.size());
+        assertTrue("The variables were not named after the second system's components", secondVariables.contains("phi_bh"));
+    }
+
+    @Test
+    public void findTheVariablesOfSystemsWithDifferentTopologies_theLeastRecentlyUsedEntryShouldBeEvicted() {
+        CachedModelingVariables cache = new CachedModelingVariables(1, 1024 * 1024);
+
+        cache.findVariables(createSystem("a", ComponentType.REVOLUTE_JOINT));
+        Set<String> variables = cache.findVariables(createSystem("b", ComponentType.UNIVERSAL_JOINT));
+        cache.findVariables(createSystem("c", ComponentType.REVOLUTE_JOINT));
+
+        assertEquals("Systems with different topologies should not share an entry", 0, cache.getHitCount());
+        assertEquals("The wrong number of entries were evicted", 2, cache.getEvictionCount());
+        assertEquals("The cache exceeds its bound", 1, cache.size());
+        assertEquals("The wrong number of modeling variables were found", 2, variables.size());
+    }
+
+    @Test
+    public void findTheVariablesWithASmallMemoryBound_noEntryShouldBeKept() {
+        CachedModelingVariables cache = new CachedModelingVariables(10, 1);
+
+        cache.findVariables(createSystem("a", ComponentType.REVOLUTE_JOINT));
+        assertEquals("The cache exceeds its memory bound", 0, cache.size());
+        assertEquals("The cache exceeds its memory bound", 0, cache.getEstimatedBytes());
+        assertEquals("The entry was not evicted", 1, cache.getEvictionCount());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void createACacheWithoutEntries_shouldReturnAnException() {
+        new CachedModelingVariables(0, 1024);
+    }
+
+    /*
+     * Creates a system where a joint of the given type and a rigid body link the same frame to the ground
+     */
+    private static MechanicalSystem createSystem(String prefix, ComponentType jointType) {
+        ReferenceFrame ground = new ReferenceFrame(prefix + "Ground");
+        ReferenceFrame cs1 = new ReferenceFrame(prefix + "CS1");
+
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent(prefix + "m", ground, cs1, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent(prefix + "h", ground, cs1, jointType));
+        return system;
+    }
+}
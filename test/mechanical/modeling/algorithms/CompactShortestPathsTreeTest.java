@@ -0,0 +1,69 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class CompactShortestPathsTreeTest {
+
+    @Test
+    public void findTheRotationalTreeOfACompactSystem_theRightTreeShouldBeReturned() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 5, 6);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int nD = builder.addFrame("D");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        int r3 = builder.addComponent("r3", nA, nC, ComponentType.ARM);
+        int r4 = builder.addComponent("r4", nB, nD, ComponentType.ARM);
+        int h5 = builder.addComponent("h5", 0, nA, ComponentType.REVOLUTE_JOINT);
+        int h6 = builder.addComponent("h6", nC, nD, ComponentType.REVOLUTE_JOINT);
+        CompactMechanicalSystem system = builder.build();
+
+        CompactShortestPathsTree tree = new CompactShortestPathsTree(system, Domain.ROTATIONAL);
+        assertArrayEquals("The wrong tree was found", new int[]{h5, r3, h6, r4}, tree.getTreeComponents());
+        assertArrayEquals("The frames were not added in order", new int[]{0, nA, nC, nD, nB}, tree.getFrameOrder());
+        assertEquals("The wrong distance was found", 2, tree.getDistance(nB), 0);
+        assertEquals("The wrong parent frame was found", nD, tree.getParentFrame(nB));
+        assertEquals("The ground should not have a parent", -1, tree.getParentComponent(0));
+    }
+
+    @Test
+    public void findATreeWithEqualLengthPaths_thePathWithTheCheapestLastEdgeShouldBeKept() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 4);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nB, ComponentType.RIGID_BODY);
+        builder.addComponent("u2", 0, nA, ComponentType.UNIVERSAL_JOINT);
+        int h3 = builder.addComponent("h3", nA, nC, ComponentType.REVOLUTE_JOINT);
+        int r4 = builder.addComponent("r4", nC, nB, ComponentType.ARM);
+        builder.addFrame("Unconnected");
+        CompactMechanicalSystem system = builder.build();
+
+        CompactShortestPathsTree tree = new CompactShortestPathsTree(system, Domain.ROTATIONAL);
+        assertEquals("The path with the cheapest last edge was not kept", r4, tree.getParentComponent(nB));
+        assertEquals("The wrong parent component was found", h3, tree.getParentComponent(nC));
+        assertTrue("An unconnected frame was reached", !tree.isReachable(4));
+        assertEquals("The tree does not contain the right number of edges", 3, tree.getTreeComponents().length);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void findATreeWithANegativeEdgeWeight_shouldReturnAnException() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        builder.addComponent("m1", 0, builder.addFrame("A"), ComponentType.RIGID_BODY);
+
+        new CompactShortestPathsTree(builder.build(), Domain.ROTATIONAL, new EdgeWeight() {
+            @Override
+            public double getWeight(ComponentType type, Domain domain) {
+                return -1;
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class GraphReductionTest {
+
+    @Test
+    public void reduceAChainOfArms_theWholeChainShouldBeStripped() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int a1 = builder.addComponent("a1", 0, nA, ComponentType.ARM);
+        int h2 = builder.addComponent("h2", nA, nB, ComponentType.REVOLUTE_JOINT);
+        int a3 = builder.addComponent("a3", nC, nB, ComponentType.ARM);
+
+        GraphReduction reduction = new GraphReduction(builder.build(), Domain.ROTATIONAL);
+        assertEquals("Only the ground should remain", 1, reduction.getReducedSystem().getFrameCount());
+        assertEquals("No component should remain", 0, reduction.getReducedSystem().getComponentCount());
+        assertArrayEquals("The tree was not expanded", new int[]{a1, h2, a3}, reduction.expand(new int[0]));
+    }
+
+    @Test
+    public void reduceParallelComponents_theLightestComponentShouldBeKept() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 4);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        int h2 = builder.addComponent("h2", nA, 0, ComponentType.REVOLUTE_JOINT);
+        int m3 = builder.addComponent("m3", nA, nB, ComponentType.RIGID_BODY);
+        int m4 = builder.addComponent("m4", nB, 0, ComponentType.RIGID_BODY);
+
+        GraphReduction reduction = new GraphReduction(builder.build(), Domain.ROTATIONAL);
+        CompactMechanicalSystem reduced = reduction.getReducedSystem();
+        assertEquals("No frame should be contracted", 3, reduced.getFrameCount());
+        assertEquals("The parallel components should be collapsed", 3, reduced.getComponentCount());
+        assertEquals("The lightest parallel component should be kept", h2, reduction.getComponent(0));
+        assertEquals("The other components should keep their order", m3, reduction.getComponent(1));
+        assertEquals("The other components should keep their order", m4, reduction.getComponent(2));
+    }
+}
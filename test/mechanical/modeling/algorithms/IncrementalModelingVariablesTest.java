@@ -0,0 +1,124 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+import org.junit.Test;
+
+public class IncrementalModelingVariablesTest {
+
+    @Test
+    public void createAnIncrementalSelectorOfAnExampleSystem_theOptimalVariablesShouldBeFound() {
+        MechanicalSystem system = new MechanicalSystem(new ReferenceFrame("Ground"));
+        createSpatialSerialManipulator(system);
+
+        IncrementalModelingVariables selector = new IncrementalModelingVariables(system);
+        Set<String> variables = selector.getVariables();
+        assertEquals("The wrong variables were found", OptimalModelingVariables.findVariables(system.compact()), variables);
+        assertEquals("The wrong number of modeling variables were found", 6, variables.size());
+        assertTrue("The initial selection should not be recorded as a change", selector.takeChanges().isEmpty());
+    }
+
+    @Test
+    public void addAComponentShorteningAPath_theSelectionAndItsChangesShouldBeUpdated() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("h1", ground, cs1, ComponentType.REVOLUTE_JOINT));
+        system.addComponent(new MechanicalComponent("m2", ground, cs2, ComponentType.RIGID_BODY));
+
+        IncrementalModelingVariables selector = new IncrementalModelingVariables(system);
+        system.addComponent(new MechanicalComponent("r3", cs1, cs2, ComponentType.ARM));
+
+        IncrementalModelingVariables.Changes changes = selector.takeChanges();
+        assertEquals("The wrong variables were added", 0, changes.getAddedVariables().size());
+        assertEquals("The wrong variables were removed", 6, changes.getRemovedVariables().size());
+        assertTrue("The wrong variables were removed", changes.getRemovedVariables().contains("theta_m2"));
+        assertEquals("The selection was not updated", OptimalModelingVariables.findVariables(system.compact()), selector.getVariables());
+        assertEquals("The tree was not updated", 2, selector.getTree(Domain.ROTATIONAL).size());
+    }
+
+    @Test
+    public void removeATreeComponent_theDetachedSubtreeShouldBeReconnected() {
+        MechanicalSystem system = new MechanicalSystem(new ReferenceFrame("Ground"));
+        MechanicalComponent h12 = createSpatialSerialManipulator(system);
+
+        IncrementalModelingVariables selector = new IncrementalModelingVariables(system);
+        system.removeComponent(h12);
+
+        Set<String> variables = selector.getVariables();
+        assertEquals("The selection was not updated", OptimalModelingVariables.findVariables(system.compact()), variables);
+        IncrementalModelingVariables.Changes changes = selector.takeChanges();
+        assertTrue("The removed component's variable was not reported", changes.getRemovedVariables().contains("phi_h12"));
+        assertTrue("The replacing variables were not reported", changes.getAddedVariables().contains("phi_m1"));
+        assertTrue("The changes were not reset", selector.takeChanges().isEmpty());
+
+        system.addComponent(h12);
+        assertEquals("The tree does not reach every frame", 11, selector.getTree(Domain.ROTATIONAL).size());
+        assertTrue("The selection was not restored", selector.getVariables().contains("phi_h12"));
+        changes = selector.takeChanges();
+        assertTrue("The replaced variables were not reported", changes.getRemovedVariables().contains("phi_m1"));
+        assertTrue("The restored variable was not reported", changes.getAddedVariables().contains("phi_h12"));
+    }
+
+    @Test
+    public void detachTheSelectorAndAddAComponent_theSelectionShouldNotChange() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY));
+
+        IncrementalModelingVariables selector = new IncrementalModelingVariables(system);
+        selector.detach();
+        system.addComponent(new MechanicalComponent("h2", ground, cs1, ComponentType.REVOLUTE_JOINT));
+
+        assertEquals("The detached selector should not be updated", 6, selector.getVariables().size());
+        assertTrue("The detached selector should not record changes", selector.takeChanges().isEmpty());
+    }
+
+    /*
+     * Adds the components of the demo's spatial serial manipulator, without the closing vp16
+     * component, and returns the h12 revolute joint
+     */
+    private static MechanicalComponent createSpatialSerialManipulator(MechanicalSystem system) {
+        ReferenceFrame ground = system.getGround();
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+        ReferenceFrame cs3 = new ReferenceFrame("CS3");
+        ReferenceFrame cs4 = new ReferenceFrame("CS4");
+        ReferenceFrame cs5 = new ReferenceFrame("CS5");
+        ReferenceFrame cs6 = new ReferenceFrame("CS6");
+        ReferenceFrame cs7 = new ReferenceFrame("CS7");
+        ReferenceFrame cs8 = new ReferenceFrame("CS8");
+        ReferenceFrame cs9 = new ReferenceFrame("CS9");
+        ReferenceFrame cs10 = new ReferenceFrame("CS10");
+        ReferenceFrame cs11 = new ReferenceFrame("CS11");
+
+        MechanicalComponent h12 = new MechanicalComponent("h12", ground, cs1, ComponentType.REVOLUTE_JOINT);
+        system.addComponent(new MechanicalComponent("m1", ground, cs2, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("m2", ground, cs5, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("m3", ground, cs8, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("m4", ground, cs11, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("r5",cs2, cs1, ComponentType.ARM));
+        system.addComponent(new MechanicalComponent("r6",cs2, cs3, ComponentType.ARM));
+        system.addComponent(new MechanicalComponent("r7",cs5, cs4, ComponentType.ARM));
+        system.addComponent(new MechanicalComponent("r8",cs5, cs6, ComponentType.ARM));
+        system.addComponent(new MechanicalComponent("r9",cs8, cs7, ComponentType.ARM));
+        system.addComponent(new MechanicalComponent("r10",cs8, cs9, ComponentType.ARM));
+        system.addComponent(new MechanicalComponent("r11",cs11, cs10, ComponentType.ARM));
+        system.addComponent(h12);
+        system.addComponent(new MechanicalComponent("h13",cs3, cs4, ComponentType.REVOLUTE_JOINT));
+        system.addComponent(new MechanicalComponent("h14",cs6, cs7, ComponentType.REVOLUTE_JOINT));
+        system.addComponent(new MechanicalComponent("b15",cs9, cs10, ComponentType.SPHERICAL_JOINT));
+        return h12;
+    }
+}
@@ -0,0 +1,62 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class KinematicLoopsTest {
+
+    @Test
+    public void findTheLoopsOfAClosedLoop_theCotreeComponentShouldCloseTheCycle() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 4);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int m1 = builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        int m2 = builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        int h3 = builder.addComponent("h3", nA, nB, ComponentType.REVOLUTE_JOINT);
+        builder.addComponent("m4", nB, nC, ComponentType.RIGID_BODY);
+        CompactMechanicalSystem system = builder.build();
+
+        KinematicLoops loops = OptimalModelingVariables.selectVariables(system).getLoops(Domain.ROTATIONAL);
+        assertEquals("The wrong domain was returned", Domain.ROTATIONAL, loops.getDomain());
+        assertArrayEquals("The wrong cotree was found", new int[]{h3}, loops.getCotreeComponents());
+        assertEquals("There should be one cycle per cotree component", 1, loops.getCycleCount());
+        assertArrayEquals("The cycle should go from the source to the target of its cotree component",
+                new int[]{h3, m1, m2}, loops.getCycle(0));
+        assertEquals("The revolute joint should leave two rotational constraints", 2, loops.getConstraintCount(0));
+        assertEquals("The wrong total number of constraints was found", 2, loops.getTotalConstraintCount());
+    }
+
+    @Test
+    public void findTheLoopsOfATreeSystem_thereShouldBeNoCycle() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("s2", nA, nB, ComponentType.SPHERICAL_JOINT);
+
+        KinematicLoops loops = OptimalModelingVariables.selectVariables(builder.build()).getLoops(Domain.TRANSLATIONAL);
+        assertEquals("The tree should contain every component", 2, loops.getTreeComponents().length);
+        assertEquals("There should be no cycle", 0, loops.getCycleCount());
+        assertEquals("There should be no constraint", 0, loops.getTotalConstraintCount());
+    }
+
+    @Test
+    public void findTheLoopsOfASystemWithADetachedPiece_theDetachedComponentsShouldNotBeInTheCotree() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", nB, nC, ComponentType.RIGID_BODY);
+        builder.addComponent("m3", nC, nB, ComponentType.RIGID_BODY);
+
+        KinematicLoops loops = OptimalModelingVariables.selectVariables(builder.build()).getLoops(Domain.ROTATIONAL);
+        assertEquals("The detached loop should not be in the cotree", 0, loops.getCycleCount());
+    }
+}
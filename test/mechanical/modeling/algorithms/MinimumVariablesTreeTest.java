@@ -0,0 +1,53 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class MinimumVariablesTreeTest {
+
+    @Test
+    public void findTheTreeOfAClosedLoop_theTreeWithTheFewestVariablesShouldBeReturned() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 4);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int m1 = builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        int h3 = builder.addComponent("h3", nA, nB, ComponentType.REVOLUTE_JOINT);
+        builder.addComponent("m4", nB, nC, ComponentType.RIGID_BODY);
+        CompactMechanicalSystem system = builder.build();
+
+        MinimumVariablesTree tree = new MinimumVariablesTree(system, Domain.ROTATIONAL);
+        assertEquals("The tree does not have the fewest variables", 7, tree.getTotalWeight(), 0);
+        assertEquals("The wrong parent component was found", h3, tree.getParentComponent(nB));
+        assertArrayEquals("The frames were not ordered from the ground", new int[]{0, nA, nB, nC}, tree.getFrameOrder());
+        assertEquals("The tree does not start at the ground", m1, tree.getTreeComponents()[0]);
+
+        assertEquals("The shortest paths tree should select more variables", 9,
+                OptimalModelingVariables.selectVariables(system).getVariableCount(Domain.ROTATIONAL));
+        assertEquals("The minimum variables search was not used", 7, OptimalModelingVariables.selectVariables(system,
+                EdgeWeight.NUMBER_OF_VARIABLES, TreeSearch.MINIMUM_VARIABLES).getVariableCount(Domain.ROTATIONAL));
+    }
+
+    @Test
+    public void findTheTreeOfASystemWithADetachedFrame_theFrameShouldNotBeReachable() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", nB, nC, ComponentType.RIGID_BODY);
+
+        MinimumVariablesTree tree = new MinimumVariablesTree(builder.build(), Domain.TRANSLATIONAL);
+        assertTrue("The frame should be reachable", tree.isReachable(nA));
+        assertFalse("The frame should not be reachable", tree.isReachable(nC));
+        assertEquals("The tree should only contain the reachable frames", 1, tree.getTreeComponents().length);
+    }
+}
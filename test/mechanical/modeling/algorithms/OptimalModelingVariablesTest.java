@@ -6,9 +6,14 @@ import static org.junit.Assert.fail;
 import graph.components.BasicWeightedGraph;
 import graph.elements.WeightedGraph;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import mechanical.modeling.components.CompactMechanicalSystem;
 import mechanical.modeling.components.ComponentType;
 import mechanical.modeling.components.Domain;
 import mechanical.modeling.components.MechanicalComponent;
@@ -78,6 +83,64 @@ public class OptimalModelingVariablesTest {
         assertTrue("The wrong modeling variable was found", optimalVariables.contains("psi_m4"));
     }
 
+    @Test
+    public void findingTheOptimalModelingVariablesOfACompactExampleSystem_theSameSetOfVariablesShouldBeReturned() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+        ReferenceFrame cs3 = new ReferenceFrame("CS3");
+        ReferenceFrame cs4 = new ReferenceFrame("CS4");
+        ReferenceFrame cs5 = new ReferenceFrame("CS5");
+        ReferenceFrame cs6 = new ReferenceFrame("CS6");
+        ReferenceFrame cs7 = new ReferenceFrame("CS7");
+        ReferenceFrame cs8 = new ReferenceFrame("CS8");
+        ReferenceFrame cs9 = new ReferenceFrame("CS9");
+        ReferenceFrame cs10 = new ReferenceFrame("CS10");
+        ReferenceFrame cs11 = new ReferenceFrame("CS11");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs2, ComponentType.RIGID_BODY);
+        MechanicalComponent m2 = new MechanicalComponent("m2", ground, cs5, ComponentType.RIGID_BODY);
+        MechanicalComponent m3 = new MechanicalComponent("m3", ground, cs8, ComponentType.RIGID_BODY);
+        MechanicalComponent m4 = new MechanicalComponent("m4", ground, cs11, ComponentType.RIGID_BODY);
+        MechanicalComponent r5 = new MechanicalComponent("r5",cs2, cs1, ComponentType.ARM);
+        MechanicalComponent r6 = new MechanicalComponent("r6",cs2, cs3, ComponentType.ARM);
+        MechanicalComponent r7 = new MechanicalComponent("r7",cs5, cs4, ComponentType.ARM);
+        MechanicalComponent r8 = new MechanicalComponent("r8",cs5, cs6, ComponentType.ARM);
+        MechanicalComponent r9 = new MechanicalComponent("r9",cs8, cs7, ComponentType.ARM);
+        MechanicalComponent r10 = new MechanicalComponent("r10",cs8, cs9, ComponentType.ARM);
+        MechanicalComponent r11 = new MechanicalComponent("r11",cs11, cs10, ComponentType.ARM);
+        MechanicalComponent h12 = new MechanicalComponent("h12", ground, cs1, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent h13 = new MechanicalComponent("h13",cs3, cs4, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent h14 = new MechanicalComponent("h14",cs6, cs7, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent b15 = new MechanicalComponent("b15",cs9, cs10, ComponentType.SPHERICAL_JOINT);
+
+        MechanicalSystem spatialSerialManipulator = new MechanicalSystem(ground);
+        spatialSerialManipulator.addComponent(m1);
+        spatialSerialManipulator.addComponent(m2);
+        spatialSerialManipulator.addComponent(m3);
+        spatialSerialManipulator.addComponent(m4);
+        spatialSerialManipulator.addComponent(r5);
+        spatialSerialManipulator.addComponent(r6);
+        spatialSerialManipulator.addComponent(r7);
+        spatialSerialManipulator.addComponent(r8);
+        spatialSerialManipulator.addComponent(r9);
+        spatialSerialManipulator.addComponent(r10);
+        spatialSerialManipulator.addComponent(r11);
+        spatialSerialManipulator.addComponent(h12);
+        spatialSerialManipulator.addComponent(h13);
+        spatialSerialManipulator.addComponent(h14);
+        spatialSerialManipulator.addComponent(b15);
+
+        Set<String> optimalVariables = OptimalModelingVariables.findVariables(spatialSerialManipulator.compact());
+        assertEquals("The wrong number of modeling variables were found", 6 ,optimalVariables.size());
+        assertTrue("The wrong modeling variable was found", optimalVariables.contains("phi_h12"));
+        assertTrue("The wrong modeling variable was found", optimalVariables.contains("phi_h13"));
+        assertTrue("The wrong modeling variable was found", optimalVariables.contains("phi_h14"));
+        assertTrue("The wrong modeling variable was found", optimalVariables.contains("phi_m4"));
+        assertTrue("The wrong modeling variable was found", optimalVariables.contains("theta_m4"));
+        assertTrue("The wrong modeling variable was found", optimalVariables.contains("psi_m4"));
+    }
+
     @Test
     public void assignTheTreeWeightsAndFindTheOptimalTree_theRightTreeShouldBeReturned() {
         ReferenceFrame nO = new ReferenceFrame("O");
@@ -139,4 +202,143 @@ public class OptimalModelingVariablesTest {
         fail();
         assertEquals("The wrong number of modeling variables were found", 0 ,optimalVariables.size());
     }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void findTheOptimalVarialbesOfAnEmptyCompactSystem_shouldReturnAnException() {
+        CompactMechanicalSystem emptySystem = new CompactMechanicalSystem.Builder("Ground", 1, 0).build();
+
+        OptimalModelingVariables.findVariables(emptySystem);
+        fail();
+    }
+
+    @Test
+    public void findingTheOptimalModelingVariablesInParallel_theSameVariablesShouldBeReturnedInTheSameOrder() {
+        MechanicalSystem spatialSerialManipulator = createSpatialSerialManipulator();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<String> sequentialVariables = new ArrayList<String>(OptimalModelingVariables.findVariables(spatialSerialManipulator));
+            List<String> parallelVariables = new ArrayList<String>(OptimalModelingVariables.findVariables(spatialSerialManipulator, executor));
+            assertEquals("The parallel selection did not return the same variables", sequentialVariables, parallelVariables);
+
+            CompactMechanicalSystem compactSystem = spatialSerialManipulator.compact();
+            sequentialVariables = new ArrayList<String>(OptimalModelingVariables.findVariables(compactSystem));
+            parallelVariables = new ArrayList<String>(OptimalModelingVariables.findVariables(compactSystem, executor));
+            assertEquals("The parallel selection did not return the same variables", sequentialVariables, parallelVariables);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void selectingTheVariablesOfEachPieceInParallel_theSameVariablesShouldBeSelected() {
+        MechanicalSystem spatialSerialManipulator = createSpatialSerialManipulator();
+        ReferenceFrame detachedFrame = new ReferenceFrame("CS100");
+        spatialSerialManipulator.addComponent(new MechanicalComponent("m100", detachedFrame, new ReferenceFrame("CS101"), ComponentType.RIGID_BODY));
+        CompactMechanicalSystem compactSystem = spatialSerialManipulator.compact();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            SystemDecomposition decomposition = new SystemDecomposition(compactSystem);
+            VariableSelection selection = OptimalModelingVariables.selectVariables(decomposition, executor);
+
+            assertEquals("The detached piece was not reported", 1, decomposition.getDetachedPieces().length);
+            assertEquals("The selection of the pieces is different", OptimalModelingVariables.findVariables(compactSystem),
+                    selection.getVariableNames());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void findingTheOptimalModelingVariables_theEdgeWeightsShouldBeTheNumberOfVariables() {
+        MechanicalSystem spatialSerialManipulator = createSpatialSerialManipulator();
+        Set<String> expected = OptimalModelingVariables.findVariables(spatialSerialManipulator);
+
+        for (MechanicalEdge edge : spatialSerialManipulator.getRotationalGraph().getAllEdges()) {
+            assertEquals("The edge weight is not its number of variables", edge.getNumberOfVariables(), edge.getWeight(), 0);
+            try {
+                edge.setWeight(edge.getNumberOfVariables() + 42);
+                fail("An edge weight other than the number of variables should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        assertEquals("The selection changed", expected, OptimalModelingVariables.findVariables(spatialSerialManipulator));
+    }
+
+    @Test
+    public void findingTheOptimalModelingVariablesWithACustomEdgeWeight_theCheapestVariablesShouldBeReturned() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("u1", ground, cs1, ComponentType.UNIVERSAL_JOINT));
+        system.addComponent(new MechanicalComponent("p2", ground, cs1, ComponentType.PLANAR_JOINT));
+
+        Set<String> defaultVariables = OptimalModelingVariables.findVariables(system, EdgeWeight.NUMBER_OF_VARIABLES);
+        assertEquals("The wrong number of modeling variables were found", 0, defaultVariables.size());
+
+        EdgeWeight universalJointsFirst = new EdgeWeight() {
+            @Override
+            public double getWeight(ComponentType type, Domain domain) {
+                return type.equals(ComponentType.UNIVERSAL_JOINT) ? 0 : 1;
+            }
+        };
+        Set<String> variables = OptimalModelingVariables.findVariables(system, universalJointsFirst);
+        assertEquals("The wrong number of modeling variables were found", 2, variables.size());
+        assertTrue("The wrong modeling variable was found", variables.contains("phi_u1"));
+        assertTrue("The wrong modeling variable was found", variables.contains("theta_u1"));
+    }
+
+    /*
+     * Creates the spatial serial manipulator used in the demo, without the closing vp16 component
+     */
+    private static MechanicalSystem createSpatialSerialManipulator() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+        ReferenceFrame cs3 = new ReferenceFrame("CS3");
+        ReferenceFrame cs4 = new ReferenceFrame("CS4");
+        ReferenceFrame cs5 = new ReferenceFrame("CS5");
+        ReferenceFrame cs6 = new ReferenceFrame("CS6");
+        ReferenceFrame cs7 = new ReferenceFrame("CS7");
+        ReferenceFrame cs8 = new ReferenceFrame("CS8");
+        ReferenceFrame cs9 = new ReferenceFrame("CS9");
+        ReferenceFrame cs10 = new ReferenceFrame("CS10");
+        ReferenceFrame cs11 = new ReferenceFrame("CS11");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs2, ComponentType.RIGID_BODY);
+        MechanicalComponent m2 = new MechanicalComponent("m2", ground, cs5, ComponentType.RIGID_BODY);
+        MechanicalComponent m3 = new MechanicalComponent("m3", ground, cs8, ComponentType.RIGID_BODY);
+        MechanicalComponent m4 = new MechanicalComponent("m4", ground, cs11, ComponentType.RIGID_BODY);
+        MechanicalComponent r5 = new MechanicalComponent("r5",cs2, cs1, ComponentType.ARM);
+        MechanicalComponent r6 = new MechanicalComponent("r6",cs2, cs3, ComponentType.ARM);
+        MechanicalComponent r7 = new MechanicalComponent("r7",cs5, cs4, ComponentType.ARM);
+        MechanicalComponent r8 = new MechanicalComponent("r8",cs5, cs6, ComponentType.ARM);
+        MechanicalComponent r9 = new MechanicalComponent("r9",cs8, cs7, ComponentType.ARM);
+        MechanicalComponent r10 = new MechanicalComponent("r10",cs8, cs9, ComponentType.ARM);
+        MechanicalComponent r11 = new MechanicalComponent("r11",cs11, cs10, ComponentType.ARM);
+        MechanicalComponent h12 = new MechanicalComponent("h12", ground, cs1, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent h13 = new MechanicalComponent("h13",cs3, cs4, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent h14 = new MechanicalComponent("h14",cs6, cs7, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent b15 = new MechanicalComponent("b15",cs9, cs10, ComponentType.SPHERICAL_JOINT);
+
+        MechanicalSystem spatialSerialManipulator = new MechanicalSystem(ground);
+        spatialSerialManipulator.addComponent(m1);
+        spatialSerialManipulator.addComponent(m2);
+        spatialSerialManipulator.addComponent(m3);
+        spatialSerialManipulator.addComponent(m4);
+        spatialSerialManipulator.addComponent(r5);
+        spatialSerialManipulator.addComponent(r6);
+        spatialSerialManipulator.addComponent(r7);
+        spatialSerialManipulator.addComponent(r8);
+        spatialSerialManipulator.addComponent(r9);
+        spatialSerialManipulator.addComponent(r10);
+        spatialSerialManipulator.addComponent(r11);
+        spatialSerialManipulator.addComponent(h12);
+        spatialSerialManipulator.addComponent(h13);
+        spatialSerialManipulator.addComponent(h14);
+        spatialSerialManipulator.addComponent(b15);
+        return spatialSerialManipulator;
+    }
 }
@@ -0,0 +1,146 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import mechanical.modeling.benchmark.SyntheticSystems;
+import mechanical.modeling.benchmark.SyntheticSystems.Topology;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class SelectionDeadlineTest {
+
+    @Test
+    public void submitASelectionWithoutDeadline_theSelectionShouldBeReturned() throws Exception {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.CLOSED_LOOPS, 200, 3).compact();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<VariableSelection> future = OptimalModelingVariables.submitSelection(system, SelectionDeadline.NONE, executor);
+            assertEquals("The selection is different", OptimalModelingVariables.findVariables(system),
+                    future.get().getVariableNames());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void submitASelectionWithAnExpiredDeadline_aTimeoutShouldBeReported() throws InterruptedException {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.TREE, 200, 3).compact();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<VariableSelection> future = OptimalModelingVariables.submitSelection(system,
+                    SelectionDeadline.after(0, TimeUnit.MILLISECONDS), executor);
+            future.get();
+            throw new AssertionError("The selection should have timed out");
+        } catch (ExecutionException e) {
+            assertTrue("The timeout was not reported", e.getCause() instanceof SelectionTimeoutException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelASubmittedSelection_theDeadlineShouldBeCancelled() {
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        Executor queue = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pending.add(command);
+            }
+        };
+        SelectionDeadline deadline = SelectionDeadline.cancellable();
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.SERIAL_CHAIN, 10, 3).compact();
+
+        Future<VariableSelection> future = OptimalModelingVariables.submitSelection(system, deadline, queue);
+        assertFalse("The deadline should not have expired", deadline.isExpired());
+        assertTrue("The future was not cancelled", future.cancel(false));
+        assertTrue("The deadline was not cancelled", deadline.isCancelled());
+        assertEquals("The selection was not submitted", 1, pending.size());
+    }
+
+    @Test(expected = SelectionTimeoutException.class)
+    public void searchATreeWithACancelledDeadline_theSearchShouldStop() {
+        SelectionDeadline deadline = SelectionDeadline.cancellable();
+        deadline.cancel();
+        new CompactShortestPathsTree(SyntheticSystems.generate(Topology.DENSE_MESH, 200, 3).compact(), Domain.ROTATIONAL,
+                EdgeWeight.NUMBER_OF_VARIABLES, deadline);
+    }
+
+    @Test
+    public void selectWithALongDeadline_theSelectionShouldBeMade() {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.DENSE_MESH, 200, 3).compact();
+        VariableSelection selection = OptimalModelingVariables.selectVariables(system, EdgeWeight.NUMBER_OF_VARIABLES,
+                TreeSearch.REDUCED_GRAPH, SelectionDeadline.after(1, TimeUnit.HOURS));
+        assertEquals("The selection is different", OptimalModelingVariables.selectVariables(system, EdgeWeight.NUMBER_OF_VARIABLES,
+                TreeSearch.REDUCED_GRAPH).getVariableNames(), selection.getVariableNames());
+    }
+
+    @Test
+    public void cancelARunningSearch_eachSearchShouldStop() throws InterruptedException {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.SERIAL_CHAIN, 20000, 3).compact();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (final TreeSearch treeSearch : TreeSearch.values()) {
+                final SelectionDeadline deadline = SelectionDeadline.cancellable();
+                final CountDownLatch started = new CountDownLatch(1);
+                final CountDownLatch cancelled = new CountDownLatch(1);
+
+                /*
+                 * The searches read the weights once they are running, so the first weight
+                 * waits until the deadline is cancelled by this thread
+                 */
+                final EdgeWeight edgeWeight = new EdgeWeight() {
+                    @Override
+                    public double getWeight(ComponentType type, Domain domain) {
+                        started.countDown();
+                        try {
+                            cancelled.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return EdgeWeight.NUMBER_OF_VARIABLES.getWeight(type, domain);
+                    }
+                };
+                final CompactMechanicalSystem searchedSystem = system;
+                Future<int[]> future = executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        return treeSearch.findTreeComponents(searchedSystem, Domain.ROTATIONAL, edgeWeight, deadline);
+                    }
+                });
+                started.await();
+                deadline.cancel();
+                cancelled.countDown();
+                try {
+                    future.get();
+                    fail("The " + treeSearch + " search should have stopped");
+                } catch (ExecutionException e) {
+                    assertTrue("The " + treeSearch + " search did not report the cancellation", e.getCause() instanceof SelectionTimeoutException);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cancelTheDeadlineThatNeverExpires_anExceptionShouldBeThrown() {
+        SelectionDeadline.NONE.cancel();
+    }
+}
@@ -0,0 +1,91 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class SelectionStatisticsTest {
+
+    @Test
+    public void makeSelectionsWithARegisteredListener_thePhasesShouldBeReported() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("h2", nA, nB, ComponentType.REVOLUTE_JOINT);
+        builder.addComponent("m3", 0, nB, ComponentType.RIGID_BODY);
+        CompactMechanicalSystem system = builder.build();
+
+        final List<SelectionEvent> events = new ArrayList<SelectionEvent>();
+        SelectionStatistics statistics = new SelectionStatistics();
+        OptimalModelingVariables.setListener(statistics);
+        try {
+            OptimalModelingVariables.findVariables(system);
+            OptimalModelingVariables.setListener(new SelectionListener() {
+                @Override
+                public void selectionFinished(SelectionEvent event) {
+                    events.add(event);
+                }
+            });
+            OptimalModelingVariables.selectVariables(system);
+        } finally {
+            OptimalModelingVariables.setListener(SelectionListener.NONE);
+        }
+        OptimalModelingVariables.findVariables(system);
+
+        assertEquals("The selection was not reported", 1, statistics.getSelectionCount());
+        assertEquals("The selected variables were not counted", 9, statistics.getVariableCount());
+        assertTrue("The duration of the tree was not reported", statistics.getTotalDuration(SelectionPhase.ROTATIONAL_TREE) > 0);
+
+        assertEquals("The selection was not reported once", 1, events.size());
+        SelectionEvent event = events.get(0);
+        assertFalse("The system was not compacted by the selection", event.hasPhase(SelectionPhase.COMPACTION));
+        assertTrue("The assembly was not reported", event.hasPhase(SelectionPhase.VARIABLE_ASSEMBLY));
+        assertEquals("The size of the system was not reported", 3, event.getFrameCount());
+        assertEquals("The size of the tree was not reported", 2, event.getTreeSize(Domain.TRANSLATIONAL));
+        assertEquals("The number of variables was not reported", 9, event.getVariableCount());
+    }
+
+    @Test
+    public void selectTheCheapestVariablesWithARegisteredListener_theChosenSelectionShouldBeReportedOnce() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        builder.addComponent("h3", nA, nB, ComponentType.REVOLUTE_JOINT);
+        CompactMechanicalSystem system = builder.build();
+
+        final List<SelectionEvent> events = new ArrayList<SelectionEvent>();
+        OptimalModelingVariables.setListener(new SelectionListener() {
+            @Override
+            public void selectionFinished(SelectionEvent event) {
+                events.add(event);
+            }
+        });
+        VariableSelection selection;
+        try {
+            selection = OptimalModelingVariables.selectCheapestVariables(system, SimulationCostModel.VARIABLE_COUNT);
+        } finally {
+            OptimalModelingVariables.setListener(SelectionListener.NONE);
+        }
+
+        assertEquals("The selection was not reported once", 1, events.size());
+        assertEquals("The chosen selection was not reported", selection.getVariableCount(), events.get(0).getVariableCount());
+        assertTrue("The trees were not reported", events.get(0).hasPhase(SelectionPhase.ROTATIONAL_TREE));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void registerANullListener_shouldReturnAnException() {
+        OptimalModelingVariables.setListener(null);
+    }
+}
@@ -0,0 +1,123 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mechanical.modeling.benchmark.SyntheticSystems;
+import mechanical.modeling.benchmark.SyntheticSystems.Topology;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class SimulationCostModelTest {
+
+    @Test
+    public void weighAnEdge_theWeightShouldBeTheCostOfTheVariables() {
+        SimulationCostModel model = new SimulationCostModel(2, 1, 0);
+        SimulationCostModel penalized = model.withVariableCost(ComponentType.SPHERICAL_JOINT, Domain.ROTATIONAL, 5);
+
+        assertEquals("The wrong rotational weight was returned", 6, model.getWeight(ComponentType.SPHERICAL_JOINT, Domain.ROTATIONAL), 0);
+        assertEquals("The wrong translational weight was returned", 3, model.getWeight(ComponentType.RIGID_BODY, Domain.TRANSLATIONAL), 0);
+        assertEquals("The type cost was not used", 15, penalized.getWeight(ComponentType.SPHERICAL_JOINT, Domain.ROTATIONAL), 0);
+        assertEquals("The original model should not change", 2, model.getVariableCost(ComponentType.SPHERICAL_JOINT, Domain.ROTATIONAL), 0);
+    }
+
+    @Test
+    public void selectWithATypeCost_theCheaperPathShouldBeKept() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("h1", 0, nA, ComponentType.REVOLUTE_JOINT);
+        int s2 = builder.addComponent("s2", nA, nB, ComponentType.SPHERICAL_JOINT);
+        int m3 = builder.addComponent("m3", 0, nB, ComponentType.RIGID_BODY);
+        CompactMechanicalSystem system = builder.build();
+
+        SimulationCostModel model = SimulationCostModel.VARIABLE_COUNT;
+        assertArrayEquals("The spherical joint should be left out", new int[]{s2},
+                OptimalModelingVariables.selectVariables(system, model).getLoops(Domain.ROTATIONAL).getCotreeComponents());
+
+        model = model.withVariableCost(ComponentType.RIGID_BODY, Domain.ROTATIONAL, 2);
+        assertArrayEquals("The rigid body should be left out", new int[]{m3},
+                OptimalModelingVariables.selectVariables(system, model).getLoops(Domain.ROTATIONAL).getCotreeComponents());
+    }
+
+    @Test
+    public void selectTheCheapestVariablesOfAClosedLoop_theFewestVariablesShouldBeSelected() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        builder.addComponent("h3", nA, nB, ComponentType.REVOLUTE_JOINT);
+        CompactMechanicalSystem system = builder.build();
+
+        VariableSelection selection = OptimalModelingVariables.selectCheapestVariables(system, SimulationCostModel.VARIABLE_COUNT);
+        assertEquals("The minimum variables trees should be selected", 4, selection.getVariableCount(Domain.ROTATIONAL));
+        assertEquals("The wrong cost was predicted", selection.getVariableCount(),
+                SimulationCostModel.VARIABLE_COUNT.predictCost(selection), 0);
+    }
+
+    @Test
+    public void calibrateFromTimesFallingWithTheTranslationalVariables_theOtherCostsShouldBeRefitted() {
+        List<VariableSelection> selections = new ArrayList<VariableSelection>();
+        for (int size = 20; size <= 80; size += 20) {
+            selections.add(OptimalModelingVariables.selectVariables(SyntheticSystems.generate(Topology.TREE, size, size).compact()));
+            selections.add(OptimalModelingVariables.selectVariables(SyntheticSystems.generate(Topology.CLOSED_LOOPS, size, size).compact()));
+        }
+        double[] times = new double[selections.size()];
+        SimulationCostModel.Calibration calibration = new SimulationCostModel.Calibration();
+        for (int i = 0; i < times.length; i++) {
+            VariableSelection selection = selections.get(i);
+            times[i] = 10 + 2 * selection.getVariableCount(Domain.ROTATIONAL) - 0.5 * selection.getVariableCount(Domain.TRANSLATIONAL)
+                    + 3 * getConstraintCount(selection);
+            calibration.addSample(selection, times[i]);
+        }
+
+        SimulationCostModel fitted = calibration.fit();
+        assertEquals("The negative cost should be set to 0", 0, fitted.getVariableCost(ComponentType.RIGID_BODY, Domain.TRANSLATIONAL), 0);
+
+        /*
+         * Without the translational term, the least squares residuals are orthogonal to
+         * the overhead, the rotational variables and the constraints
+         */
+        double overhead = 0;
+        for (int i = 0; i < times.length; i++) {
+            overhead += (times[i] - fitted.predictCost(selections.get(i))) / times.length;
+        }
+        double rotationalError = 0;
+        double constraintError = 0;
+        double scale = 0;
+        for (int i = 0; i < times.length; i++) {
+            VariableSelection selection = selections.get(i);
+            double residual = times[i] - overhead - fitted.predictCost(selection);
+            rotationalError += residual * selection.getVariableCount(Domain.ROTATIONAL);
+            constraintError += residual * getConstraintCount(selection);
+            scale += times[i] * selection.getVariableCount(Domain.ROTATIONAL);
+        }
+        assertEquals("The rotational cost was not refitted", 0, rotationalError / scale, 1e-9);
+        assertEquals("The constraint cost was not refitted", 0, constraintError / scale, 1e-9);
+    }
+
+    private static int getConstraintCount(VariableSelection selection) {
+        return selection.getLoops(Domain.ROTATIONAL).getTotalConstraintCount()
+                + selection.getLoops(Domain.TRANSLATIONAL).getTotalConstraintCount();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void calibrateFromASingleSample_anExceptionShouldBeThrown() {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.TREE, 10, 1).compact();
+        SimulationCostModel.Calibration calibration = new SimulationCostModel.Calibration();
+        calibration.addSample(OptimalModelingVariables.selectVariables(system), 1);
+        calibration.fit();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createAModelWithANegativeCost_anExceptionShouldBeThrown() {
+        new SimulationCostModel(1, -1, 0);
+    }
+}
@@ -0,0 +1,142 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class SubassemblyDetectionTest {
+
+    /*
+     * Adds a leg attached at a frame: a revolute joint, an arm and a spherical joint
+     * closing a loop back to the attachment frame
+     */
+    private static void addLeg(CompactMechanicalSystem.Builder builder, int attachment, int leg) {
+        int knee = builder.addFrame("K" + leg);
+        int foot = builder.addFrame("F" + leg);
+        builder.addComponent("h" + leg, attachment, knee, ComponentType.REVOLUTE_JOINT);
+        builder.addComponent("a" + leg, knee, foot, ComponentType.ARM);
+        builder.addComponent("s" + leg, foot, attachment, ComponentType.SPHERICAL_JOINT);
+    }
+
+    @Test
+    public void detectIdenticalLegs_eachLegShouldBeAnInstanceOfTheSameTemplate() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 10, 13);
+        int nB = builder.addFrame("B");
+        int m0 = builder.addComponent("m0", 0, nB, ComponentType.RIGID_BODY);
+        for (int leg = 1; leg <= 4; leg++) {
+            addLeg(builder, nB, leg);
+        }
+        SubassemblyDetection detection = new SubassemblyDetection(builder.build());
+
+        assertEquals("The wrong number of templates was found", 1, detection.getTemplateCount());
+        assertEquals("The wrong number of instances was found", 4, detection.getInstanceCount());
+        for (int instance = 0; instance < 4; instance++) {
+            assertEquals("The instance is attached at the wrong frame", nB, detection.getAttachmentFrame(instance));
+            assertEquals("The instance has the wrong template", 0, detection.getTemplate(instance));
+            assertEquals("The instance has the wrong number of components", 3, detection.getComponents(instance).length);
+        }
+        assertArrayEquals("The core components are wrong", new int[]{m0}, detection.getCoreComponents());
+
+        CompactMechanicalSystem template = detection.extractTemplate(0);
+        assertEquals("The template should be rooted at the attachment frame", "B", template.getFrameName(0));
+        assertEquals("The template has the wrong number of frames", 3, template.getFrameCount());
+        assertEquals("The template has the wrong number of components", 3, template.getComponentCount());
+    }
+
+    @Test
+    public void detectLegsWiredDifferently_theyShouldNotShareATemplate() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 6, 7);
+        int nB = builder.addFrame("B");
+        builder.addComponent("m0", 0, nB, ComponentType.RIGID_BODY);
+        addLeg(builder, nB, 1);
+        int knee = builder.addFrame("K2");
+        int foot = builder.addFrame("F2");
+        builder.addComponent("h2", nB, knee, ComponentType.REVOLUTE_JOINT);
+        builder.addComponent("a2", knee, foot, ComponentType.ARM);
+        builder.addComponent("s2", nB, foot, ComponentType.SPHERICAL_JOINT);
+        SubassemblyDetection detection = new SubassemblyDetection(builder.build());
+
+        assertEquals("No template should be found", 0, detection.getTemplateCount());
+        assertEquals("Every component should be in the core", 7, detection.getCoreComponents().length);
+    }
+
+    @Test
+    public void detectCopiesWithinCopies_onlyTheOutermostCopiesShouldBeInstances() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 11, 12);
+        for (int arm = 0; arm < 2; arm++) {
+            int hand = builder.addFrame("H" + arm);
+            builder.addComponent("u" + arm, 0, hand, ComponentType.UNIVERSAL_JOINT);
+            addLeg(builder, hand, 2 * arm);
+            addLeg(builder, hand, 2 * arm + 1);
+        }
+        SubassemblyDetection detection = new SubassemblyDetection(builder.build());
+
+        assertEquals("The wrong number of templates was found", 1, detection.getTemplateCount());
+        assertEquals("The wrong number of instances was found", 2, detection.getInstanceCount());
+        assertEquals("The instance should be attached at the ground", 0, detection.getAttachmentFrame(1));
+        assertEquals("The instance has the wrong number of components", 7, detection.getComponents(1).length);
+        assertEquals("Every component should be in an instance", 0, detection.getCoreComponents().length);
+    }
+
+    @Test
+    public void detectTwoIdenticalChains_theNestedLinksShouldStayInTheChains() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 201, 200);
+        for (int chain = 0; chain < 2; chain++) {
+            int previous = 0;
+            for (int link = 0; link < 100; link++) {
+                int node = builder.addFrame("N" + chain + "_" + link);
+                builder.addComponent("h" + chain + "_" + link, previous, node,
+                        link % 2 == 0 ? ComponentType.REVOLUTE_JOINT : ComponentType.ARM);
+                previous = node;
+            }
+        }
+        SubassemblyDetection detection = new SubassemblyDetection(builder.build());
+
+        assertEquals("The wrong number of templates was found", 1, detection.getTemplateCount());
+        assertEquals("Each chain should be an instance", 2, detection.getInstanceCount());
+        assertEquals("The instance should contain the whole chain", 100, detection.getComponents(1).length);
+        assertEquals("Every component should be in an instance", 0, detection.getCoreComponents().length);
+    }
+
+    @Test
+    public void detectAChain_noSubassemblyShouldBeRepeated() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 5, 4);
+        for (int frame = 1; frame < 5; frame++) {
+            int node = builder.addFrame("N" + frame);
+            builder.addComponent("h" + frame, node - 1, node, ComponentType.REVOLUTE_JOINT);
+        }
+        SubassemblyDetection detection = new SubassemblyDetection(builder.build());
+
+        assertEquals("No instance should be found", 0, detection.getInstanceCount());
+        assertEquals("Every component should be in the core", 4, detection.getCoreComponents().length);
+    }
+
+    @Test
+    public void selectTheVariablesOfRepeatedLegs_theSelectionShouldMatchTheWholeSystemSelection() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 10, 13);
+        int nB = builder.addFrame("B");
+        builder.addComponent("m0", 0, nB, ComponentType.RIGID_BODY);
+        for (int leg = 1; leg <= 4; leg++) {
+            addLeg(builder, nB, leg);
+        }
+        CompactMechanicalSystem system = builder.build();
+
+        VariableSelection expected = OptimalModelingVariables.selectVariables(system);
+        VariableSelection selection = OptimalModelingVariables.selectVariables(new SubassemblyDetection(system));
+
+        assertEquals("The rotational trees have different sizes", expected.getTreeSize(Domain.ROTATIONAL),
+                selection.getTreeSize(Domain.ROTATIONAL));
+        assertEquals("The translational trees have different sizes", expected.getTreeSize(Domain.TRANSLATIONAL),
+                selection.getTreeSize(Domain.TRANSLATIONAL));
+        assertEquals("The number of variables is different", expected.getVariableCount(), selection.getVariableCount());
+        for (int leg = 1; leg <= 4; leg++) {
+            assertTrue("The variables of each leg should be named after its components",
+                    selection.getVariableNames().contains("phi_h" + leg));
+        }
+    }
+}
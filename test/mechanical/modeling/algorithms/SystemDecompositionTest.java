@@ -0,0 +1,61 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+
+import org.junit.Test;
+
+public class SystemDecompositionTest {
+
+    @Test
+    public void splitASystemIntoPieces_eachBranchOfTheGroundShouldBeAPiece() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 6, 6);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int nD = builder.addFrame("D");
+        int nE = builder.addFrame("E");
+        int m1 = builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        int m2 = builder.addComponent("m2", 0, nB, ComponentType.RIGID_BODY);
+        int h3 = builder.addComponent("h3", nC, nA, ComponentType.REVOLUTE_JOINT);
+        int h4 = builder.addComponent("h4", 0, nC, ComponentType.REVOLUTE_JOINT);
+        int h5 = builder.addComponent("h5", nD, nE, ComponentType.REVOLUTE_JOINT);
+        int a6 = builder.addComponent("a6", 0, 0, ComponentType.ARM);
+        SystemDecomposition decomposition = new SystemDecomposition(builder.build());
+
+        assertEquals("The wrong number of pieces was found", 3, decomposition.getPieceCount());
+        assertArrayEquals("The frames of the piece are wrong", new int[]{nA, nC}, decomposition.getFrames(0));
+        assertArrayEquals("The components of the piece are wrong", new int[]{m1, h3, h4}, decomposition.getComponents(0));
+        assertArrayEquals("The components of the piece are wrong", new int[]{m2}, decomposition.getComponents(1));
+        assertArrayEquals("The components of the piece are wrong", new int[]{h5}, decomposition.getComponents(2));
+        assertTrue("The piece should be attached to the ground", decomposition.isAttached(1));
+        assertFalse("The piece should not be attached to the ground", decomposition.isAttached(2));
+        assertArrayEquals("The detached pieces are wrong", new int[]{2}, decomposition.getDetachedPieces());
+        assertEquals("The ground should not belong to a piece", -1, decomposition.getFramePiece(0));
+        assertEquals("The component linking the ground to itself should not belong to a piece", -1, decomposition.getComponentPiece(a6));
+    }
+
+    @Test
+    public void extractAPiece_theFramesAndComponentsShouldKeepTheirOrder() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nB, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("h3", nB, nC, ComponentType.REVOLUTE_JOINT);
+        SystemDecomposition decomposition = new SystemDecomposition(builder.build());
+
+        CompactMechanicalSystem piece = decomposition.extract(decomposition.getFramePiece(nB));
+
+        assertEquals("The piece has the wrong number of frames", 3, piece.getFrameCount());
+        assertEquals("The frames did not keep their order", "B", piece.getFrameName(1));
+        assertEquals("The components did not keep their order", "h3", piece.getComponentName(1));
+        assertEquals("The component frames were not renumbered", 2, piece.getTargetFrame(1));
+        assertEquals("The ground was not kept", 0, piece.getSourceFrame(0));
+    }
+}
@@ -0,0 +1,84 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class SystemRootingTest {
+
+    @Test
+    public void anchorTwoFrames_bothFramesShouldBeFixedToTheGround() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", nA, nB, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", nB, nC, ComponentType.RIGID_BODY);
+
+        CompactMechanicalSystem anchored = SystemRooting.anchor(builder.build(), new int[]{nA, nC});
+        assertEquals("The anchors were not added", 4, anchored.getComponentCount());
+        assertEquals("The anchor was not named", SystemRooting.ANCHOR_PREFIX + "C", anchored.getComponentName(3));
+        assertSame("The anchor should have no variables", ComponentType.ARM, anchored.getComponentType(3));
+
+        VariableSelection selection = OptimalModelingVariables.selectVariables(anchored);
+        assertEquals("Every frame should be related to the ground", 3, selection.getTreeSize(Domain.ROTATIONAL));
+        assertEquals("Only one rigid body should be selected", 3, selection.getVariableCount(Domain.ROTATIONAL));
+        assertEquals("The anchors should close a loop", 1, selection.getLoops(Domain.ROTATIONAL).getCycleCount());
+    }
+
+    @Test
+    public void rerootASystem_theGroundAndRootIdsShouldBeSwapped() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", nA, nB, ComponentType.RIGID_BODY);
+        CompactMechanicalSystem system = builder.build();
+
+        CompactMechanicalSystem rerooted = SystemRooting.reroot(system, nB);
+        assertEquals("The root should be the ground", "B", rerooted.getFrameName(rerooted.getGround()));
+        assertEquals("The old ground should take the root's id", "O", rerooted.getFrameName(nB));
+        assertEquals("The other frames should keep their ids", "A", rerooted.getFrameName(nA));
+        assertEquals("The component should follow its frames", 0, rerooted.getTargetFrame(1));
+
+        CompactMechanicalSystem restored = SystemRooting.reroot(rerooted, nB);
+        assertEquals("Rerooting twice should restore the ground", "O", restored.getFrameName(restored.getGround()));
+        assertEquals("Rerooting twice should restore the components", nB, restored.getTargetFrame(1));
+    }
+
+    @Test
+    public void selectTheVariablesOfAFloatingBase_theRootRelatingEveryFrameShouldBeChosen() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", nA, nB, ComponentType.RIGID_BODY);
+        builder.addComponent("h2", nB, nC, ComponentType.REVOLUTE_JOINT);
+        CompactMechanicalSystem system = builder.build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            VariableSelection selection = OptimalModelingVariables.selectRootedVariables(system, new int[]{0, nB, nC},
+                    SimulationCostModel.VARIABLE_COUNT, executor);
+            CompactMechanicalSystem rooted = selection.getSystem();
+            assertEquals("The first root relating every frame should be chosen", "B", rooted.getFrameName(rooted.getGround()));
+            assertEquals("The wrong variables were selected", 4, selection.getVariableCount(Domain.ROTATIONAL));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rerootAtAnUnknownFrame_anExceptionShouldBeThrown() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 1, 0);
+        SystemRooting.reroot(builder.build(), 3);
+    }
+}
@@ -0,0 +1,91 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import mechanical.modeling.benchmark.SyntheticSystems;
+import mechanical.modeling.benchmark.SyntheticSystems.Topology;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class TreePathIndexTest {
+
+    @Test
+    public void queryThePathBetweenTwoBranches_thePathShouldGoThroughTheCommonAncestor() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 5, 4);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        int nD = builder.addFrame("D");
+        int m1 = builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        int h2 = builder.addComponent("h2", nA, nB, ComponentType.REVOLUTE_JOINT);
+        int u3 = builder.addComponent("u3", nC, nA, ComponentType.UNIVERSAL_JOINT);
+        int h4 = builder.addComponent("h4", nC, nD, ComponentType.REVOLUTE_JOINT);
+        VariableSelection selection = OptimalModelingVariables.selectVariables(builder.build());
+        TreePathIndex index = selection.getPathIndex(Domain.ROTATIONAL);
+
+        assertEquals("The common ancestor is wrong", nA, index.getCommonAncestor(nB, nD));
+        assertEquals("The common ancestor of a frame and its ancestor is the ancestor", nA, index.getCommonAncestor(nD, nA));
+        assertTrue("The ground is an ancestor of every frame", index.isAncestor(0, nD));
+        assertFalse("A sibling is not an ancestor", index.isAncestor(nB, nD));
+        assertEquals("The depth is wrong", 3, index.getDepth(nD));
+        assertEquals("The parent component is wrong", u3, index.getParentComponent(nC));
+
+        int[] components = new int[4];
+        assertEquals("The path length is wrong", 3, index.getPath(nB, nD, components));
+        assertArrayEquals("The path is wrong", new int[]{h2, u3, h4, 0}, components);
+        assertEquals("The path variable count is wrong", 4, index.getPathVariableCount(nB, nD));
+
+        int[] variables = new int[4];
+        index.getPathVariables(nB, nD, variables);
+        String[] names = new String[4];
+        for (int i = 0; i < 4; i++) {
+            names[i] = selection.getVariableName(variables[i]);
+        }
+        assertArrayEquals("The path variables are wrong", new String[]{"phi_h2", "phi_u3", "theta_u3", "phi_h4"}, names);
+        assertEquals("The path to the ground is wrong", 1, index.getPath(nA, 0, components));
+        assertEquals("The path to the ground is wrong", m1, components[0]);
+    }
+
+    @Test
+    public void queryAFrameNotRelatedToTheGround_theFrameShouldBeReported() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("h2", nB, nC, ComponentType.REVOLUTE_JOINT);
+        TreePathIndex index = new TreePathIndex(OptimalModelingVariables.selectVariables(builder.build()), Domain.ROTATIONAL);
+
+        assertFalse("The frame should not be related", index.isRelated(nB));
+        assertEquals("There should be no common ancestor", -1, index.getCommonAncestor(nA, nB));
+        assertEquals("The frame should have no depth", -1, index.getDepth(nC));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queryThePathToAFrameNotRelatedToTheGround_theQueryShouldBeRejected() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 1);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("h1", nA, nB, ComponentType.REVOLUTE_JOINT);
+        TreePathIndex index = new TreePathIndex(OptimalModelingVariables.selectVariables(builder.build()), Domain.ROTATIONAL);
+
+        index.getPathLength(0, nB);
+    }
+
+    @Test
+    public void buildThePathIndexesAfterTheSelection_theIndexesShouldBeKept() {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.TREE, 50, 3).compact();
+        VariableSelection selection = OptimalModelingVariables.selectVariables(system);
+        TreePathIndex index = selection.getPathIndex(Domain.TRANSLATIONAL);
+
+        assertSame("The index should be kept", index, selection.getPathIndex(Domain.TRANSLATIONAL));
+        assertEquals("The index has the wrong domain", Domain.ROTATIONAL, selection.getPathIndex(Domain.ROTATIONAL).getDomain());
+    }
+}
@@ -0,0 +1,55 @@
+package mechanical.modeling.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class VariableSelectionTest {
+
+    @Test
+    public void selectTheVariablesOfACompactSystem_theHandlesShouldIdentifyTheRightVariables() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 3);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int u1 = builder.addComponent("u1", 0, nA, ComponentType.UNIVERSAL_JOINT);
+        int p2 = builder.addComponent("p2", nA, nB, ComponentType.PRISMATIC_JOINT);
+        builder.addComponent("m3", 0, nB, ComponentType.RIGID_BODY);
+        CompactMechanicalSystem system = builder.build();
+
+        VariableSelection selection = OptimalModelingVariables.selectVariables(system);
+
+        assertEquals("The wrong number of variables was selected", 3, selection.getVariableCount());
+        assertEquals("The wrong number of rotational variables was selected", 2, selection.getVariableCount(Domain.ROTATIONAL));
+        assertEquals("The wrong number of translational variables was selected", 1, selection.getVariableCount(Domain.TRANSLATIONAL));
+        assertArrayEquals("The wrong rotational tree was returned", new int[]{u1, p2}, selection.getTreeComponents(Domain.ROTATIONAL));
+
+        assertEquals("The variable has the wrong component", u1, selection.getComponent(1));
+        assertEquals("The variable has the wrong index", 1, selection.getVariableIndex(1));
+        assertEquals("The variable has the wrong domain", Domain.ROTATIONAL, selection.getDomain(1));
+        assertEquals("The variable has the wrong component", p2, selection.getComponent(2));
+        assertEquals("The variable has the wrong domain", Domain.TRANSLATIONAL, selection.getDomain(2));
+        assertEquals("The variable name was not properly formatted", "theta_u1", selection.getVariableName(1));
+
+        assertEquals("The variable names are not in order", Arrays.asList("phi_u1", "theta_u1", "x_p2"),
+                new ArrayList<String>(selection.getVariableNames()));
+        assertEquals("The selection does not match the variables found", OptimalModelingVariables.findVariables(system),
+                selection.getVariableNames());
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void getTheDomainOfAVariableThatWasNotSelected_shouldReturnAnException() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        int nA = builder.addFrame("A");
+        builder.addComponent("h1", 0, nA, ComponentType.REVOLUTE_JOINT);
+
+        OptimalModelingVariables.selectVariables(builder.build()).getDomain(1);
+    }
+}
@@ -0,0 +1,284 @@
+package mechanical.modeling.benchmark;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import mechanical.modeling.algorithms.CompactShortestPathsTree;
+import mechanical.modeling.algorithms.EdgeWeight;
+import mechanical.modeling.algorithms.KinematicLoops;
+import mechanical.modeling.algorithms.OptimalModelingVariables;
+import mechanical.modeling.algorithms.SimulationCostModel;
+import mechanical.modeling.algorithms.SubassemblyDetection;
+import mechanical.modeling.algorithms.TreePathIndex;
+import mechanical.modeling.algorithms.TreeSearch;
+import mechanical.modeling.algorithms.VariableSelection;
+import mechanical.modeling.benchmark.SyntheticSystems.Topology;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+import mechanical.modeling.equations.CompiledKinematics;
+import mechanical.modeling.equations.ExpressionGraph;
+import mechanical.modeling.equations.KinematicEquations;
+
+import org.junit.Test;
+
+/*
+ * Runs the checks that need larger systems on one synthetic system of each topology.
+ * The other test classes check the same algorithms on small hand-built systems.
+ */
+public class SyntheticSystemSweepTest {
+
+    private static final Topology[] TOPOLOGIES = Topology.values();
+    private static final CompactMechanicalSystem[] SYSTEMS = generate(300, 11);
+    private static final CompactMechanicalSystem[] SMALL_SYSTEMS = generate(40, 3);
+    private static final Domain[] DOMAINS = {Domain.ROTATIONAL, Domain.TRANSLATIONAL};
+
+    private static CompactMechanicalSystem[] generate(int components, long seed) {
+        CompactMechanicalSystem[] systems = new CompactMechanicalSystem[TOPOLOGIES.length];
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            systems[i] = SyntheticSystems.generate(TOPOLOGIES[i], components, seed).compact();
+        }
+        return systems;
+    }
+
+    /*
+     * Checks that a tree relates the same frames to the ground as the shortest paths tree,
+     * at the same distances
+     */
+    private static void assertShortestPathsTree(String message, CompactMechanicalSystem system, Domain domain, int[] tree) {
+        CompactShortestPathsTree expected = new CompactShortestPathsTree(system, domain);
+        boolean[] inTree = new boolean[system.getComponentCount()];
+        for (int component : tree) {
+            inTree[component] = true;
+        }
+        double[] distances = new double[system.getFrameCount()];
+        boolean[] reached = new boolean[system.getFrameCount()];
+        int[] queue = new int[system.getFrameCount()];
+        int queueSize = 0;
+        reached[system.getGround()] = true;
+        queue[queueSize++] = system.getGround();
+        for (int next = 0; next < queueSize; next++) {
+            int frame = queue[next];
+            for (int index = system.getAdjacencyStart(frame); index < system.getAdjacencyEnd(frame); index++) {
+                int component = system.getAdjacentComponent(index);
+                int adjacent = system.getAdjacentFrame(index);
+                if (inTree[component] && !reached[adjacent]) {
+                    reached[adjacent] = true;
+                    distances[adjacent] = distances[frame] + system.getNumberOfVariables(component, domain);
+                    queue[queueSize++] = adjacent;
+                }
+            }
+        }
+        assertEquals(message + ": the tree has a component that relates no new frame", queueSize - 1, tree.length);
+        for (int frame = 0; frame < system.getFrameCount(); frame++) {
+            assertEquals(message + ": a frame was not reached", expected.isReachable(frame), reached[frame]);
+            if (reached[frame]) {
+                assertEquals(message + ": a distance is different", expected.getDistance(frame), distances[frame], 0);
+            }
+        }
+    }
+
+    @Test
+    public void generateASystemOfEachTopology_theSystemsShouldHaveTheRequestedNumberOfComponents() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            int components = SyntheticSystems.generate(TOPOLOGIES[i], 100, 1).getAllComponents().size();
+            assertTrue("The " + TOPOLOGIES[i] + " system does not have the right number of components", components > 90 && components <= 100);
+        }
+    }
+
+    @Test
+    public void searchTheTreesWithEachTreeSearch_theDistancesShouldMatchTheShortestPathsTree() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            int variableCount = OptimalModelingVariables.selectVariables(SYSTEMS[i]).getVariableCount();
+            for (TreeSearch treeSearch : new TreeSearch[]{TreeSearch.BINARY_HEAP, TreeSearch.BUCKET_QUEUE, TreeSearch.REDUCED_GRAPH}) {
+                VariableSelection selection = OptimalModelingVariables.selectVariables(SYSTEMS[i], EdgeWeight.NUMBER_OF_VARIABLES, treeSearch);
+                assertEquals("The " + TOPOLOGIES[i] + " " + treeSearch + " selection has a different number of variables", variableCount,
+                        selection.getVariableCount());
+                for (Domain domain : DOMAINS) {
+                    assertShortestPathsTree("The " + TOPOLOGIES[i] + " " + treeSearch + " " + domain + " tree", SYSTEMS[i], domain,
+                            selection.getTreeComponents(domain));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void solveTheRepeatedSubassemblies_theDistancesShouldMatchTheShortestPathsTree() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            VariableSelection selection = OptimalModelingVariables.selectVariables(new SubassemblyDetection(SYSTEMS[i]));
+            for (Domain domain : DOMAINS) {
+                assertShortestPathsTree("The " + TOPOLOGIES[i] + " " + domain + " tree", SYSTEMS[i], domain, selection.getTreeComponents(domain));
+            }
+        }
+    }
+
+    @Test
+    public void searchTheMinimumVariablesTrees_theTreesShouldNeverHaveMoreVariablesThanTheShortestPathsTrees() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            VariableSelection shortestPaths = OptimalModelingVariables.selectVariables(SYSTEMS[i]);
+            VariableSelection minimumVariables = OptimalModelingVariables.selectVariables(SYSTEMS[i],
+                    EdgeWeight.NUMBER_OF_VARIABLES, TreeSearch.MINIMUM_VARIABLES);
+
+            assertTrue("The " + TOPOLOGIES[i] + " tree has more variables", minimumVariables.getVariableCount() <= shortestPaths.getVariableCount());
+            assertEquals("The " + TOPOLOGIES[i] + " tree does not reach every frame", shortestPaths.getTreeSize(Domain.ROTATIONAL),
+                    minimumVariables.getTreeSize(Domain.ROTATIONAL));
+        }
+    }
+
+    @Test
+    public void findTheLoops_eachCycleShouldBeAClosedWalk() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            CompactMechanicalSystem system = SYSTEMS[i];
+            VariableSelection selection = OptimalModelingVariables.selectVariables(system);
+            for (Domain domain : DOMAINS) {
+                KinematicLoops loops = selection.getLoops(domain);
+                assertEquals("The " + TOPOLOGIES[i] + " tree and cotree should contain every component", system.getComponentCount(),
+                        loops.getTreeComponents().length + loops.getCycleCount());
+
+                int constraints = 0;
+                for (int cycle = 0; cycle < loops.getCycleCount(); cycle++) {
+                    int[] components = loops.getCycle(cycle);
+                    int frame = system.getSourceFrame(components[0]);
+                    for (int j = 1; j < components.length; j++) {
+                        int component = components[j];
+                        frame = system.getSourceFrame(component) == frame ? system.getTargetFrame(component) : system.getSourceFrame(component);
+                    }
+                    assertEquals("A " + TOPOLOGIES[i] + " cycle is not closed", system.getTargetFrame(components[0]), frame);
+                    constraints += loops.getConstraintCount(cycle);
+                }
+                assertEquals("The wrong total number of constraints was found", constraints, loops.getTotalConstraintCount());
+            }
+        }
+    }
+
+    @Test
+    public void calibrateFromExactTimes_theCostsShouldBeRecovered() {
+        SimulationCostModel expected = new SimulationCostModel(1.5, 0.5, 4);
+        SimulationCostModel.Calibration calibration = new SimulationCostModel.Calibration();
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            for (int size = 20; size <= 80; size += 20) {
+                VariableSelection selection = OptimalModelingVariables.selectVariables(SyntheticSystems.generate(TOPOLOGIES[i], size, size).compact());
+                calibration.addSample(selection, 10 + expected.predictCost(selection));
+            }
+        }
+
+        SimulationCostModel fitted = calibration.fit();
+        assertEquals("The wrong number of samples was kept", TOPOLOGIES.length * 4, calibration.getSampleCount());
+        assertEquals("The rotational cost was not recovered", 1.5, fitted.getVariableCost(ComponentType.RIGID_BODY, Domain.ROTATIONAL), 1e-6);
+        assertEquals("The translational cost was not recovered", 0.5, fitted.getVariableCost(ComponentType.RIGID_BODY, Domain.TRANSLATIONAL), 1e-6);
+        assertEquals("The constraint cost was not recovered", 4, fitted.getConstraintCost(), 1e-6);
+    }
+
+    @Test
+    public void assembleTheKinematicEquations_theOrientationsShouldBeRotations() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            CompactMechanicalSystem system = SMALL_SYSTEMS[i];
+            ExpressionGraph graph = new ExpressionGraph();
+            KinematicEquations equations = new KinematicEquations(OptimalModelingVariables.selectVariables(system), graph);
+
+            double[] values = new double[graph.getVariableCount()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = 0.1 * (j % 7) - 0.3;
+            }
+            for (int frame = 0; frame < system.getFrameCount(); frame++) {
+                assertTrue("A " + TOPOLOGIES[i] + " frame is not related to the ground", equations.isRelated(frame));
+                for (int row = 0; row < 3; row++) {
+                    double norm = 0;
+                    for (int column = 0; column < 3; column++) {
+                        double entry = graph.evaluate(equations.getOrientation(frame, row, column), values);
+                        norm += entry * entry;
+                    }
+                    assertEquals("A " + TOPOLOGIES[i] + " orientation is not a rotation", 1, norm, 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void evaluateTheCompiledKinematics_thePosesShouldMatchTheExpressions() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            CompactMechanicalSystem system = SMALL_SYSTEMS[i];
+            ExpressionGraph graph = new ExpressionGraph();
+            KinematicEquations equations = new KinematicEquations(OptimalModelingVariables.selectVariables(system), graph);
+            CompiledKinematics kinematics = new CompiledKinematics(equations);
+
+            double[] coordinates = new double[kinematics.getCoordinateCount()];
+            for (int j = 0; j < coordinates.length; j++) {
+                coordinates[j] = 0.2 * (j % 5) - 0.4;
+            }
+            double[] poses = new double[kinematics.getPosesSize()];
+            kinematics.copy().evaluate(coordinates, poses);
+
+            for (int frame = 0; frame < system.getFrameCount(); frame++) {
+                assertEquals("A " + TOPOLOGIES[i] + " orientation is different", graph.evaluate(equations.getOrientation(frame, 2, 1), coordinates),
+                        poses[CompiledKinematics.POSE_SIZE * frame + 7], 1e-12);
+                assertEquals("A " + TOPOLOGIES[i] + " position is different", graph.evaluate(equations.getPosition(frame, 0), coordinates),
+                        poses[CompiledKinematics.POSE_SIZE * frame + 9], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void queryThePathIndexes_thePathsShouldMatchAWalkOfTheParents() {
+        for (int i = 0; i < TOPOLOGIES.length; i++) {
+            CompactMechanicalSystem system = SYSTEMS[i];
+            VariableSelection selection = OptimalModelingVariables.selectVariables(system);
+            for (Domain domain : DOMAINS) {
+                TreePathIndex index = selection.getPathIndex(domain);
+                int[] components = new int[system.getFrameCount()];
+                int[] variables = new int[3 * system.getFrameCount()];
+                Random random = new Random(5);
+                for (int query = 0; query < 500; query++) {
+                    int source = random.nextInt(system.getFrameCount());
+                    int target = random.nextInt(system.getFrameCount());
+                    if (!index.isRelated(source) || !index.isRelated(target)) {
+                        continue;
+                    }
+                    int[] expected = walk(index, source, target);
+                    int length = index.getPath(source, target, components);
+                    assertArrayEquals("The " + TOPOLOGIES[i] + " path in the " + domain + " domain is wrong", expected,
+                            Arrays.copyOf(components, length));
+
+                    int variableCount = index.getPathVariables(source, target, variables);
+                    int expectedCount = 0;
+                    for (int component : expected) {
+                        for (int j = 0; j < system.getNumberOfVariables(component, domain); j++) {
+                            assertEquals("The path variables are out of order", component,
+                                    selection.getComponent(variables[expectedCount++]));
+                        }
+                    }
+                    assertEquals("The path variable count is wrong", expectedCount, variableCount);
+                }
+            }
+        }
+    }
+
+    /*
+     * Finds the path between two frames by climbing from the deeper frame one parent
+     * at a time
+     */
+    private static int[] walk(TreePathIndex index, int source, int target) {
+        int[] up = new int[index.getDepth(source)];
+        int[] down = new int[index.getDepth(target)];
+        int upCount = 0;
+        int downCount = 0;
+        while (source != target) {
+            if (index.getDepth(source) >= index.getDepth(target)) {
+                up[upCount++] = index.getParentComponent(source);
+                source = index.getParentFrame(source);
+            } else {
+                down[downCount++] = index.getParentComponent(target);
+                target = index.getParentFrame(target);
+            }
+        }
+        int[] path = Arrays.copyOf(up, upCount + downCount);
+        for (int i = 0; i < downCount; i++) {
+            path[upCount + i] = down[downCount - 1 - i];
+        }
+        return path;
+    }
+}
@@ -0,0 +1,46 @@
+package mechanical.modeling.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import mechanical.modeling.benchmark.SyntheticSystems.Topology;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.MechanicalComponent;
+
+import org.junit.Test;
+
+public class SyntheticSystemsTest {
+
+    @Test
+    public void generateASerialChain_theChainShouldHaveTheRequestedNumberOfComponents() {
+        assertEquals("The serial chain does not have the right number of components", 100,
+                SyntheticSystems.generate(Topology.SERIAL_CHAIN, 100, 1).getAllComponents().size());
+    }
+
+    @Test
+    public void generateTheSameSystemTwice_theComponentTypesShouldBeTheSame() {
+        List<String> firstSystem = new ArrayList<String>();
+        for (MechanicalComponent component : SyntheticSystems.generate(Topology.TREE, 50, 7).getAllComponents()) {
+            firstSystem.add(component.toString());
+        }
+        List<String> secondSystem = new ArrayList<String>();
+        for (MechanicalComponent component : SyntheticSystems.generate(Topology.TREE, 50, 7).getAllComponents()) {
+            secondSystem.add(component.toString());
+        }
+        assertEquals("The same parameters generated different systems", firstSystem, secondSystem);
+    }
+
+    @Test
+    public void generateAClosedLoopSystem_theSystemShouldHaveMoreComponentsThanFrames() {
+        CompactMechanicalSystem system = SyntheticSystems.generate(Topology.CLOSED_LOOPS, 100, 1).compact();
+        assertTrue("The system does not contain loops", system.getComponentCount() >= system.getFrameCount());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void generateASystemWithoutComponents_shouldReturnAnException() {
+        SyntheticSystems.generate(Topology.SERIAL_CHAIN, 0, 1);
+    }
+}
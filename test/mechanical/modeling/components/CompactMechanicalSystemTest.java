@@ -0,0 +1,59 @@
+package mechanical.modeling.components;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CompactMechanicalSystemTest {
+
+    @Test
+    public void buildACompactSystemOfTwoComponents_allMethodsShouldWorkCorrectly() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("Ground", 3, 2);
+        int cs1 = builder.addFrame("CS1");
+        int cs2 = builder.addFrame("CS2");
+        int m1 = builder.addComponent("m1", 0, cs1, ComponentType.RIGID_BODY);
+        int h2 = builder.addComponent("h2", cs1, cs2, ComponentType.REVOLUTE_JOINT);
+
+        CompactMechanicalSystem system = builder.build();
+        assertEquals("The compact system does not contain the right number of frames", 3, system.getFrameCount());
+        assertEquals("The compact system does not contain the right number of components", 2, system.getComponentCount());
+        assertEquals("The ground frame was not given the first id", 0, system.getGround());
+        assertEquals("The frame name was not stored properly", "CS2", system.getFrameName(cs2));
+        assertEquals("The component name was not stored properly", "h2", system.getComponentName(h2));
+        assertEquals("The component type was not stored properly", ComponentType.REVOLUTE_JOINT, system.getComponentType(h2));
+        assertEquals("The component source was not stored properly", cs1, system.getSourceFrame(h2));
+        assertEquals("The component target was not stored properly", cs2, system.getTargetFrame(h2));
+        assertEquals("The wrong number of variables was returned", 3, system.getNumberOfVariables(m1, Domain.TRANSLATIONAL));
+        assertEquals("The wrong number of variables was returned", 0, system.getNumberOfVariables(h2, Domain.TRANSLATIONAL));
+        assertArrayEquals("The variables were not properly formatted", new String[]{"phi_h2"}, system.getVariables(h2, Domain.ROTATIONAL));
+    }
+
+    @Test
+    public void buildACompactSystemBeyondTheExpectedSize_theAdjacencyShouldListBothEndsOfEachComponent() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("Ground", 1, 1);
+        int cs1 = builder.addFrame("CS1");
+        int cs2 = builder.addFrame("CS2");
+        int m1 = builder.addComponent("m1", 0, cs1, ComponentType.RIGID_BODY);
+        int m2 = builder.addComponent("m2", 0, cs2, ComponentType.RIGID_BODY);
+        int r3 = builder.addComponent("r3", cs1, cs2, ComponentType.ARM);
+
+        CompactMechanicalSystem system = builder.build();
+        assertEquals("The ground frame does not have the right number of edges", 2,
+                system.getAdjacencyEnd(0) - system.getAdjacencyStart(0));
+
+        int start = system.getAdjacencyStart(cs2);
+        assertEquals("The frame does not have the right number of edges", 2, system.getAdjacencyEnd(cs2) - start);
+        assertEquals("The adjacency does not list the right component", m2, system.getAdjacentComponent(start));
+        assertEquals("The adjacency does not list the right frame", 0, system.getAdjacentFrame(start));
+        assertEquals("The adjacency does not list the right component", r3, system.getAdjacentComponent(start + 1));
+        assertEquals("The adjacency does not list the right frame", cs1, system.getAdjacentFrame(start + 1));
+        assertEquals("The adjacency does not list the right component", m1, system.getAdjacentComponent(system.getAdjacencyStart(cs1)));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void addAComponentWithAnUnknownFrame_shouldReturnAnException() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("Ground", 1, 1);
+        builder.addComponent("m1", 0, 1, ComponentType.RIGID_BODY);
+    }
+}
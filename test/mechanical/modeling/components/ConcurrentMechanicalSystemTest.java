@@ -0,0 +1,112 @@
+package mechanical.modeling.components;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ConcurrentMechanicalSystemTest {
+
+    @Test
+    public void addAComponentToAConcurrentSystem_previousSnapshotsShouldNotChange() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY);
+        MechanicalComponent m2 = new MechanicalComponent("m2", ground, cs2, ComponentType.RIGID_BODY);
+
+        ConcurrentMechanicalSystem mSystem = new ConcurrentMechanicalSystem(ground);
+        assertTrue("The component was not added", mSystem.addComponent(m1));
+        MechanicalSystem firstSnapshot = mSystem.getSnapshot();
+        assertTrue("The component was not added", mSystem.addComponent(m2));
+        MechanicalSystem secondSnapshot = mSystem.getSnapshot();
+
+        assertEquals("The first snapshot was modified", 1, firstSnapshot.getAllComponents().size());
+        assertEquals("The first snapshot was modified", 1, firstSnapshot.getRotationalGraph().getAllEdges().size());
+        assertEquals("The second snapshot does not contain both components", 2, secondSnapshot.getAllComponents().size());
+        assertEquals("The second snapshot does not contain both components", 2, secondSnapshot.getTranslationalGraph().getAllEdges().size());
+        assertEquals("The snapshot does not have the right ground", ground, secondSnapshot.getGround());
+    }
+
+    @Test
+    public void updateAConcurrentSystem_allTheChangesShouldBePublishedTogether() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY);
+        MechanicalComponent h2 = new MechanicalComponent("h2", ground, cs1, ComponentType.REVOLUTE_JOINT);
+
+        ConcurrentMechanicalSystem mSystem = new ConcurrentMechanicalSystem(ground);
+        mSystem.addComponent(m1);
+        MechanicalSystem firstSnapshot = mSystem.getSnapshot();
+
+        assertTrue("The system was not changed", mSystem.update(Collections.singleton(h2), Collections.singleton(m1)));
+        assertTrue("An unchanged system should not publish a snapshot", !mSystem.removeComponent(m1));
+
+        List<MechanicalComponent> components = new ArrayList<MechanicalComponent>(mSystem.getSnapshot().getAllComponents());
+        assertEquals("The changes were not published together", Collections.singletonList(h2), components);
+        assertTrue("The first snapshot was modified", firstSnapshot.getAllComponents().contains(m1));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void addAComponentToASnapshot_shouldReturnAnException() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        ConcurrentMechanicalSystem mSystem = new ConcurrentMechanicalSystem(ground);
+        mSystem.getSnapshot().addComponent(new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void addAnEdgeToTheGraphOfASnapshot_shouldReturnAnException() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        ConcurrentMechanicalSystem mSystem = new ConcurrentMechanicalSystem(ground);
+        mSystem.addComponent(new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY));
+        MechanicalComponent h2 = new MechanicalComponent("h2", ground, cs1, ComponentType.REVOLUTE_JOINT);
+        mSystem.getSnapshot().getRotationalGraph().addEdge(h2.getRotationalEdge());
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void removeTheNodesOfTheGraphOfASnapshot_shouldReturnAnException() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        ConcurrentMechanicalSystem mSystem = new ConcurrentMechanicalSystem(ground);
+        mSystem.addComponent(new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY));
+        mSystem.getSnapshot().getTranslationalGraph().getAllNodes().clear();
+    }
+
+    @Test
+    public void changeTheGraphsOfASnapshot_theSnapshotShouldNotChange() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        ConcurrentMechanicalSystem mSystem = new ConcurrentMechanicalSystem(ground);
+        mSystem.addComponent(new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY));
+        MechanicalSystem snapshot = mSystem.getSnapshot();
+        MechanicalEdge edge = snapshot.getRotationalGraph().getAllEdges().iterator().next();
+        try {
+            snapshot.getRotationalGraph().removeEdge(edge);
+            fail("Removing an edge of a snapshot should be rejected");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            edge.setWeight(42);
+            fail("Changing the weight of an edge of a snapshot should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertEquals("The snapshot's graph was modified", 1, snapshot.getRotationalGraph().getAllEdges().size());
+        assertEquals("The edge weight was modified", 3, edge.getWeight(), 0);
+    }
+}
@@ -54,5 +54,17 @@ public class MechanicalComponentTest {
         assertEquals("The mechanical edge is not returning the type properly",ComponentType.RIGID_BODY,transEdge.getType());
     }
 
+    @Test
+    public void getTheVariablesOfAMechanicalComponentInEachDomain_theEdgeVariablesShouldBeReturned() {
+        ReferenceFrame cs1 = new ReferenceFrame("cs1");
+        ReferenceFrame cs2 = new ReferenceFrame("cs2");
 
+        MechanicalComponent c1 = new MechanicalComponent ("c1", cs1, cs2, ComponentType.REVOLUTE_PRISMATIC_JOINT);
+
+        assertEquals("The mechanical component is not returning the right number of variables",1,c1.getNumberOfVariables(Domain.ROTATIONAL));
+        assertEquals("The mechanical component variables were not proprely formatted","phi_c1",c1.getVariables(Domain.ROTATIONAL)[0]);
+        assertEquals("The mechanical component is not returning the right number of variables",1,c1.getNumberOfVariables(Domain.TRANSLATIONAL));
+        assertEquals("The mechanical component variables were not proprely formatted","x_c1",c1.getVariables(Domain.TRANSLATIONAL)[0]);
+        assertEquals("The mechanical component is not returning the right edge",c1.getRotationalEdge(),c1.getEdge(Domain.ROTATIONAL));
+    }
 }
@@ -1,6 +1,7 @@
 package mechanical.modeling.components;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -25,5 +26,20 @@ public class MechanicalEdgeTest {
         assertEquals("The mechanical edge is not reteruning the right number of variables",0,a1.getNumberOfVariables());
 
         assertEquals("The mechanical edge is not returning the type properly",ComponentType.RIGID_BODY,m1.getType());
+
+        assertEquals("The mechanical edge is not weighed by its number of variables",3,m1.getWeight(),0);
+        assertEquals("The mechanical edge is not weighed by its number of variables",0,a1.getWeight(),0);
+    }
+
+    @Test
+    public void getTheVariablesOfAMechanicalEdgeTwice_theSameNamesShouldBeReturned() {
+        ReferenceFrame cs1 = new ReferenceFrame("cs1");
+        ReferenceFrame cs2 = new ReferenceFrame("cs2");
+
+        MechanicalEdge u1 = new MechanicalEdge("u1", cs1, cs2, ComponentType.UNIVERSAL_JOINT, Domain.ROTATIONAL);
+
+        assertEquals("The mechanical edge variable was not properly formatted","theta_u1",u1.getVariable(1));
+        assertSame("The mechanical edge variables were built twice",u1.getVariables(),u1.getVariables());
+        assertEquals("The mechanical edge variables were not properly formatted","phi_u1",u1.getVariables()[0]);
     }
 }
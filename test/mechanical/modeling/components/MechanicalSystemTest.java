@@ -4,6 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import graph.elements.WeightedGraph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Test;
@@ -107,4 +110,122 @@ public class MechanicalSystemTest {
 
     }
 
+    @Test
+    public void createSystemOfTwoComponentsAndCompactIt_theCompactSystemShouldHaveTheSameTopology() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY);
+        MechanicalComponent h2 = new MechanicalComponent("h2", cs1, cs2, ComponentType.REVOLUTE_JOINT);
+
+        MechanicalSystem mSystem = new MechanicalSystem(ground);
+        mSystem.addComponent(m1);
+        mSystem.addComponent(h2);
+
+        CompactMechanicalSystem compactSystem = mSystem.compact();
+        assertEquals("The compact system does not contain the right number of frames", 3, compactSystem.getFrameCount());
+        assertEquals("The compact system does not contain the right number of components", 2, compactSystem.getComponentCount());
+        assertEquals("The ground frame was not properly compacted", "Ground", compactSystem.getFrameName(compactSystem.getGround()));
+        assertEquals("A component was not properly compacted", "h2", compactSystem.getComponentName(1));
+        assertEquals("A component was not properly compacted", ComponentType.REVOLUTE_JOINT, compactSystem.getComponentType(1));
+        assertEquals("A component was not properly compacted", "CS1", compactSystem.getFrameName(compactSystem.getSourceFrame(1)));
+        assertEquals("A component was not properly compacted", "CS2", compactSystem.getFrameName(compactSystem.getTargetFrame(1)));
+    }
+
+    @Test
+    public void registerAListenerAndAddAndRemoveAComponent_theListenerShouldBeNotified() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY);
+
+        final List<String> events = new ArrayList<String>();
+        MechanicalSystemListener listener = new MechanicalSystemListener() {
+            @Override
+            public void componentAdded(MechanicalSystem mechanicalSystem, MechanicalComponent component) {
+                events.add("added " + component.getName());
+            }
+
+            @Override
+            public void componentRemoved(MechanicalSystem mechanicalSystem, MechanicalComponent component) {
+                events.add("removed " + component.getName());
+            }
+        };
+
+        MechanicalSystem mSystem = new MechanicalSystem(ground);
+        mSystem.addListener(listener);
+        mSystem.addComponent(m1);
+        mSystem.addComponent(m1);
+        mSystem.removeComponent(m1);
+        assertTrue("The listener was not unregistered", mSystem.removeListener(listener));
+        mSystem.addComponent(m1);
+
+        assertEquals("The listener was not notified properly", 2, events.size());
+        assertEquals("The listener was not notified properly", "added m1", events.get(0));
+        assertEquals("The listener was not notified properly", "removed m1", events.get(1));
+    }
+
+    @Test
+    public void buildASystemOfThreeComponents_theComponentsShouldBeInBothGraphs() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY);
+        MechanicalComponent r2 = new MechanicalComponent("r2", cs1, cs2, ComponentType.REVOLUTE_JOINT);
+        MechanicalComponent m3 = new MechanicalComponent("m3", ground, cs2, ComponentType.RIGID_BODY);
+
+        MechanicalSystem mSystem = new MechanicalSystem.Builder(ground, 3).addComponent(m1).addComponent(r2).addComponent(m3).build();
+
+        assertEquals("The components were not all added", 3, mSystem.getAllComponents().size());
+        assertEquals("The components were not added in order", r2, new ArrayList<MechanicalComponent>(mSystem.getAllComponents()).get(1));
+        assertEquals("The translational graph is missing edges", 3, mSystem.getTranslationalGraph().getAllEdges().size());
+        assertEquals("The rotational graph is missing edges", 3, mSystem.getRotationalGraph().getAllEdges().size());
+    }
+
+    @Test
+    public void addAndRemoveComponentsInBulk_theListenerShouldBeNotifiedOfEachChange() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        ReferenceFrame cs1 = new ReferenceFrame("CS1");
+        ReferenceFrame cs2 = new ReferenceFrame("CS2");
+
+        MechanicalComponent m1 = new MechanicalComponent("m1", ground, cs1, ComponentType.RIGID_BODY);
+        MechanicalComponent m2 = new MechanicalComponent("m2", ground, cs2, ComponentType.RIGID_BODY);
+
+        final List<String> events = new ArrayList<String>();
+        MechanicalSystem mSystem = new MechanicalSystem(ground, 2);
+        mSystem.addListener(new MechanicalSystemListener() {
+            @Override
+            public void componentAdded(MechanicalSystem mechanicalSystem, MechanicalComponent component) {
+                events.add("added " + component.getName() + " " + mechanicalSystem.getAllComponents().size());
+            }
+
+            @Override
+            public void componentRemoved(MechanicalSystem mechanicalSystem, MechanicalComponent component) {
+                events.add("removed " + component.getName() + " " + mechanicalSystem.getAllComponents().size());
+            }
+        });
+
+        assertEquals("The components were not all added", 2, mSystem.addComponents(Arrays.asList(m1, m2, m1)));
+        assertEquals("Only the components in the system should be removed", 1,
+                mSystem.removeComponents(Arrays.asList(m2, new MechanicalComponent("m3", cs1, cs2, ComponentType.ARM))));
+
+        assertEquals("The listener was not notified properly",
+                Arrays.asList("added m1 2", "added m2 2", "removed m2 1"), events);
+        assertEquals("The graph still contains the removed edge", 1, mSystem.getRotationalGraph().getAllEdges().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addComponentsIncludingNull_noComponentShouldBeAdded() {
+        ReferenceFrame ground = new ReferenceFrame("Ground");
+        MechanicalSystem mSystem = new MechanicalSystem(ground);
+        try {
+            mSystem.addComponents(Arrays.asList(new MechanicalComponent("m1", ground, new ReferenceFrame("CS1"),
+                    ComponentType.RIGID_BODY), null));
+        } finally {
+            assertEquals("A component was added before the check", 0, mSystem.getAllComponents().size());
+        }
+    }
+
 }
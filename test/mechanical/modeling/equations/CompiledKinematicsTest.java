@@ -0,0 +1,58 @@
+package mechanical.modeling.equations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import mechanical.modeling.algorithms.OptimalModelingVariables;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+
+import org.junit.Test;
+
+public class CompiledKinematicsTest {
+
+    @Test
+    public void compileTheEquationsOfAChain_onlyTheNeededNodesShouldBeComputed() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        int nA = builder.addFrame("A");
+        builder.addComponent("h1", 0, nA, ComponentType.REVOLUTE_JOINT);
+        ExpressionGraph graph = new ExpressionGraph();
+        graph.sin(graph.variable("unused"));
+        CompiledKinematics kinematics = new CompiledKinematics(
+                new KinematicEquations(OptimalModelingVariables.selectVariables(builder.build()), graph));
+
+        assertEquals("Only the sine, cosine and negated sine should be computed", 3, kinematics.getInstructionCount());
+        double[] poses = new double[kinematics.getPosesSize()];
+        kinematics.evaluate(new double[]{Math.PI / 2}, poses);
+        assertEquals("The wrong rotation was computed", -1, poses[CompiledKinematics.POSE_SIZE * nA + 5], 1e-12);
+        assertEquals("The ground should not move", 1, poses[0], 0);
+    }
+
+    @Test
+    public void writeTheJavaSource_theSourceShouldComputeThePoses() throws IOException {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        int nA = builder.addFrame("A");
+        builder.addComponent("h1", 0, nA, ComponentType.REVOLUTE_JOINT);
+        CompiledKinematics kinematics = new CompiledKinematics(
+                new KinematicEquations(OptimalModelingVariables.selectVariables(builder.build()), new ExpressionGraph()));
+
+        StringWriter writer = new StringWriter();
+        kinematics.writeJavaSource(writer, "ChainPoses");
+        String source = writer.toString();
+        assertTrue("The class was not declared", source.startsWith("public final class ChainPoses {"));
+        assertTrue("The coordinates were not read", source.contains("Math.cos(q[0])"));
+        assertTrue("The poses were not written", source.contains("poses[" + (CompiledKinematics.POSE_SIZE * nA + 4) + "] = "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void evaluateWithTooFewCoordinates_anExceptionShouldBeThrown() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        builder.addComponent("m1", 0, builder.addFrame("A"), ComponentType.RIGID_BODY);
+        CompiledKinematics kinematics = new CompiledKinematics(
+                new KinematicEquations(OptimalModelingVariables.selectVariables(builder.build()), new ExpressionGraph()));
+        kinematics.evaluate(new double[1], new double[kinematics.getPosesSize()]);
+    }
+}
@@ -0,0 +1,57 @@
+package mechanical.modeling.equations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class ExpressionGraphTest {
+
+    @Test
+    public void buildTheSameExpressionTwice_theNodeShouldBeShared() {
+        ExpressionGraph graph = new ExpressionGraph();
+        int x = graph.variable("x");
+        int y = graph.variable("y");
+        int first = graph.multiply(graph.cos(x), graph.add(x, y));
+        int nodeCount = graph.getNodeCount();
+        int second = graph.multiply(graph.add(y, x), graph.cos(x));
+
+        assertEquals("The common subexpression was not shared", first, second);
+        assertEquals("Nodes were added for an existing expression", nodeCount, graph.getNodeCount());
+        assertEquals("The variable was added twice", x, graph.variable("x"));
+    }
+
+    @Test
+    public void buildExpressionsOfConstants_theExpressionsShouldBeFolded() {
+        ExpressionGraph graph = new ExpressionGraph();
+        int x = graph.variable("x");
+        int zero = graph.constant(0);
+        int one = graph.constant(1);
+
+        assertEquals("Adding 0 should return the operand", x, graph.add(zero, x));
+        assertEquals("Multiplying by 1 should return the operand", x, graph.multiply(x, one));
+        assertEquals("Multiplying by 0 should return 0", zero, graph.multiply(x, zero));
+        assertEquals("Negating twice should return the operand", x, graph.negate(graph.negate(x)));
+        assertEquals("Subtracting an expression from itself should return 0", zero, graph.subtract(x, x));
+        assertEquals("The constants were not folded", 3, graph.getConstant(graph.add(one, graph.constant(2))), 0);
+        assertSame("The constant should be a constant node", Operation.CONSTANT, graph.getOperation(graph.cos(zero)));
+    }
+
+    @Test
+    public void evaluateAnExpression_theValueShouldBeComputedFromTheVariables() {
+        ExpressionGraph graph = new ExpressionGraph();
+        int x = graph.variable("x");
+        int y = graph.variable("y");
+        int expression = graph.subtract(graph.multiply(graph.sin(x), y), graph.negate(y));
+
+        assertEquals("The wrong value was computed", Math.sin(0.5) * 2 + 2, graph.evaluate(expression, new double[]{0.5, 2}), 1e-12);
+        assertEquals("The wrong infix notation was returned", "(y*sin(x) - -y)", graph.toString(expression));
+        assertEquals("The variables were not numbered in order", "y", graph.getVariableName(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void useAnUnknownNode_anExceptionShouldBeThrown() {
+        ExpressionGraph graph = new ExpressionGraph();
+        graph.sin(5);
+    }
+}
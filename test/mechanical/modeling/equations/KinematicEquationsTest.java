@@ -0,0 +1,67 @@
+package mechanical.modeling.equations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import mechanical.modeling.algorithms.OptimalModelingVariables;
+import mechanical.modeling.algorithms.VariableSelection;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+
+import org.junit.Test;
+
+public class KinematicEquationsTest {
+
+    @Test
+    public void assembleTheEquationsOfAChain_thePosesShouldFollowTheVariables() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 3, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        builder.addComponent("h1", 0, nA, ComponentType.REVOLUTE_JOINT);
+        builder.addComponent("p2", nA, nB, ComponentType.PRISMATIC_JOINT);
+        VariableSelection selection = OptimalModelingVariables.selectVariables(builder.build());
+
+        ExpressionGraph graph = new ExpressionGraph();
+        KinematicEquations equations = new KinematicEquations(selection, graph);
+        double[] values = {0.3, 2};
+
+        assertEquals("The revolute joint should rotate about x", Math.cos(0.3),
+                graph.evaluate(equations.getOrientation(nA, 1, 1), values), 1e-12);
+        assertEquals("The revolute joint should rotate about x", Math.sin(0.3),
+                graph.evaluate(equations.getOrientation(nB, 2, 1), values), 1e-12);
+        assertEquals("The prismatic joint should slide along x", 2, graph.evaluate(equations.getPosition(nB, 0), values), 1e-12);
+        assertEquals("The prismatic joint should not move along y", 0, graph.evaluate(equations.getPosition(nB, 1), values), 0);
+    }
+
+    @Test
+    public void assembleTheEquationsOfAReversedComponent_theInverseMotionShouldBeUsed() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 2, 1);
+        int nA = builder.addFrame("A");
+        builder.addComponent("m1", nA, 0, ComponentType.RIGID_BODY);
+        VariableSelection selection = OptimalModelingVariables.selectVariables(builder.build());
+
+        ExpressionGraph graph = new ExpressionGraph();
+        KinematicEquations equations = new KinematicEquations(selection, graph);
+        double[] values = {0.4, 0, 0, 1, 0, 0};
+
+        assertEquals("The rotation should be transposed", Math.sin(0.4),
+                graph.evaluate(equations.getOrientation(nA, 1, 2), values), 1e-12);
+        assertEquals("The displacement should be subtracted", -1, graph.evaluate(equations.getPosition(nA, 0), values), 1e-12);
+    }
+
+    @Test
+    public void assembleTheEquationsOfADetachedFrame_theFrameShouldNotBeRelated() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("O", 4, 2);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("m2", nB, nC, ComponentType.RIGID_BODY);
+
+        KinematicEquations equations = new KinematicEquations(OptimalModelingVariables.selectVariables(builder.build()),
+                new ExpressionGraph());
+        assertTrue("The frame should be related", equations.isRelated(nA));
+        assertFalse("The frame should not be related", equations.isRelated(nB));
+        assertEquals("The frame should have no expression", -1, equations.getPosition(nC, 0));
+    }
+}
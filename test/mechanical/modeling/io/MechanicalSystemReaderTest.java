@@ -0,0 +1,110 @@
+package mechanical.modeling.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+import org.junit.Test;
+
+public class MechanicalSystemReaderTest {
+
+    @Test
+    public void readAModelInTheTextFormat_theFramesShouldBeShared() throws IOException {
+        String text = "# exported model\n" +
+                "ground,O\n" +
+                "\n" +
+                "m1,RIGID_BODY,O,A\n" +
+                "h2, REVOLUTE_JOINT ,A,B\n";
+
+        MechanicalSystemReader.Result result = MechanicalSystemReader.readText(new StringReader(text));
+        MechanicalSystem system = result.getSystem();
+
+        assertEquals("The malformed records were not counted properly", 0, result.getErrorCount());
+        assertEquals("The ground was not read properly", "O", system.getGround().getName());
+        assertEquals("The components were not all read", 2, system.getAllComponents().size());
+
+        Iterator<MechanicalComponent> components = system.getAllComponents().iterator();
+        MechanicalComponent m1 = components.next();
+        MechanicalComponent h2 = components.next();
+        assertSame("The ground frame was not shared", system.getGround(), m1.getSourceReferenceFrame());
+        assertSame("The frame A was not shared", m1.getTargetReferenceFrame(), h2.getSourceReferenceFrame());
+        assertEquals("The component type was not read properly", ComponentType.REVOLUTE_JOINT, h2.getType());
+    }
+
+    @Test
+    public void readAModelWithMalformedLines_theMalformedLinesShouldBeReportedAndSkipped() throws IOException {
+        String text = "ground,O\n" +
+                "m1,RIGID_BODY,O,A\n" +
+                "h2,REVOLUTE_JOINT,A\n" +
+                "x3,UNKNOWN_JOINT,A,B\n" +
+                "h4,REVOLUTE_JOINT,A,B\n";
+
+        MechanicalSystemReader.Result result = MechanicalSystemReader.readText(new StringReader(text));
+
+        assertEquals("The valid components were not all read", 2, result.getSystem().getAllComponents().size());
+        assertEquals("The malformed records were not counted properly", 2, result.getErrorCount());
+        assertTrue("The line of the error was not reported", result.getErrors().get(0).startsWith("Record 3:"));
+        assertTrue("The line of the error was not reported", result.getErrors().get(1).startsWith("Record 4:"));
+    }
+
+    @Test(expected=IOException.class)
+    public void readAModelWithoutAGround_shouldReturnAnException() throws IOException {
+        MechanicalSystemReader.readText(new StringReader("m1,RIGID_BODY,O,A\n"));
+    }
+
+    @Test
+    public void writeAndReadAModelInTheBinaryFormat_theSameSystemShouldBeReturned() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        ReferenceFrame a = new ReferenceFrame("A");
+        ReferenceFrame b = new ReferenceFrame("B");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m1", ground, a, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("h2", a, b, ComponentType.REVOLUTE_JOINT));
+        system.addComponent(new MechanicalComponent("p3", b, ground, ComponentType.PRISMATIC_JOINT));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MechanicalSystemWriter.writeBinary(system, bytes);
+        MechanicalSystemReader.Result result = MechanicalSystemReader.readBinary(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals("The malformed records were not counted properly", 0, result.getErrorCount());
+        assertEquals("The system was not read back properly", system.toString(), result.getSystem().toString());
+        Iterator<MechanicalComponent> components = result.getSystem().getAllComponents().iterator();
+        components.next();
+        components.next();
+        assertSame("The ground frame was not shared", result.getSystem().getGround(), components.next().getTargetReferenceFrame());
+    }
+
+    @Test
+    public void readATruncatedBinaryModel_theComponentsReadSoFarShouldBeReturned() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        ReferenceFrame a = new ReferenceFrame("A");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m1", ground, a, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("h2", a, ground, ComponentType.REVOLUTE_JOINT));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MechanicalSystemWriter.writeBinary(system, bytes);
+        byte[] truncated = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 3);
+        MechanicalSystemReader.Result result = MechanicalSystemReader.readBinary(new ByteArrayInputStream(truncated));
+
+        assertEquals("The components read before the end of the stream were not returned", 1, result.getSystem().getAllComponents().size());
+        assertEquals("The truncation was not reported", 1, result.getErrorCount());
+    }
+
+    @Test(expected=IOException.class)
+    public void readABinaryModelWithTheWrongMagicNumber_shouldReturnAnException() throws IOException {
+        MechanicalSystemReader.readBinary(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 0, 1}));
+    }
+}
@@ -0,0 +1,84 @@
+package mechanical.modeling.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import mechanical.modeling.algorithms.OptimalModelingVariables;
+import mechanical.modeling.algorithms.VariableSelection;
+import mechanical.modeling.components.CompactMechanicalSystem;
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.Domain;
+
+import org.junit.Test;
+
+public class MechanicalSystemSnapshotTest {
+
+    @Test
+    public void writeAndOpenASnapshotWithTheTrees_theSelectedVariablesShouldBeServedFromTheSnapshot() throws IOException {
+        CompactMechanicalSystem system = createSystem();
+        VariableSelection selection = OptimalModelingVariables.selectVariables(system);
+        File file = File.createTempFile("system", ".snapshot");
+        file.deleteOnExit();
+
+        MechanicalSystemSnapshot.write(system, selection, file);
+        MechanicalSystemSnapshot snapshot = MechanicalSystemSnapshot.open(file);
+
+        assertTrue("The trees were not included", snapshot.hasTrees());
+        assertEquals("The frames were not written properly", system.getFrameCount(), snapshot.getFrameCount());
+        assertEquals("The frame names were not written properly", "Ground", snapshot.getFrameName(0));
+        assertEquals("The component names were not written properly", "u2", snapshot.getComponentName(1));
+        assertEquals("The component types were not written properly", ComponentType.UNIVERSAL_JOINT, snapshot.getComponentType(1));
+        assertEquals("The adjacency was not written properly", system.getAdjacencyEnd(1), snapshot.getAdjacencyEnd(1));
+        assertEquals("The adjacency was not written properly", system.getAdjacentComponent(3), snapshot.getAdjacentComponent(3));
+        assertArrayEquals("The tree was not written properly", selection.getTreeComponents(Domain.TRANSLATIONAL),
+                snapshot.getTreeComponents(Domain.TRANSLATIONAL));
+        assertEquals("The variables were not served properly", selection.getVariableNames(), snapshot.getVariables());
+    }
+
+    @Test
+    public void copyASnapshotToACompactSystem_theSameVariablesShouldBeSelected() throws IOException {
+        CompactMechanicalSystem system = createSystem();
+        File file = File.createTempFile("system", ".snapshot");
+        file.deleteOnExit();
+
+        MechanicalSystemSnapshot.write(system, null, file);
+        MechanicalSystemSnapshot snapshot = MechanicalSystemSnapshot.open(file);
+
+        assertFalse("The trees should not be included", snapshot.hasTrees());
+        assertEquals("The system was not copied properly", system.toString(), snapshot.toCompactSystem().toString());
+        assertEquals("The selection of the copy is different", OptimalModelingVariables.findVariables(system),
+                OptimalModelingVariables.findVariables(snapshot.toCompactSystem()));
+    }
+
+    @Test(expected=IOException.class)
+    public void openAFileThatIsNotASnapshot_shouldReturnAnException() throws IOException {
+        File file = File.createTempFile("system", ".snapshot");
+        file.deleteOnExit();
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(new byte[64]);
+        } finally {
+            output.close();
+        }
+
+        MechanicalSystemSnapshot.open(file);
+    }
+
+    private static CompactMechanicalSystem createSystem() {
+        CompactMechanicalSystem.Builder builder = new CompactMechanicalSystem.Builder("Ground", 4, 4);
+        int nA = builder.addFrame("A");
+        int nB = builder.addFrame("B");
+        int nC = builder.addFrame("C");
+        builder.addComponent("m1", 0, nA, ComponentType.RIGID_BODY);
+        builder.addComponent("u2", nA, nB, ComponentType.UNIVERSAL_JOINT);
+        builder.addComponent("p3", nB, nC, ComponentType.PRISMATIC_JOINT);
+        builder.addComponent("m4", 0, nC, ComponentType.RIGID_BODY);
+        return builder.build();
+    }
+}
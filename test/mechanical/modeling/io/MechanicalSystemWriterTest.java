@@ -0,0 +1,93 @@
+package mechanical.modeling.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import mechanical.modeling.components.ComponentType;
+import mechanical.modeling.components.MechanicalComponent;
+import mechanical.modeling.components.MechanicalSystem;
+import mechanical.modeling.components.ReferenceFrame;
+
+import org.junit.Test;
+
+public class MechanicalSystemWriterTest {
+
+    @Test
+    public void writeAModelInTheTextFormat_theSameSystemShouldBeReadBack() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        ReferenceFrame a = new ReferenceFrame("A");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m1", ground, a, ComponentType.RIGID_BODY));
+        system.addComponent(new MechanicalComponent("u2", a, ground, ComponentType.UNIVERSAL_JOINT));
+
+        StringWriter text = new StringWriter();
+        MechanicalSystemWriter.writeText(system, text);
+        String newLine = System.getProperty("line.separator");
+
+        assertEquals("The text was not properly formatted", "ground,O" + newLine + "m1,RIGID_BODY,O,A" + newLine +
+                "u2,UNIVERSAL_JOINT,A,O" + newLine, text.toString());
+        assertEquals("The system was not read back properly", system.toString(),
+                MechanicalSystemReader.readText(new StringReader(text.toString())).getSystem().toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void writeAComponentWhoseNameContainsASeparator_shouldReturnAnException() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m,1", ground, new ReferenceFrame("A"), ComponentType.RIGID_BODY));
+
+        MechanicalSystemWriter.writeText(system, new StringWriter());
+    }
+
+    @Test
+    public void writeNamesCloseToTheReservedOnes_theSameSystemShouldBeReadBack() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O#");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m#1", ground, new ReferenceFrame("A B"), ComponentType.RIGID_BODY));
+
+        StringWriter text = new StringWriter();
+        MechanicalSystemWriter.writeText(system, text);
+
+        assertEquals("The system was not read back properly", system.toString(),
+                MechanicalSystemReader.readText(new StringReader(text.toString())).getSystem().toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void writeAComponentWhoseNameStartsWithACommentCharacter_shouldReturnAnException() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("#m1", ground, new ReferenceFrame("A"), ComponentType.RIGID_BODY));
+
+        MechanicalSystemWriter.writeText(system, new StringWriter());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void writeAGroundWhoseNameStartsWithACommentCharacter_shouldReturnAnException() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("#O");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m1", ground, new ReferenceFrame("A"), ComponentType.RIGID_BODY));
+
+        MechanicalSystemWriter.writeText(system, new StringWriter());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void writeAFrameWhoseNameEndsWithWhitespace_shouldReturnAnException() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent("m1", ground, new ReferenceFrame("A "), ComponentType.RIGID_BODY));
+
+        MechanicalSystemWriter.writeText(system, new StringWriter());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void writeAComponentWhoseNameStartsWithWhitespace_shouldReturnAnException() throws IOException {
+        ReferenceFrame ground = new ReferenceFrame("O");
+        MechanicalSystem system = new MechanicalSystem(ground);
+        system.addComponent(new MechanicalComponent(" m1", ground, new ReferenceFrame("A"), ComponentType.RIGID_BODY));
+
+        MechanicalSystemWriter.writeText(system, new StringWriter());
+    }
+}